@@ -0,0 +1,17 @@
+package com.hlayiseko.AlumniMentoring.dto;
+
+import java.util.List;
+
+/**
+ * Most common skills, companies and graduation years among the alumni
+ * matching a search, each with the number of matches that have it, most
+ * frequent first.
+ */
+public record AlumniFacets(
+        List<Count> skills,
+        List<Count> companies,
+        List<Count> graduationYears
+) {
+
+    public record Count(String value, int count) {}
+}
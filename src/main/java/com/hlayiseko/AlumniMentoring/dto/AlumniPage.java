@@ -0,0 +1,17 @@
+package com.hlayiseko.AlumniMentoring.dto;
+
+import java.util.List;
+
+/**
+ * One page of alumni search results. {@code total} counts every match of the
+ * search; {@code next} is an opaque cursor for the following page, or null
+ * when there is nothing more to fetch. {@code facets} summarizes all matches
+ * when requested, and is null otherwise.
+ */
+public record AlumniPage(
+        List<AlumniProfileDTO> alumni,
+        int total,
+        String next,
+        boolean hasMore,
+        AlumniFacets facets
+) {}
@@ -4,6 +4,8 @@
  */
 package com.hlayiseko.AlumniMentoring.dto;
 
+import com.hlayiseko.AlumniMentoring.entity.AlumniProfile;
+
 import java.util.List;
 
 /**
@@ -21,4 +23,20 @@ public record AlumniProfileDTO(
         int graduationYear,
         String linkedin,
         List<String> skills
-) {}
+) {
+
+    public static AlumniProfileDTO from(AlumniProfile a) {
+        return new AlumniProfileDTO(
+                a.getId(),
+                a.getFullName(),
+                a.getEmail(),
+                a.getCompany(),
+                a.getPosition(),
+                a.getBio(),
+                Boolean.TRUE.equals(a.getAvailableForMentoring()),
+                a.getGraduationYear() != null ? a.getGraduationYear() : 0,
+                a.getLinkedin(),
+                a.getSkills() != null ? List.copyOf(a.getSkills()) : List.of()
+        );
+    }
+}
@@ -0,0 +1,11 @@
+package com.hlayiseko.AlumniMentoring.dto;
+
+/**
+ * An alumni profile found by fuzzy search, with its relevance score: the
+ * sum over query words of the best field-weighted similarity of a word in
+ * the profile.
+ */
+public record AlumniSearchHit(
+        AlumniProfileDTO alumni,
+        double score
+) {}
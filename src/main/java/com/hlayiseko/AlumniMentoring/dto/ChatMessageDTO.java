@@ -0,0 +1,49 @@
+package com.hlayiseko.AlumniMentoring.dto;
+
+import com.hlayiseko.AlumniMentoring.entity.Message;
+import com.hlayiseko.AlumniMentoring.entity.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Detached view of a chat message, safe to share between threads and to
+ * return from REST resources without touching lazy entity state.
+ */
+public record ChatMessageDTO(
+        Long id,
+        Long chatRoomId,
+        String content,
+        Long senderId,
+        String senderName,
+        String senderRole,
+        Long recipientId,
+        String recipientName,
+        LocalDateTime sentAt,
+        boolean read
+) {
+    public static ChatMessageDTO from(Message message, Long chatRoomId) {
+        // Group posts have no single recipient
+        User recipient = message.getRecipient();
+        return new ChatMessageDTO(
+                message.getId(),
+                chatRoomId,
+                message.getContent(),
+                message.getSender().getId(),
+                message.getSender().getFullName(),
+                message.getSender().getRole().toString(),
+                recipient != null ? recipient.getId() : null,
+                recipient != null ? recipient.getFullName() : null,
+                message.getCreatedAt(),
+                Boolean.TRUE.equals(message.getRead()));
+    }
+
+    public ChatMessageDTO withId(Long newId) {
+        return new ChatMessageDTO(newId, chatRoomId, content, senderId, senderName, senderRole,
+                recipientId, recipientName, sentAt, read);
+    }
+
+    public ChatMessageDTO asRead() {
+        return new ChatMessageDTO(id, chatRoomId, content, senderId, senderName, senderRole,
+                recipientId, recipientName, sentAt, true);
+    }
+}
@@ -0,0 +1,14 @@
+package com.hlayiseko.AlumniMentoring.dto;
+
+import java.util.List;
+
+/**
+ * One page of chat history, oldest message first. {@code next} is an opaque
+ * cursor that continues in the same direction, or null when there is nothing
+ * more to fetch.
+ */
+public record ChatMessagePage(
+        List<ChatMessageDTO> messages,
+        String next,
+        boolean hasMore
+) {}
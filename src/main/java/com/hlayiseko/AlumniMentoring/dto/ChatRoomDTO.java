@@ -0,0 +1,79 @@
+package com.hlayiseko.AlumniMentoring.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Chat room list entry for the current user, including their unread count and
+ * a preview of the latest message. Built from a single projection query.
+ */
+public class ChatRoomDTO {
+    private static final int PREVIEW_LENGTH = 120;
+
+    private Long id;
+    private String roomName;
+    private Long studentId;
+    private String studentName;
+    private Long alumniId;
+    private String alumniName;
+    private String createdAt;
+    private String lastMessageAt;
+    private Boolean isActive;
+    private long unreadCount;
+    private Long lastMessageId;
+    private Long lastMessageSenderId;
+    private String lastMessagePreview;
+    private boolean group;
+    private String name;
+    private long memberCount;
+
+    public ChatRoomDTO() {}
+
+    /**
+     * Maps one row of {@code ChatService.ROOM_SUMMARY_SELECT}.
+     */
+    public static ChatRoomDTO fromRow(Object[] row) {
+        ChatRoomDTO dto = new ChatRoomDTO();
+        dto.id = (Long) row[0];
+        dto.studentId = (Long) row[1];
+        dto.studentName = (String) row[2];
+        dto.alumniId = (Long) row[3];
+        dto.alumniName = (String) row[4];
+        dto.createdAt = row[5] != null ? row[5].toString() : "";
+        dto.lastMessageAt = row[6] != null ? ((LocalDateTime) row[6]).toString() : "";
+        dto.isActive = (Boolean) row[7];
+        dto.unreadCount = row[8] != null ? ((Number) row[8]).longValue() : 0L;
+        dto.lastMessageId = (Long) row[9];
+        dto.lastMessageSenderId = (Long) row[10];
+        dto.lastMessagePreview = preview((String) row[11]);
+        dto.group = (Boolean) row[12];
+        dto.name = (String) row[13];
+        dto.memberCount = ((Number) row[14]).longValue();
+        dto.roomName = dto.group ? "group_" + dto.id : "chat_" + dto.studentId + "_" + dto.alumniId;
+        return dto;
+    }
+
+    private static String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, PREVIEW_LENGTH) + "…";
+    }
+
+    // Getters only (immutable for API output)
+    public Long getId() { return id; }
+    public String getRoomName() { return roomName; }
+    public Long getStudentId() { return studentId; }
+    public String getStudentName() { return studentName; }
+    public Long getAlumniId() { return alumniId; }
+    public String getAlumniName() { return alumniName; }
+    public String getCreatedAt() { return createdAt; }
+    public String getLastMessageAt() { return lastMessageAt; }
+    public Boolean getIsActive() { return isActive; }
+    public long getUnreadCount() { return unreadCount; }
+    public Long getLastMessageId() { return lastMessageId; }
+    public Long getLastMessageSenderId() { return lastMessageSenderId; }
+    public String getLastMessagePreview() { return lastMessagePreview; }
+    public boolean isGroup() { return group; }
+    public String getName() { return name; }
+    public long getMemberCount() { return memberCount; }
+}
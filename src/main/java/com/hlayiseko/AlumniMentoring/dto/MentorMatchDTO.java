@@ -0,0 +1,15 @@
+package com.hlayiseko.AlumniMentoring.dto;
+
+/**
+ * A recommended mentor with the score it was ranked by and the parts that
+ * make it up: how much of the student's interests the mentor covers (0-1),
+ * how many mentees the mentor already has, and the mentor's smoothed share
+ * of answered requests.
+ */
+public record MentorMatchDTO(
+        AlumniProfileDTO alumni,
+        double score,
+        double skillMatch,
+        int acceptedMentees,
+        double responseRate
+) {}
@@ -12,16 +12,23 @@ public class ChatRoom {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Null for group rooms, whose members are in chat_room_members
     @ManyToOne
-    @JoinColumn(name = "student_id", nullable = false)
-    @NotNull
+    @JoinColumn(name = "student_id")
     private Student student;
 
+    // For group rooms, the mentor who runs the room
     @ManyToOne
     @JoinColumn(name = "alumni_id", nullable = false)
     @NotNull
     private AlumniProfile alumni;
 
+    @Column(name = "is_group", nullable = false)
+    private boolean group;
+
+    @Column(name = "name", length = 200)
+    private String name;
+
    @Transient
     private List<Message> messages;
 
@@ -31,6 +38,10 @@ public class ChatRoom {
     @Column(name = "last_message_at")
     private LocalDateTime lastMessageAt;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_message_id")
+    private Message lastMessage;
+
     @Column(name = "is_active")
     private Boolean isActive = true;
 
@@ -53,6 +64,13 @@ public class ChatRoom {
         this.alumni = alumni;
     }
 
+    public static ChatRoom group(AlumniProfile mentor, String name) {
+        ChatRoom room = new ChatRoom(null, mentor);
+        room.group = true;
+        room.name = name;
+        return room;
+    }
+
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -72,16 +90,32 @@ public class ChatRoom {
     public LocalDateTime getLastMessageAt() { return lastMessageAt; }
     public void setLastMessageAt(LocalDateTime lastMessageAt) { this.lastMessageAt = lastMessageAt; }
 
+    public Message getLastMessage() { return lastMessage; }
+    public void setLastMessage(Message lastMessage) { this.lastMessage = lastMessage; }
+
     public Boolean getIsActive() { return isActive; }
     public void setIsActive(Boolean isActive) { this.isActive = isActive; }
 
+    public boolean isGroup() { return group; }
+    public void setGroup(boolean group) { this.group = group; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
     // Helper methods
     public String getRoomName() {
+        if (group) {
+            return "group_" + id;
+        }
         return "chat_" + student.getId() + "_" + alumni.getId();
     }
 
+    /**
+     * Participant check for one-to-one rooms. Group membership lives in
+     * chat_room_members; use {@code ChatService.isMember} for those.
+     */
     public boolean isParticipant(User user) {
-        if (user == null || student == null || alumni == null) {
+        if (user == null || group || student == null || alumni == null) {
             return false;
         }
         return user.getId().equals(student.getId()) || user.getId().equals(alumni.getId());
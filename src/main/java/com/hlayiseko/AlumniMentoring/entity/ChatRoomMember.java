@@ -0,0 +1,81 @@
+package com.hlayiseko.AlumniMentoring.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Membership of one user in one chat room, with the id of the latest
+ * message the user has read there. Every room has a row per member; for
+ * one-to-one rooms those are the student and the alumni.
+ */
+@Entity
+@Table(name = "chat_room_members", indexes = {
+        @Index(name = "idx_chat_room_members_user", columnList = "user_id")
+})
+@IdClass(ChatRoomMember.Key.class)
+public class ChatRoomMember {
+    @Id
+    @Column(name = "chat_room_id")
+    private Long chatRoomId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "joined_at")
+    private LocalDateTime joinedAt;
+
+    @Column(name = "last_read_message_id")
+    private Long lastReadMessageId;
+
+    @PrePersist
+    protected void onCreate() {
+        joinedAt = LocalDateTime.now();
+    }
+
+    public ChatRoomMember() {}
+
+    public ChatRoomMember(Long chatRoomId, Long userId) {
+        this.chatRoomId = chatRoomId;
+        this.userId = userId;
+    }
+
+    // Getters and setters
+    public Long getChatRoomId() { return chatRoomId; }
+    public void setChatRoomId(Long chatRoomId) { this.chatRoomId = chatRoomId; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public LocalDateTime getJoinedAt() { return joinedAt; }
+    public void setJoinedAt(LocalDateTime joinedAt) { this.joinedAt = joinedAt; }
+    public Long getLastReadMessageId() { return lastReadMessageId; }
+    public void setLastReadMessageId(Long lastReadMessageId) { this.lastReadMessageId = lastReadMessageId; }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long chatRoomId;
+        private Long userId;
+
+        public Key() {}
+
+        public Key(Long chatRoomId, Long userId) {
+            this.chatRoomId = chatRoomId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(chatRoomId, key.chatRoomId) && Objects.equals(userId, key.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(chatRoomId, userId);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.hlayiseko.AlumniMentoring.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Materialized unread message count for one user in one chat room.
+ * Incremented by the message writer and reset when the user reads the room.
+ */
+@Entity
+@Table(name = "unread_counters", indexes = {
+        @Index(name = "idx_unread_counters_user", columnList = "user_id")
+})
+@IdClass(UnreadCounter.Key.class)
+public class UnreadCounter {
+    @Id
+    @Column(name = "chat_room_id")
+    private Long chatRoomId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+
+    // Getters and setters
+    public Long getChatRoomId() { return chatRoomId; }
+    public void setChatRoomId(Long chatRoomId) { this.chatRoomId = chatRoomId; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public long getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(long unreadCount) { this.unreadCount = unreadCount; }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long chatRoomId;
+        private Long userId;
+
+        public Key() {}
+
+        public Key(Long chatRoomId, Long userId) {
+            this.chatRoomId = chatRoomId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(chatRoomId, key.chatRoomId) && Objects.equals(userId, key.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(chatRoomId, userId);
+        }
+    }
+}
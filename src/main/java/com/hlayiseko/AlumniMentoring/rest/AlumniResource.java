@@ -1,13 +1,15 @@
 package com.hlayiseko.AlumniMentoring.rest;
 
-import com.hlayiseko.AlumniMentoring.dto.AlumniProfileDTO;
 import com.hlayiseko.AlumniMentoring.entity.*;
 import com.hlayiseko.AlumniMentoring.service.*;
 import jakarta.inject.Inject;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.*;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +21,15 @@ public class AlumniResource {
     @Inject
     private AlumniService alumniService;
 
+    @Inject
+    private VirtualThreadDispatcher dispatcher;
+
+    @Inject
+    private AlumniIndex alumniIndex;
+
+    @Inject
+    private MentorMatcher mentorMatcher;
+
     @Context
     private HttpServletRequest httpRequest;
 
@@ -47,51 +58,151 @@ public class AlumniResource {
         return false;
     }
 
+    /**
+     * Searches available alumni; see {@link AlumniSearchParams} for the
+     * filters. Without paging parameters every match is returned as a list.
+     */
     @GET
-    public Response getAlumni(@QueryParam("skill") String skill,
-                              @QueryParam("company") String company) {
+    public void getAlumni(@BeanParam AlumniSearchParams params,
+                          @Suspended AsyncResponse asyncResponse) {
         if (!isAuthenticated()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
+            asyncResponse.resume(Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("error", "Authentication required"))
-                    .build();
+                    .build());
+            return;
         }
 
         // Only students can browse alumni - alumni should not see other alumni
         String userRole = getUserRole();
         if (!"STUDENT".equals(userRole)) {
-            return Response.status(Response.Status.FORBIDDEN)
+            asyncResponse.resume(Response.status(Response.Status.FORBIDDEN)
                     .entity(Map.of("error", "Only students can browse alumni"))
+                    .build());
+            return;
+        }
+
+        AlumniSearch search;
+        AlumniCursor cursor;
+        try {
+            search = params.toSearch();
+            cursor = params.toCursor(search);
+        } catch (IllegalArgumentException e) {
+            asyncResponse.resume(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build());
+            return;
+        }
+
+        AsyncDispatch.resume(dispatcher, asyncResponse, () -> params.isPaged()
+                ? Response.ok(alumniService.search(search, cursor, params.pageSize(), params.facetLimit())).build()
+                : Response.ok(alumniService.search(search, null, Integer.MAX_VALUE, 0).alumni()).build());
+    }
+
+    /**
+     * Typo-tolerant search over names, companies, positions and skills,
+     * ranked by relevance; e.g. {@code q=Javascrpt} finds JavaScript.
+     */
+    @GET
+    @Path("/search")
+    public void fuzzySearch(@QueryParam("q") String query,
+                            @QueryParam("limit") @DefaultValue("20") int limit,
+                            @Suspended AsyncResponse asyncResponse) {
+        if (!isAuthenticated()) {
+            asyncResponse.resume(Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build());
+            return;
+        }
+        if (!hasRole("STUDENT")) {
+            asyncResponse.resume(Response.status(Response.Status.FORBIDDEN)
+                    .entity(Map.of("error", "Only students can browse alumni"))
+                    .build());
+            return;
+        }
+        if (query == null || query.isBlank()) {
+            asyncResponse.resume(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "q is required"))
+                    .build());
+            return;
+        }
+
+        int size = Math.max(1, Math.min(limit, AlumniSearchParams.MAX_PAGE_SIZE));
+        AsyncDispatch.resume(dispatcher, asyncResponse,
+                () -> Response.ok(alumniIndex.fuzzySearch(query, size)).build());
+    }
+
+    /**
+     * The signed-in student's best matching available mentors, scored on
+     * skill overlap with their major and any comma separated
+     * {@code interests}, mentor load and response history.
+     */
+    @GET
+    @Path("/recommended")
+    public void getRecommended(@QueryParam("limit") @DefaultValue("20") int limit,
+                               @QueryParam("interests") String interests,
+                               @Suspended AsyncResponse asyncResponse) {
+        if (!isAuthenticated()) {
+            asyncResponse.resume(Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build());
+            return;
+        }
+        if (!hasRole("STUDENT")) {
+            asyncResponse.resume(Response.status(Response.Status.FORBIDDEN)
+                    .entity(Map.of("error", "Only students get mentor recommendations"))
+                    .build());
+            return;
+        }
+
+        Long studentId = (Long) httpRequest.getSession(false).getAttribute("userId");
+        List<String> interestList = interests != null && !interests.isBlank()
+                ? Arrays.asList(interests.split(","))
+                : List.of();
+        int size = Math.max(1, Math.min(limit, AlumniSearchParams.MAX_PAGE_SIZE));
+        AsyncDispatch.resume(dispatcher, asyncResponse,
+                () -> Response.ok(mentorMatcher.recommend(studentId, interestList, size)).build());
+    }
+
+    @GET
+    @Path("/debug/match-benchmark")
+    public Response matchBenchmark(@QueryParam("alumni") @DefaultValue("100000") int alumni,
+                                   @QueryParam("k") @DefaultValue("20") int k,
+                                   @QueryParam("runs") @DefaultValue("50") int runs) {
+        if (!isAuthenticated()) {
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build();
+        }
+        if (!hasRole("ADMIN")) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity(Map.of("error", "Only admins can run benchmarks"))
+                    .build();
+        }
+        if (alumni < 1 || alumni > 1_000_000 || k < 1 || k > 1_000 || runs < 1 || runs > 1_000) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "alumni must be 1-1000000, k 1-1000 and runs 1-1000"))
                     .build();
         }
 
-        List<AlumniProfile> alumni;
-
-        if (skill != null && !skill.isEmpty()) {
-            alumni = alumniService.searchBySkill(skill);
-        } else if (company != null && !company.isEmpty()) {
-            alumni = alumniService.searchByCompany(company);
-        } else {
-            alumni = alumniService.getAllAvailableAlumni();
-        }
-
-    // Map entities to DTOs
-    List<AlumniProfileDTO> alumniDTOs = alumni.stream()
-            .map(a -> new AlumniProfileDTO(
-                    a.getId(),
-                    a.getFullName(),
-                    a.getEmail(),
-                    a.getCompany(),
-                    a.getPosition(),
-                    a.getBio(),
-                    a.getAvailableForMentoring(),
-                    a.getGraduationYear(),
-                    a.getLinkedin(),
-                    a.getSkills()
-            ))
-            .toList();
-
-    return Response.ok(alumniDTOs).build();
-}
+        return Response.ok(mentorMatcher.benchmark(alumni, k, runs)).build();
+    }
+
+    @GET
+    @Path("/debug/index")
+    public Response debugIndex() {
+        if (!isAuthenticated()) {
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build();
+        }
+        if (!hasRole("ADMIN")) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity(Map.of("error", "Only admins can view index metrics"))
+                    .build();
+        }
+
+        return Response.ok(alumniIndex.getMetrics()).build();
+    }
 
 
     @GET
@@ -0,0 +1,132 @@
+package com.hlayiseko.AlumniMentoring.rest;
+
+import com.hlayiseko.AlumniMentoring.service.AlumniCursor;
+import com.hlayiseko.AlumniMentoring.service.AlumniIndex;
+import com.hlayiseko.AlumniMentoring.service.AlumniSearch;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.QueryParam;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Query parameters of {@code GET /alumni}. All filters combine.
+ *
+ * {@code skill} takes comma separated terms, combined with {@code match=all}
+ * (default) or {@code any}; {@code skillMode=prefix} matches skills starting
+ * with a term instead of containing it. {@code q} matches a name, company or
+ * skill. {@code sort} is {@code name}, {@code company} or
+ * {@code graduationYear}, in {@code order=asc} or {@code desc}.
+ *
+ * {@code limit}, {@code cursor} (the opaque {@code next} of a previous page)
+ * or {@code paging=cursor} switch to paged results; paged results include
+ * the top {@code facets} (e.g. 10) skills, companies and graduation years
+ * of all matches when asked for.
+ */
+public class AlumniSearchParams {
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_FACETS = 50;
+
+    @QueryParam("skill")
+    String skill;
+
+    @QueryParam("match")
+    @DefaultValue("all")
+    String match;
+
+    @QueryParam("skillMode")
+    @DefaultValue("contains")
+    String skillMode;
+
+    @QueryParam("q")
+    String text;
+
+    @QueryParam("company")
+    String company;
+
+    @QueryParam("position")
+    String position;
+
+    @QueryParam("minYear")
+    Integer minYear;
+
+    @QueryParam("maxYear")
+    Integer maxYear;
+
+    @QueryParam("sort")
+    @DefaultValue("name")
+    String sort;
+
+    @QueryParam("order")
+    @DefaultValue("asc")
+    String order;
+
+    @QueryParam("limit")
+    Integer limit;
+
+    @QueryParam("cursor")
+    String cursor;
+
+    @QueryParam("paging")
+    String paging;
+
+    @QueryParam("facets")
+    @DefaultValue("0")
+    int facets;
+
+    boolean isPaged() {
+        return limit != null || cursor != null || "cursor".equals(paging);
+    }
+
+    int pageSize() {
+        return limit != null ? Math.max(1, Math.min(limit, MAX_PAGE_SIZE)) : DEFAULT_PAGE_SIZE;
+    }
+
+    int facetLimit() {
+        return Math.max(0, Math.min(facets, MAX_FACETS));
+    }
+
+    /**
+     * @throws IllegalArgumentException if a parameter has an unknown value
+     */
+    AlumniSearch toSearch() {
+        if (!"all".equals(match) && !"any".equals(match)) {
+            throw new IllegalArgumentException("match must be all or any");
+        }
+        if (!"contains".equals(skillMode) && !"prefix".equals(skillMode)) {
+            throw new IllegalArgumentException("skillMode must be contains or prefix");
+        }
+        if (!"asc".equals(order) && !"desc".equals(order)) {
+            throw new IllegalArgumentException("order must be asc or desc");
+        }
+        List<String> skills = skill != null && !skill.isBlank() ? Arrays.asList(skill.split(",")) : List.of();
+        return new AlumniSearch(skills, "all".equals(match),
+                "prefix".equals(skillMode) ? AlumniIndex.Match.PREFIX : AlumniIndex.Match.CONTAINS,
+                text, company, position, minYear, maxYear, parseSort(), "desc".equals(order));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed or belongs to another sort
+     */
+    AlumniCursor toCursor(AlumniSearch search) {
+        if (cursor == null) {
+            return null;
+        }
+        AlumniCursor decoded = AlumniCursor.decode(cursor);
+        if (decoded.sort() != search.sort() || decoded.descending() != search.descending()) {
+            throw new IllegalArgumentException("Cursor belongs to a different sort");
+        }
+        return decoded;
+    }
+
+    private AlumniIndex.Sort parseSort() {
+        return switch (sort) {
+            case "name" -> AlumniIndex.Sort.NAME;
+            case "company" -> AlumniIndex.Sort.COMPANY;
+            case "graduationYear" -> AlumniIndex.Sort.GRADUATION_YEAR;
+            default -> throw new IllegalArgumentException("sort must be name, company or graduationYear");
+        };
+    }
+}
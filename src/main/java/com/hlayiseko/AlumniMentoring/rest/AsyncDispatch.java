@@ -0,0 +1,37 @@
+package com.hlayiseko.AlumniMentoring.rest;
+
+import com.hlayiseko.AlumniMentoring.service.VirtualThreadDispatcher;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.core.Response;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Completes a suspended JAX-RS request on the {@link VirtualThreadDispatcher}.
+ * Anything that needs the HTTP request or session must be read before the
+ * handler is dispatched.
+ */
+final class AsyncDispatch {
+
+    private AsyncDispatch() {
+    }
+
+    static void resume(VirtualThreadDispatcher dispatcher, AsyncResponse asyncResponse, Supplier<Response> handler) {
+        dispatcher.supply(handler).whenComplete((response, error) -> {
+            if (error != null) {
+                dispatcher.recordFailure();
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                System.err.println("Error in dispatched request: " + cause.getMessage());
+                cause.printStackTrace();
+                asyncResponse.resume(Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(Map.of("error", "Internal server error"))
+                        .build());
+            } else {
+                asyncResponse.resume(response);
+            }
+        });
+    }
+}
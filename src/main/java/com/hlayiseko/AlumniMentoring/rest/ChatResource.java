@@ -1,15 +1,32 @@
 package com.hlayiseko.AlumniMentoring.rest;
 
+import com.hlayiseko.AlumniMentoring.dto.ChatMessagePage;
+import com.hlayiseko.AlumniMentoring.dto.ChatRoomDTO;
 import com.hlayiseko.AlumniMentoring.entity.*;
+import com.hlayiseko.AlumniMentoring.service.ChatMessageWriter;
+import com.hlayiseko.AlumniMentoring.service.ChatRoomMembers;
 import com.hlayiseko.AlumniMentoring.service.ChatService;
 import com.hlayiseko.AlumniMentoring.service.MentorRequestService;
+import com.hlayiseko.AlumniMentoring.service.MessageCursor;
+import com.hlayiseko.AlumniMentoring.service.ReadReceiptTracker;
+import com.hlayiseko.AlumniMentoring.service.RecentMessageCache;
+import com.hlayiseko.AlumniMentoring.service.UnreadCounterReconciler;
+import com.hlayiseko.AlumniMentoring.service.VirtualThreadDispatcher;
+import com.hlayiseko.AlumniMentoring.websocket.ChatSessionRegistry;
+import com.hlayiseko.AlumniMentoring.websocket.PresenceService;
+import com.hlayiseko.AlumniMentoring.websocket.SendRateLimiter;
+import com.hlayiseko.AlumniMentoring.websocket.SessionInbox;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.PersistenceContext;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.*;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -19,12 +36,41 @@ import java.util.stream.Collectors;
 @Consumes(MediaType.APPLICATION_JSON)
 public class ChatResource {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Inject
     private ChatService chatService;
 
     @Inject
     private MentorRequestService mentorRequestService;
 
+    @Inject
+    private ChatMessageWriter messageWriter;
+
+    @Inject
+    private UnreadCounterReconciler unreadCounterReconciler;
+
+    @Inject
+    private RecentMessageCache recentMessageCache;
+
+    @Inject
+    private ChatSessionRegistry sessionRegistry;
+
+    @Inject
+    private PresenceService presenceService;
+
+    @Inject
+    private ReadReceiptTracker readReceiptTracker;
+
+    @Inject
+    private VirtualThreadDispatcher dispatcher;
+
+    @Inject
+    private EventStreamRegistry eventStreams;
+
+    @Inject
+    private ChatRoomMembers roomMembers;
+
     @PersistenceContext(unitName = "AlumniPU")
     private EntityManager em;
 
@@ -38,14 +84,15 @@ public class ChatResource {
 
     @GET
     @Path("/rooms")
-    public Response getUserChatRooms() {
+    public void getUserChatRooms(@Suspended AsyncResponse asyncResponse) {
         System.out.println("=== getUserChatRooms called ===");
         
         if (!isAuthenticated()) {
             System.out.println("Authentication failed");
-            return Response.status(Response.Status.UNAUTHORIZED)
+            asyncResponse.resume(Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("error", "Authentication required"))
-                    .build();
+                    .build());
+            return;
         }
 
         var session = httpRequest.getSession(false);
@@ -53,48 +100,17 @@ public class ChatResource {
         Long userId = (Long) session.getAttribute("userId");
         
         System.out.println("Session data - Email: " + userEmail + ", UserId: " + userId);
-        
+
+        AsyncDispatch.resume(dispatcher, asyncResponse, () -> getUserChatRooms(userId, userEmail));
+    }
+
+    private Response getUserChatRooms(Long userId, String userEmail) {
         try {
-            // Get user by ID from session (more reliable)
-            User user = em.find(User.class, userId);
-            if (user == null) {
-                System.out.println("User not found for ID: " + userId);
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity(Map.of("error", "User not found"))
-                        .build();
-            }
-            
-            System.out.println("User found: " + user.getEmail() + ", Role: " + user.getRole());
+            // The id comes from the session; the room list itself is a single query over the user's memberships
+            List<ChatRoomDTO> rooms = chatService.getUserChatRoomSummaries(userId);
+            System.out.println("Found " + rooms.size() + " chat rooms for user: " + userEmail);
 
-            List<ChatRoom> rooms = chatService.getUserChatRooms(user);
-            System.out.println("Found " + rooms.size() + " chat rooms for user: " + user.getEmail());
-            
-            List<Object> dto = rooms.stream()
-                    .map(chatRoom -> {
-                        try {
-                            return createChatRoomResponse(chatRoom, user);
-                        } catch (Exception e) {
-                            System.err.println("Error creating chat room response for room " + chatRoom.getId() + ": " + e.getMessage());
-                            e.printStackTrace();
-                            // Return a basic response without unread count
-                            final long fallbackUnreadCount = 0L;
-                            return new Object() {
-                                public final Long id = chatRoom.getId();
-                                public final String roomName = chatRoom.getRoomName();
-                                public final Long studentId = chatRoom.getStudent().getId();
-                                public final String studentName = chatRoom.getStudent().getFullName();
-                                public final Long alumniId = chatRoom.getAlumni().getId();
-                                public final String alumniName = chatRoom.getAlumni().getFullName();
-                                public final String createdAt = chatRoom.getCreatedAt().toString();
-                                public final String lastMessageAt = chatRoom.getLastMessageAt() != null ? chatRoom.getLastMessageAt().toString() : "";
-                                public final Boolean isActive = chatRoom.getIsActive();
-                                public final Long unreadCount = fallbackUnreadCount;
-                            };
-                        }
-                    })
-                    .collect(Collectors.toList());
-
-            return Response.ok(dto).build();
+            return Response.ok(rooms).build();
         } catch (NoResultException e) {
             System.err.println("NoResultException in getUserChatRooms: " + e.getMessage());
             e.printStackTrace();
@@ -143,7 +159,7 @@ public class ChatResource {
             ChatRoom chatRoom = chatService.createChatRoomFromMentorRequest(mentorRequest);
             
             return Response.status(Response.Status.CREATED)
-                    .entity(createChatRoomResponse(chatRoom, user))
+                    .entity(chatService.getChatRoomSummary(chatRoom.getId(), user.getId()))
                     .build();
                     
         } catch (Exception e) {
@@ -153,17 +169,183 @@ public class ChatResource {
         }
     }
 
+    /**
+     * Body of {@code POST /chat/groups}.
+     */
+    public static class GroupRoomRequest {
+        public String name;
+        public List<Long> memberIds;
+    }
+
+    /**
+     * Creates a group mentoring room run by the calling alumni, with the
+     * given users as members.
+     */
+    @POST
+    @Path("/groups")
+    public Response createGroupRoom(GroupRoomRequest request) {
+        if (!isAuthenticated()) {
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build();
+        }
+
+        Long userId = (Long) httpRequest.getSession(false).getAttribute("userId");
+        if (!(em.find(User.class, userId) instanceof AlumniProfile mentor)) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity(Map.of("error", "Only alumni can create group rooms"))
+                    .build();
+        }
+        if (request == null || request.name == null || request.name.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Group name is required"))
+                    .build();
+        }
+
+        ChatRoom chatRoom = chatService.createGroupRoom(mentor, request.name.trim(),
+                request.memberIds != null ? request.memberIds : List.of());
+        return Response.status(Response.Status.CREATED)
+                .entity(chatService.getChatRoomSummary(chatRoom.getId(), userId))
+                .build();
+    }
+
     @GET
-    @Path("/rooms/{roomId}/messages")
-    public Response getChatMessages(@PathParam("roomId") Long roomId,
-                                  @QueryParam("limit") @DefaultValue("50") int limit,
-                                  @QueryParam("offset") @DefaultValue("0") int offset) {
+    @Path("/rooms/{roomId}/members")
+    public Response getMembers(@PathParam("roomId") Long roomId) {
         if (!isAuthenticated()) {
             return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("error", "Authentication required"))
                     .build();
         }
 
+        Long userId = (Long) httpRequest.getSession(false).getAttribute("userId");
+        if (!chatService.isMember(roomId, userId)) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity(Map.of("error", "Access denied to this chat room"))
+                    .build();
+        }
+
+        return Response.ok(chatService.getMembers(roomId).stream()
+                .map(row -> {
+                    Map<String, Object> member = new LinkedHashMap<>();
+                    member.put("userId", row[0]);
+                    member.put("fullName", row[1]);
+                    member.put("role", row[2].toString());
+                    member.put("lastReadMessageId", row[3]);
+                    return member;
+                })
+                .toList())
+                .build();
+    }
+
+    /**
+     * Adds a member to a group room. Only the mentor who runs the room may.
+     */
+    @POST
+    @Path("/rooms/{roomId}/members/{userId}")
+    public Response addMember(@PathParam("roomId") Long roomId, @PathParam("userId") Long memberId) {
+        Response denied = checkGroupOwner(roomId);
+        if (denied != null) {
+            return denied;
+        }
+        if (!chatService.addMember(roomId, memberId)) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("error", "User is already a member or does not exist"))
+                    .build();
+        }
+        return Response.noContent().build();
+    }
+
+    /**
+     * Removes a member from a group room: the mentor may remove anyone but
+     * themselves, other members only themselves. Direct rooms have no members
+     * to remove.
+     */
+    @DELETE
+    @Path("/rooms/{roomId}/members/{userId}")
+    public Response removeMember(@PathParam("roomId") Long roomId, @PathParam("userId") Long memberId) {
+        if (!isAuthenticated()) {
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build();
+        }
+        ChatRoom chatRoom = chatService.getChatRoomById(roomId);
+        if (chatRoom == null || !chatRoom.isGroup()) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(Map.of("error", "Group room not found"))
+                    .build();
+        }
+        if (chatRoom.getAlumni().getId().equals(memberId)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "The room's mentor cannot be removed"))
+                    .build();
+        }
+        Long userId = (Long) httpRequest.getSession(false).getAttribute("userId");
+        if (!userId.equals(memberId)) {
+            Response denied = checkGroupOwner(roomId);
+            if (denied != null) {
+                return denied;
+            }
+        }
+        if (!chatService.removeMember(roomId, memberId)) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(Map.of("error", "User is not a member"))
+                    .build();
+        }
+        return Response.noContent().build();
+    }
+
+    private Response checkGroupOwner(Long roomId) {
+        if (!isAuthenticated()) {
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build();
+        }
+        ChatRoom chatRoom = chatService.getChatRoomById(roomId);
+        if (chatRoom == null || !chatRoom.isGroup()) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(Map.of("error", "Group room not found"))
+                    .build();
+        }
+        Long userId = (Long) httpRequest.getSession(false).getAttribute("userId");
+        if (!chatRoom.getAlumni().getId().equals(userId)) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity(Map.of("error", "Only the room's mentor can manage members"))
+                    .build();
+        }
+        return null;
+    }
+
+    /**
+     * Room history. Passing {@code before}/{@code after} (a message id),
+     * {@code cursor} (the opaque {@code next} of a previous page) or
+     * {@code paging=cursor} switches to keyset paging and returns a
+     * {@link ChatMessagePage}; otherwise the legacy offset list is returned.
+     */
+    @GET
+    @Path("/rooms/{roomId}/messages")
+    public void getChatMessages(@PathParam("roomId") Long roomId,
+                                @QueryParam("limit") @DefaultValue("50") int limit,
+                                @QueryParam("offset") @DefaultValue("0") int offset,
+                                @QueryParam("before") Long before,
+                                @QueryParam("after") Long after,
+                                @QueryParam("cursor") String cursor,
+                                @QueryParam("paging") String paging,
+                                @Suspended AsyncResponse asyncResponse) {
+        if (!isAuthenticated()) {
+            asyncResponse.resume(Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build());
+            return;
+        }
+
+        Long userId = (Long) httpRequest.getSession(false).getAttribute("userId");
+        AsyncDispatch.resume(dispatcher, asyncResponse,
+                () -> getChatMessages(roomId, userId, limit, offset, before, after, cursor, paging));
+    }
+
+    private Response getChatMessages(Long roomId, Long userId, int limit, int offset,
+                                     Long before, Long after, String cursor, String paging) {
         try {
             ChatRoom chatRoom = chatService.getChatRoomById(roomId);
             if (chatRoom == null) {
@@ -173,8 +355,6 @@ public class ChatResource {
             }
 
             // Check if user is participant in this chat room
-            var session = httpRequest.getSession(false);
-            Long userId = (Long) session.getAttribute("userId");
             User user = em.find(User.class, userId);
             if (user == null) {
                 return Response.status(Response.Status.NOT_FOUND)
@@ -182,12 +362,16 @@ public class ChatResource {
                         .build();
             }
 
-            if (!chatRoom.isParticipant(user)) {
+            if (!chatService.canAccess(chatRoom, user)) {
                 return Response.status(Response.Status.FORBIDDEN)
                         .entity(Map.of("error", "Access denied to this chat room"))
                         .build();
             }
 
+            if (before != null || after != null || cursor != null || "cursor".equals(paging)) {
+                return getChatMessagePage(roomId, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)), before, after, cursor);
+            }
+
             List<Message> messages = chatService.getChatMessages(roomId, limit, offset);
             
             return Response.ok(messages.stream()
@@ -202,6 +386,30 @@ public class ChatResource {
         }
     }
 
+    private Response getChatMessagePage(Long roomId, int limit, Long before, Long after, String cursor) {
+        MessageCursor position = null;
+        if (cursor != null) {
+            try {
+                position = MessageCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(Map.of("error", "Invalid cursor"))
+                        .build();
+            }
+        } else if (before != null || after != null) {
+            position = chatService.cursorForMessage(roomId, before != null ? before : after,
+                    before != null ? MessageCursor.Direction.BEFORE : MessageCursor.Direction.AFTER);
+            if (position == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(Map.of("error", "Message not found in this chat room"))
+                        .build();
+            }
+        }
+
+        ChatMessagePage page = chatService.getChatMessagePage(roomId, position, limit);
+        return Response.ok(page).build();
+    }
+
     @POST
     @Path("/rooms/{roomId}/messages")
     public Response sendMessage(@PathParam("roomId") Long roomId,
@@ -285,7 +493,8 @@ public class ChatResource {
                 "totalRooms", allRooms.size(),
                 "rooms", allRooms.stream().map(room -> Map.of(
                     "id", room.getId(),
-                    "studentEmail", room.getStudent().getEmail(),
+                    "studentEmail", room.getStudent() != null ? room.getStudent().getEmail() : "",
+                    "group", room.isGroup(),
                     "alumniEmail", room.getAlumni().getEmail(),
                     "isActive", room.getIsActive()
                 )).toList()
@@ -300,6 +509,119 @@ public class ChatResource {
         }
     }
 
+    @GET
+    @Path("/debug/metrics")
+    public Response debugMetrics() {
+        if (!isAuthenticated()) {
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build();
+        }
+
+        return Response.ok(Map.of(
+            "messageWriter", messageWriter.getMetrics(),
+            "recentMessageCache", recentMessageCache.getMetrics(),
+            "sessions", sessionRegistry.getMetrics(),
+            "rateLimiter", SendRateLimiter.getMetrics(),
+            "presence", presenceService.getMetrics(),
+            "readReceipts", readReceiptTracker.getMetrics(),
+            "dispatcher", dispatcher.getMetrics(),
+            "inbox", Map.of("rejectedFrames", SessionInbox.getRejectedFrames()),
+            "eventStreams", eventStreams.getMetrics(),
+            "roomMembers", roomMembers.getMetrics()
+        )).build();
+    }
+
+    @GET
+    @Path("/debug/dispatch-benchmark")
+    public Response dispatchBenchmark(@QueryParam("tasks") @DefaultValue("1000") int tasks,
+                                      @QueryParam("blockMillis") @DefaultValue("50") long blockMillis) {
+        if (!isAuthenticated()) {
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build();
+        }
+
+        var session = httpRequest.getSession(false);
+        if (!"ADMIN".equals(session.getAttribute("userRole"))) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity(Map.of("error", "Only admins can run benchmarks"))
+                    .build();
+        }
+        if (tasks < 1 || tasks > VirtualThreadDispatcher.MAX_BENCHMARK_TASKS
+                || blockMillis < 0 || blockMillis > VirtualThreadDispatcher.MAX_BENCHMARK_BLOCK_MILLIS
+                || tasks * blockMillis > VirtualThreadDispatcher.MAX_BENCHMARK_WORK_MILLIS) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "tasks must be 1-" + VirtualThreadDispatcher.MAX_BENCHMARK_TASKS
+                            + ", blockMillis 0-" + VirtualThreadDispatcher.MAX_BENCHMARK_BLOCK_MILLIS
+                            + " and tasks x blockMillis at most " + VirtualThreadDispatcher.MAX_BENCHMARK_WORK_MILLIS))
+                    .build();
+        }
+
+        try {
+            return Response.ok(dispatcher.benchmark(tasks, blockMillis)).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+        }
+    }
+
+    @GET
+    @Path("/debug/fanout-benchmark")
+    public Response fanOutBenchmark(@QueryParam("members") @DefaultValue("10,100,500") String members,
+                                    @QueryParam("messages") @DefaultValue("20") int messages) {
+        if (!isAuthenticated()) {
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build();
+        }
+
+        var session = httpRequest.getSession(false);
+        if (!"ADMIN".equals(session.getAttribute("userRole"))) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity(Map.of("error", "Only admins can run benchmarks"))
+                    .build();
+        }
+
+        int[] memberCounts;
+        try {
+            memberCounts = Arrays.stream(members.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        } catch (NumberFormatException e) {
+            memberCounts = new int[0];
+        }
+        boolean valid = memberCounts.length > 0 && memberCounts.length <= 10
+                && Arrays.stream(memberCounts).allMatch(count -> count >= 1 && count <= 5_000)
+                && messages >= 1 && messages <= 1_000;
+        if (!valid) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "members must be up to 10 sizes of 1-5000 and messages 1-1000"))
+                    .build();
+        }
+
+        return Response.ok(sessionRegistry.benchmarkFanOut(memberCounts, messages)).build();
+    }
+
+    @POST
+    @Path("/debug/reconcile-unread")
+    public Response reconcileUnreadCounters() {
+        if (!isAuthenticated()) {
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build();
+        }
+
+        var session = httpRequest.getSession(false);
+        if (!"ADMIN".equals(session.getAttribute("userRole"))) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity(Map.of("error", "Only admins can reconcile unread counters"))
+                    .build();
+        }
+
+        int rows = unreadCounterReconciler.reconcile();
+        return Response.ok(Map.of("reconciledRows", rows)).build();
+    }
+
     @GET
     @Path("/unread-count")
     public Response getUnreadCount() {
@@ -334,44 +656,6 @@ public class ChatResource {
         }
     }
 
-    private long getUnreadCountForRoom(Long roomId, User currentUser) {
-        try {
-            long count = chatService.getUnreadMessageCount(roomId, currentUser);
-            System.out.println("Unread count for room " + roomId + ": " + count);
-            return count;
-        } catch (Exception e) {
-            System.err.println("Error getting unread count for room " + roomId + ": " + e.getMessage());
-            e.printStackTrace();
-            return 0;
-        }
-    }
-
-    private Object createChatRoomResponse(ChatRoom chatRoom, User currentUser) {
-        try {
-            System.out.println("Creating chat room response for room " + chatRoom.getId() + " and user " + currentUser.getEmail());
-            
-            // Get unread count for this specific chat room
-            final long unreadCountValue = getUnreadCountForRoom(chatRoom.getId(), currentUser);
-            
-            return new Object() {
-                public final Long id = chatRoom.getId();
-                public final String roomName = chatRoom.getRoomName();
-                public final Long studentId = chatRoom.getStudent().getId();
-                public final String studentName = chatRoom.getStudent().getFullName();
-                public final Long alumniId = chatRoom.getAlumni().getId();
-                public final String alumniName = chatRoom.getAlumni().getFullName();
-                public final String createdAt = chatRoom.getCreatedAt().toString();
-                public final String lastMessageAt = chatRoom.getLastMessageAt() != null ? chatRoom.getLastMessageAt().toString() : "";
-                public final Boolean isActive = chatRoom.getIsActive();
-                public final Long unreadCount = unreadCountValue;
-            };
-        } catch (Exception e) {
-            System.err.println("Error in createChatRoomResponse: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
-        }
-    }
-
     private Object createMessageResponse(Message message) {
         return new Object() {
             public final Long id = message.getId();
@@ -382,8 +666,8 @@ public class ChatResource {
             public final String messageType = "TEXT";
             public final String sentAt = message.getCreatedAt().toString();
             public final Boolean isRead = message.getRead();
-            public final Long recipientId = message.getRecipient().getId();
-            public final String recipientName = message.getRecipient().getFullName();
+            public final Long recipientId = message.getRecipient() != null ? message.getRecipient().getId() : null;
+            public final String recipientName = message.getRecipient() != null ? message.getRecipient().getFullName() : null;
         };
     }
 }
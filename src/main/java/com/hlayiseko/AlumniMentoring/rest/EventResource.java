@@ -0,0 +1,52 @@
+package com.hlayiseko.AlumniMentoring.rest;
+
+import com.hlayiseko.AlumniMentoring.service.ChatService;
+import jakarta.inject.Inject;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+import java.util.Map;
+
+/**
+ * Server-Sent Events stream of the signed-in user's unread counts and mentor
+ * request changes, so pages can stay current without re-fetching.
+ */
+@Path("/events")
+public class EventResource {
+
+    @Inject
+    private EventStreamRegistry streams;
+
+    @Inject
+    private ChatService chatService;
+
+    @Context
+    private HttpServletRequest httpRequest;
+
+    private boolean isAuthenticated() {
+        var session = httpRequest.getSession(false);
+        return session != null && session.getAttribute("userEmail") != null;
+    }
+
+    @GET
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void stream(@Context SseEventSink sink, @Context Sse sse) {
+        if (!isAuthenticated()) {
+            throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(Map.of("error", "Authentication required"))
+                    .build());
+        }
+
+        Long userId = (Long) httpRequest.getSession(false).getAttribute("userId");
+        streams.open(userId, sink, sse, () -> chatService.getUnreadSnapshot(userId));
+    }
+}
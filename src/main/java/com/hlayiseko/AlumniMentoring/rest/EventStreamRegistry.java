@@ -0,0 +1,243 @@
+package com.hlayiseko.AlumniMentoring.rest;
+
+import com.hlayiseko.AlumniMentoring.dto.MentorRequestDTO;
+import com.hlayiseko.AlumniMentoring.service.MentorRequestChanged;
+import com.hlayiseko.AlumniMentoring.service.ReadReceipt;
+import com.hlayiseko.AlumniMentoring.service.UnreadCountChanged;
+import com.hlayiseko.AlumniMentoring.service.UnreadSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Open {@code /events} streams on this node, by user.
+ *
+ * A stream starts with an {@code unread} snapshot of the user's per-room
+ * unread counts; after that it only carries changes as they happen:
+ * {@code unread-delta} when a counter moves (new message, messages read)
+ * and {@code request} when a mentor request involving the user is created
+ * or changes status. The stream is registered and its snapshot read and
+ * sent under the stream's lock, so changes made while it opens queue behind
+ * the snapshot and are never lost. The snapshot records up to which message
+ * and read mark each room is counted, and queued deltas it already includes
+ * are dropped instead of being counted twice. Every
+ * {@code alumni.events.keepAliveSeconds} each
+ * stream gets a comment line so proxies keep it open and closed streams
+ * are noticed.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class EventStreamRegistry {
+
+    private static final long KEEP_ALIVE_SECONDS = Long.getLong("alumni.events.keepAliveSeconds", 25);
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private final Map<Long, Set<SseEventSink>> streams = new ConcurrentHashMap<>();
+    // The unread snapshot each open stream started from
+    private final Map<SseEventSink, UnreadSnapshot> snapshots = new ConcurrentHashMap<>();
+    // All Sse instances of the application are equivalent; keep the first one seen
+    private volatile Sse sse;
+    private ScheduledFuture<?> keepAlive;
+
+    private final AtomicLong streamsOpened = new AtomicLong();
+    private final AtomicLong eventsSent = new AtomicLong();
+    private final AtomicLong sendFailures = new AtomicLong();
+    private final AtomicLong deltasInSnapshot = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        keepAlive = scheduler.scheduleAtFixedRate(this::keepAlive,
+                KEEP_ALIVE_SECONDS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        keepAlive.cancel(false);
+        streams.values().forEach(sinks -> sinks.forEach(SseEventSink::close));
+        streams.clear();
+        snapshots.clear();
+    }
+
+    /**
+     * Registers a new stream for the user, then reads and sends it the unread
+     * snapshot.
+     */
+    public void open(Long userId, SseEventSink sink, Sse sse, Supplier<UnreadSnapshot> unreadSnapshot) {
+        if (this.sse == null) {
+            this.sse = sse;
+        }
+        // Changes that race the snapshot query wait for it, then go out unless it already counted them
+        synchronized (sink) {
+            streams.compute(userId, (id, sinks) -> {
+                Set<SseEventSink> result = sinks != null ? sinks : ConcurrentHashMap.newKeySet();
+                result.add(sink);
+                return result;
+            });
+            streamsOpened.incrementAndGet();
+
+            UnreadSnapshot snapshot = unreadSnapshot.get();
+            snapshots.put(sink, snapshot);
+            List<Map<String, Object>> rooms = new ArrayList<>(snapshot.counts().size());
+            snapshot.counts().forEach((roomId, count) -> rooms.add(Map.of("roomId", roomId, "unreadCount", count)));
+            send(userId, sink, event("unread", Map.of("total", snapshot.total(), "rooms", rooms)));
+        }
+    }
+
+    public void onUnreadCountChanged(@Observes UnreadCountChanged change) {
+        OutboundSseEvent event = null;
+        for (Long userId : change.userIds()) {
+            Set<SseEventSink> sinks = streams.get(userId);
+            if (sinks == null) {
+                continue; // Most members of a large group have no stream open here
+            }
+            if (event == null) {
+                event = event("unread-delta", Map.of("roomId", change.roomId(), "delta", change.delta()));
+            }
+            for (SseEventSink sink : sinks) {
+                sendDelta(userId, sink, event,
+                        snapshot -> snapshot.includesMessage(change.roomId(), change.messageId()));
+            }
+        }
+    }
+
+    public void onReadReceipt(@Observes ReadReceipt receipt) {
+        Set<SseEventSink> sinks = streams.get(receipt.readerId());
+        if (receipt.marked() <= 0 || sinks == null || sse == null) {
+            return;
+        }
+        OutboundSseEvent event = event("unread-delta",
+                Map.of("roomId", receipt.roomId(), "delta", -(long) receipt.marked()));
+        for (SseEventSink sink : sinks) {
+            sendDelta(receipt.readerId(), sink, event,
+                    snapshot -> snapshot.includesRead(receipt.roomId(), receipt.upToMessageId()));
+        }
+    }
+
+    public void onMentorRequestChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) MentorRequestChanged change) {
+        sendToUser(change.studentId(), "request", requestPayload(change.studentView(), change.created()));
+        sendToUser(change.alumniId(), "request", requestPayload(change.alumniView(), change.created()));
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("users", streams.size());
+        metrics.put("openStreams", streams.values().stream().mapToInt(Set::size).sum());
+        metrics.put("streamsOpened", streamsOpened.get());
+        metrics.put("eventsSent", eventsSent.get());
+        metrics.put("sendFailures", sendFailures.get());
+        metrics.put("deltasInSnapshot", deltasInSnapshot.get());
+        return metrics;
+    }
+
+    private static Map<String, Object> requestPayload(MentorRequestDTO request, boolean created) {
+        return Map.of("created", created, "request", request);
+    }
+
+    private void sendToUser(Long userId, String name, Object data) {
+        Set<SseEventSink> sinks = streams.get(userId);
+        if (sinks == null || sse == null) {
+            return;
+        }
+        // Built once and written to each of the user's tabs
+        OutboundSseEvent event = event(name, data);
+        for (SseEventSink sink : sinks) {
+            send(userId, sink, event);
+        }
+    }
+
+    private OutboundSseEvent event(String name, Object data) {
+        return sse.newEventBuilder()
+                .name(name)
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(data)
+                .build();
+    }
+
+    /**
+     * Sends an unread delta unless the stream's snapshot already counted it.
+     * Checked under the stream's lock, so a snapshot still being read is
+     * waited for.
+     */
+    private void sendDelta(Long userId, SseEventSink sink, OutboundSseEvent event,
+                           Predicate<UnreadSnapshot> inSnapshot) {
+        synchronized (sink) {
+            UnreadSnapshot snapshot = snapshots.get(sink);
+            if (snapshot != null && inSnapshot.test(snapshot)) {
+                deltasInSnapshot.incrementAndGet();
+                return;
+            }
+            send(userId, sink, event);
+        }
+    }
+
+    private void send(Long userId, SseEventSink sink, OutboundSseEvent event) {
+        if (sink.isClosed()) {
+            remove(userId, sink);
+            return;
+        }
+        CompletionStage<?> sent;
+        synchronized (sink) {
+            sent = sink.send(event);
+        }
+        sent.whenComplete((result, error) -> {
+            if (error != null) {
+                sendFailures.incrementAndGet();
+                remove(userId, sink);
+                sink.close();
+            } else {
+                eventsSent.incrementAndGet();
+            }
+        });
+    }
+
+    private void remove(Long userId, SseEventSink sink) {
+        streams.computeIfPresent(userId, (id, sinks) -> {
+            sinks.remove(sink);
+            return sinks.isEmpty() ? null : sinks;
+        });
+        snapshots.remove(sink);
+    }
+
+    void keepAlive() {
+        if (sse == null) {
+            return;
+        }
+        try {
+            OutboundSseEvent ping = sse.newEventBuilder().comment("keep-alive").build();
+            for (Map.Entry<Long, Set<SseEventSink>> entry : streams.entrySet()) {
+                for (SseEventSink sink : entry.getValue()) {
+                    send(entry.getKey(), sink, ping);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error in event stream keep-alive: " + e.getMessage());
+        }
+    }
+}
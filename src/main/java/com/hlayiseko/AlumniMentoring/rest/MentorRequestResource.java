@@ -8,6 +8,8 @@ import jakarta.persistence.PersistenceContext;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.*;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +23,9 @@ public class MentorRequestResource {
     @Inject
     private MentorRequestService requestService;
 
+    @Inject
+    private VirtualThreadDispatcher dispatcher;
+
     @PersistenceContext(unitName = "AlumniPU")
     private EntityManager em;
 
@@ -78,17 +83,22 @@ public class MentorRequestResource {
 
 
     @GET
-    public Response getRequests(@QueryParam("status") String status) {
+    public void getRequests(@QueryParam("status") String status, @Suspended AsyncResponse asyncResponse) {
         if (!isAuthenticated()) {
-            return Response.status(Response.Status.UNAUTHORIZED)
+            asyncResponse.resume(Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("error", "Authentication required"))
-                    .build();
+                    .build());
+            return;
         }
 
         var session = httpRequest.getSession(false);
         String userEmail = (String) session.getAttribute("userEmail");
         String role = (String) session.getAttribute("userRole");
 
+        AsyncDispatch.resume(dispatcher, asyncResponse, () -> getRequests(status, userEmail, role));
+    }
+
+    private Response getRequests(String status, String userEmail, String role) {
         List<MentorRequest> requests;
         if (status != null) {
             RequestStatus reqStatus = RequestStatus.valueOf(status.toUpperCase());
@@ -0,0 +1,32 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in an alumni search, after the profile with this sort key
+ * and id. Serialized as an opaque URL-safe token for the {@code next} field of
+ * an alumni page; a cursor only continues the sort it was issued for.
+ */
+public record AlumniCursor(AlumniIndex.Sort sort, boolean descending, String key, long id) {
+
+    public String encode() {
+        String raw = sort.name() + "|" + (descending ? "d" : "a") + "|" + id + "|" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AlumniCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The key goes last so it may itself contain the separator
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new AlumniCursor(AlumniIndex.Sort.valueOf(parts[0]), "d".equals(parts[1]),
+                    parts[3], Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
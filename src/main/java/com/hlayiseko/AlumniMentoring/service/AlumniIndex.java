@@ -0,0 +1,577 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.dto.AlumniFacets;
+import com.hlayiseko.AlumniMentoring.dto.AlumniPage;
+import com.hlayiseko.AlumniMentoring.dto.AlumniProfileDTO;
+import com.hlayiseko.AlumniMentoring.dto.AlumniSearchHit;
+import com.hlayiseko.AlumniMentoring.entity.AlumniProfile;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory inverted index of alumni profiles, so browsing and search do not
+ * scan {@code alumni_skills} or {@code users} with leading-wildcard LIKEs.
+ *
+ * Every alumni profile gets a dense ordinal. Normalized skills, names,
+ * companies and positions each map to a {@link BitSet} of the ordinals that
+ * have them, graduation years likewise, and a further bit set marks the
+ * profiles available for mentoring. Queries run against an immutable
+ * {@link Snapshot}: substring matches scan the (small) sorted dictionaries,
+ * prefix matches take a range of them, and filters combine bit by bit.
+ *
+ * Pages are cut from an ordinal permutation per sort key, built on first use
+ * for each snapshot, so a page costs its own size plus the non-matching
+ * profiles skipped over rather than a sort of every match. Facet counts for
+ * a search come from one pass over its matches with primitive counters,
+ * using a per-snapshot table of each profile's skill and company ids.
+ * Typo-tolerant search goes through a {@link FuzzyTermIndex} of the words in
+ * names, companies, positions and skills, maintained alongside.
+ *
+ * The index is loaded at startup and updated from {@link AlumniProfileChanged}
+ * events after the changing transaction commits. Writers publish a new
+ * snapshot, so readers never lock; the dictionaries are
+ * {@link PostingDictionary} instances that copy only the postings an update
+ * touches, and the id to ordinal map only ever grows, so it is shared by all
+ * snapshots rather than copied.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class AlumniIndex {
+
+    public enum Match {
+        CONTAINS, PREFIX
+    }
+
+    public enum Sort {
+        NAME, COMPANY, GRADUATION_YEAR
+    }
+
+    /**
+     * One consistent view of the index. Ordinals index {@code profiles}.
+     * {@code ordinals} is shared with later snapshots and may also map ids
+     * added since, to ordinals at or past the end of {@code profiles}.
+     * Public only so other beans can read it through the container proxy.
+     */
+    public record Snapshot(
+            AlumniProfileDTO[] profiles,
+            Map<Long, Integer> ordinals,
+            PostingDictionary<String> skills,
+            PostingDictionary<String> names,
+            PostingDictionary<String> companies,
+            PostingDictionary<String> positions,
+            PostingDictionary<Integer> years,
+            BitSet available,
+            Map<Sort, SortOrder> sortOrders,
+            AtomicReference<FacetTable> facetTable
+    ) {}
+
+    /**
+     * Ordinals in ascending {@code (key, id)} order for one sort.
+     */
+    record SortOrder(int[] ordinals, String[] keyByOrdinal) {}
+
+    /**
+     * Dense ids of each profile's distinct skills, company and graduation
+     * year, with the display form of every id (as first written by some
+     * profile). Missing values have id -1.
+     */
+    record FacetTable(String[] skills, int[][] skillsByOrdinal, String[] companies, int[] companyByOrdinal,
+                      String[] years, int[] yearByOrdinal) {}
+
+    @PersistenceContext(unitName = "AlumniPU")
+    private EntityManager em;
+
+    private volatile Snapshot snapshot = index(new AlumniProfileDTO[0]);
+    private volatile FuzzyTermIndex fuzzy = new FuzzyTermIndex();
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder fuzzyCompactions = new LongAdder();
+    // Query and build time of the startup load
+    private volatile long loadMillis;
+
+    @PostConstruct
+    void load() {
+        long start = System.nanoTime();
+        List<AlumniProfile> alumni = em.createQuery(
+                        "SELECT DISTINCT a FROM AlumniProfile a LEFT JOIN FETCH a.skills ORDER BY a.id",
+                        AlumniProfile.class)
+                .getResultList();
+        rebuild(alumni.stream().map(AlumniProfileDTO::from).toList());
+        loadMillis = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Replaces the whole index, e.g. after a bulk import.
+     */
+    public synchronized void rebuild(Collection<AlumniProfileDTO> profiles) {
+        Snapshot rebuilt = index(profiles.toArray(new AlumniProfileDTO[0]));
+        FuzzyTermIndex words = wordIndex(rebuilt.profiles());
+        snapshot = rebuilt;
+        fuzzy = words;
+    }
+
+    /**
+     * Built aside, so searches keep using the old word index until this one
+     * is complete.
+     */
+    private static FuzzyTermIndex wordIndex(AlumniProfileDTO[] profiles) {
+        FuzzyTermIndex words = new FuzzyTermIndex();
+        for (int ordinal = 0; ordinal < profiles.length; ordinal++) {
+            words.add(ordinal, profiles[ordinal]);
+        }
+        return words;
+    }
+
+    static Snapshot index(AlumniProfileDTO[] byOrdinal) {
+        Map<Long, Integer> ordinals = new ConcurrentHashMap<>();
+        NavigableMap<String, BitSet> skills = new TreeMap<>();
+        NavigableMap<String, BitSet> names = new TreeMap<>();
+        NavigableMap<String, BitSet> companies = new TreeMap<>();
+        NavigableMap<String, BitSet> positions = new TreeMap<>();
+        NavigableMap<Integer, BitSet> years = new TreeMap<>();
+        BitSet available = new BitSet(byOrdinal.length);
+        for (int ordinal = 0; ordinal < byOrdinal.length; ordinal++) {
+            AlumniProfileDTO profile = byOrdinal[ordinal];
+            ordinals.put(profile.id(), ordinal);
+            available.set(ordinal, profile.availableForMentoring());
+            for (String skill : normalizedSkills(profile)) {
+                skills.computeIfAbsent(skill, s -> new BitSet()).set(ordinal);
+            }
+            post(names, normalize(profile.fullName()), ordinal);
+            post(companies, normalize(profile.company()), ordinal);
+            post(positions, normalize(profile.position()), ordinal);
+            years.computeIfAbsent(profile.graduationYear(), y -> new BitSet()).set(ordinal);
+        }
+        return new Snapshot(byOrdinal, ordinals, PostingDictionary.of(skills), PostingDictionary.of(names),
+                PostingDictionary.of(companies), PostingDictionary.of(positions), PostingDictionary.of(years), available,
+                new ConcurrentHashMap<>(), new AtomicReference<>());
+    }
+
+    private static void post(NavigableMap<String, BitSet> dictionary, String value, int ordinal) {
+        if (!value.isEmpty()) {
+            dictionary.computeIfAbsent(value, v -> new BitSet()).set(ordinal);
+        }
+    }
+
+    public void onProfileChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) AlumniProfileChanged change) {
+        upsert(change.profile());
+    }
+
+    public synchronized void upsert(AlumniProfileDTO profile) {
+        Snapshot current = snapshot;
+        Integer existing = current.ordinals().get(profile.id());
+        int ordinal = existing != null ? existing : current.profiles().length;
+
+        AlumniProfileDTO[] profiles = Arrays.copyOf(current.profiles(), Math.max(current.profiles().length, ordinal + 1));
+        AlumniProfileDTO previous = profiles[ordinal];
+        profiles[ordinal] = profile;
+
+        Map<Long, Integer> ordinals = current.ordinals();
+        if (existing == null) {
+            ordinals.put(profile.id(), ordinal);
+        }
+
+        BitSet available = current.available();
+        if (available.get(ordinal) != profile.availableForMentoring()) {
+            available = (BitSet) available.clone();
+            available.set(ordinal, profile.availableForMentoring());
+        }
+
+        snapshot = new Snapshot(profiles, ordinals,
+                current.skills().move(previous != null ? normalizedSkills(previous) : List.of(),
+                        normalizedSkills(profile), ordinal),
+                current.names().move(single(previous, AlumniProfileDTO::fullName),
+                        single(profile, AlumniProfileDTO::fullName), ordinal),
+                current.companies().move(single(previous, AlumniProfileDTO::company),
+                        single(profile, AlumniProfileDTO::company), ordinal),
+                current.positions().move(single(previous, AlumniProfileDTO::position),
+                        single(profile, AlumniProfileDTO::position), ordinal),
+                current.years().move(previous != null ? List.of(previous.graduationYear()) : List.of(),
+                        List.of(profile.graduationYear()), ordinal),
+                available,
+                new ConcurrentHashMap<>(),
+                new AtomicReference<>());
+
+        // After publishing, so every ordinal the word index returns exists in the snapshot
+        if (previous != null) {
+            fuzzy.remove(ordinal, previous);
+        }
+        fuzzy.add(ordinal, profile);
+        if (fuzzy.needsCompaction()) {
+            fuzzy = wordIndex(profiles);
+            fuzzyCompactions.increment();
+        }
+        updates.increment();
+    }
+
+    private static List<String> single(AlumniProfileDTO profile, Function<AlumniProfileDTO, String> field) {
+        if (profile == null) {
+            return List.of();
+        }
+        String value = normalize(field.apply(profile));
+        return value.isEmpty() ? List.of() : List.of(value);
+    }
+
+    /**
+     * Up to {@code limit} matches of the search after {@code cursor} (or from
+     * the start), in the search's order, with the top {@code facetLimit}
+     * values of each facet over all matches (none if zero).
+     */
+    public AlumniPage search(AlumniSearch search, AlumniCursor cursor, int limit, int facetLimit) {
+        long start = System.nanoTime();
+        Snapshot current = snapshot;
+        BitSet matches = matches(current, search);
+        SortOrder order = sortOrder(current, search.sort());
+
+        int[] sorted = order.ordinals();
+        int step = search.descending() ? -1 : 1;
+        int position;
+        if (cursor == null) {
+            position = search.descending() ? sorted.length - 1 : 0;
+        } else {
+            position = search.descending()
+                    ? firstAtOrAfter(current, order, cursor.key(), cursor.id(), false) - 1
+                    : firstAtOrAfter(current, order, cursor.key(), cursor.id(), true);
+        }
+
+        List<AlumniProfileDTO> page = new ArrayList<>(Math.min(limit, 64));
+        int last = -1;
+        boolean hasMore = false;
+        for (; position >= 0 && position < sorted.length; position += step) {
+            int ordinal = sorted[position];
+            if (!matches.get(ordinal)) {
+                continue;
+            }
+            if (page.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            page.add(current.profiles()[ordinal]);
+            last = ordinal;
+        }
+
+        String next = hasMore
+                ? new AlumniCursor(search.sort(), search.descending(), order.keyByOrdinal()[last],
+                        current.profiles()[last].id()).encode()
+                : null;
+        AlumniFacets facets = facetLimit > 0 ? facets(current, matches, facetLimit) : null;
+        AlumniPage result = new AlumniPage(page, matches.cardinality(), next, hasMore, facets);
+        record(start);
+        return result;
+    }
+
+    /**
+     * Available alumni whose names, companies, positions or skills match the
+     * query words exactly, by prefix or within a small edit distance, best
+     * first.
+     */
+    public List<AlumniSearchHit> fuzzySearch(String query, int limit) {
+        long start = System.nanoTime();
+        Snapshot current = snapshot;
+        List<AlumniSearchHit> hits = new ArrayList<>();
+        for (FuzzyTermIndex.Hit hit : fuzzy.search(query, current.available(), limit)) {
+            hits.add(new AlumniSearchHit(current.profiles()[hit.ordinal()], hit.score()));
+        }
+        record(start);
+        return hits;
+    }
+
+    /**
+     * The current snapshot. Public because callers reach this bean through
+     * its no-interface view, which only forwards public methods.
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Ordinals of the available profiles matching every filter of the search.
+     */
+    static BitSet matches(Snapshot snapshot, AlumniSearch search) {
+        BitSet result = (BitSet) snapshot.available().clone();
+        if (search.skills() != null && !search.skills().isEmpty()) {
+            result.and(matchSkills(snapshot, search.skills(), search.matchAllSkills(), search.skillMode()));
+        }
+        String text = normalize(search.text());
+        if (!text.isEmpty()) {
+            BitSet any = containing(snapshot.names(), text);
+            any.or(containing(snapshot.companies(), text));
+            any.or(containing(snapshot.skills(), text));
+            result.and(any);
+        }
+        String company = normalize(search.company());
+        if (!company.isEmpty()) {
+            result.and(containing(snapshot.companies(), company));
+        }
+        String position = normalize(search.position());
+        if (!position.isEmpty()) {
+            result.and(containing(snapshot.positions(), position));
+        }
+        if (search.minGraduationYear() != null || search.maxGraduationYear() != null) {
+            int from = search.minGraduationYear() != null ? search.minGraduationYear() : Integer.MIN_VALUE;
+            int to = search.maxGraduationYear() != null ? search.maxGraduationYear() : Integer.MAX_VALUE;
+            BitSet inRange = new BitSet();
+            if (from <= to) {
+                snapshot.years().forEachInRange(from, true, to, true, (year, postings) -> inRange.or(postings));
+            }
+            result.and(inRange);
+        }
+        return result;
+    }
+
+    /**
+     * Ordinals matching the skill terms; an empty term list matches everyone.
+     */
+    static BitSet matchSkills(Snapshot snapshot, List<String> terms, boolean matchAll, Match match) {
+        BitSet result = null;
+        for (String term : terms) {
+            String normalized = normalize(term);
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            BitSet matches = match == Match.PREFIX
+                    ? prefixed(snapshot.skills(), normalized)
+                    : containing(snapshot.skills(), normalized);
+            if (result == null) {
+                result = matches;
+            } else if (matchAll) {
+                result.and(matches);
+            } else {
+                result.or(matches);
+            }
+        }
+        if (result == null) {
+            result = new BitSet();
+            result.set(0, snapshot.profiles().length);
+        }
+        return result;
+    }
+
+    static BitSet containing(PostingDictionary<String> dictionary, String term) {
+        BitSet matches = new BitSet();
+        dictionary.forEach((key, postings) -> {
+            if (key.contains(term)) {
+                matches.or(postings);
+            }
+        });
+        return matches;
+    }
+
+    static BitSet prefixed(PostingDictionary<String> dictionary, String term) {
+        // Sorted keys: everything from the term up to the next prefix
+        BitSet matches = new BitSet();
+        dictionary.forEachInRange(term, true, term + Character.MAX_VALUE, false, (key, postings) -> matches.or(postings));
+        return matches;
+    }
+
+    /**
+     * Counts skills, companies and graduation years of the matching profiles
+     * in a single pass over the match bits.
+     */
+    static AlumniFacets facets(Snapshot snapshot, BitSet matches, int top) {
+        FacetTable table = facetTable(snapshot);
+        int[] skillCounts = new int[table.skills().length];
+        int[] companyCounts = new int[table.companies().length];
+        int[] yearCounts = new int[table.years().length];
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            for (int skill : table.skillsByOrdinal()[ordinal]) {
+                skillCounts[skill]++;
+            }
+            int company = table.companyByOrdinal()[ordinal];
+            if (company >= 0) {
+                companyCounts[company]++;
+            }
+            int year = table.yearByOrdinal()[ordinal];
+            if (year >= 0) {
+                yearCounts[year]++;
+            }
+        }
+
+        return new AlumniFacets(top(table.skills(), skillCounts, top), top(table.companies(), companyCounts, top),
+                top(table.years(), yearCounts, top));
+    }
+
+    private static final Comparator<AlumniFacets.Count> BY_COUNT =
+            Comparator.comparingInt(AlumniFacets.Count::count).reversed().thenComparing(AlumniFacets.Count::value);
+
+    private static List<AlumniFacets.Count> top(String[] values, int[] counts, int top) {
+        List<AlumniFacets.Count> result = new ArrayList<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                result.add(new AlumniFacets.Count(values[id], counts[id]));
+            }
+        }
+        result.sort(BY_COUNT);
+        return result.subList(0, Math.min(top, result.size()));
+    }
+
+    static FacetTable facetTable(Snapshot snapshot) {
+        FacetTable table = snapshot.facetTable().get();
+        if (table != null) {
+            return table;
+        }
+        AlumniProfileDTO[] profiles = snapshot.profiles();
+        Map<String, Integer> skillIds = new HashMap<>();
+        Map<String, Integer> companyIds = new HashMap<>();
+        List<String> skills = new ArrayList<>();
+        List<String> companies = new ArrayList<>();
+        int[][] skillsByOrdinal = new int[profiles.length][];
+        int[] companyByOrdinal = new int[profiles.length];
+        int[] yearByOrdinal = new int[profiles.length];
+        // Year ids follow the year dictionary, which already holds every distinct year
+        List<String> years = new ArrayList<>();
+        Map<Integer, Integer> yearIds = new HashMap<>();
+        snapshot.years().forEach((year, postings) -> {
+            if (year > 0) {
+                yearIds.put(year, years.size());
+                years.add(String.valueOf(year));
+            }
+        });
+        for (int ordinal = 0; ordinal < profiles.length; ordinal++) {
+            AlumniProfileDTO profile = profiles[ordinal];
+            List<String> raw = profile.skills() != null ? profile.skills() : List.of();
+            int[] ids = new int[raw.size()];
+            int count = 0;
+            for (String skill : raw) {
+                String key = normalize(skill);
+                if (key.isEmpty()) {
+                    continue;
+                }
+                int id = skillIds.computeIfAbsent(key, k -> {
+                    skills.add(skill.trim());
+                    return skills.size() - 1;
+                });
+                // Drop duplicates within one profile so each profile counts once
+                boolean seen = false;
+                for (int i = 0; i < count && !seen; i++) {
+                    seen = ids[i] == id;
+                }
+                if (!seen) {
+                    ids[count++] = id;
+                }
+            }
+            skillsByOrdinal[ordinal] = Arrays.copyOf(ids, count);
+
+            String company = normalize(profile.company());
+            companyByOrdinal[ordinal] = company.isEmpty() ? -1 : companyIds.computeIfAbsent(company, k -> {
+                companies.add(profile.company().trim());
+                return companies.size() - 1;
+            });
+            yearByOrdinal[ordinal] = yearIds.getOrDefault(profile.graduationYear(), -1);
+        }
+        table = new FacetTable(skills.toArray(new String[0]), skillsByOrdinal,
+                companies.toArray(new String[0]), companyByOrdinal,
+                years.toArray(new String[0]), yearByOrdinal);
+        // Racing builders produce equal tables; keep whichever landed first
+        return snapshot.facetTable().compareAndSet(null, table) ? table : snapshot.facetTable().get();
+    }
+
+    static SortOrder sortOrder(Snapshot snapshot, Sort sort) {
+        return snapshot.sortOrders().computeIfAbsent(sort, s -> {
+            AlumniProfileDTO[] profiles = snapshot.profiles();
+            String[] keys = new String[profiles.length];
+            for (int i = 0; i < profiles.length; i++) {
+                keys[i] = sortKey(profiles[i], s);
+            }
+            int[] ordinals = IntStream.range(0, profiles.length).boxed()
+                    .sorted(Comparator.<Integer, String>comparing(i -> keys[i]).thenComparing(i -> profiles[i].id()))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            return new SortOrder(ordinals, keys);
+        });
+    }
+
+    private static String sortKey(AlumniProfileDTO profile, Sort sort) {
+        return switch (sort) {
+            case NAME -> normalize(profile.fullName());
+            case COMPANY -> normalize(profile.company());
+            // Zero-padded so the string order is the numeric order
+            case GRADUATION_YEAR -> String.format("%010d", Math.max(0, profile.graduationYear()));
+        };
+    }
+
+    /**
+     * First position whose {@code (key, id)} is greater than the given one, or
+     * with {@code strictlyAfter} false, greater or equal.
+     */
+    static int firstAtOrAfter(Snapshot snapshot, SortOrder order, String key, long id, boolean strictlyAfter) {
+        int low = 0;
+        int high = order.ordinals().length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int ordinal = order.ordinals()[mid];
+            int cmp = order.keyByOrdinal()[ordinal].compareTo(key);
+            if (cmp == 0) {
+                cmp = Long.compare(snapshot.profiles()[ordinal].id(), id);
+            }
+            if (cmp < 0 || (strictlyAfter && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> normalizedSkills(AlumniProfileDTO profile) {
+        if (profile.skills() == null) {
+            return List.of();
+        }
+        return profile.skills().stream().map(AlumniIndex::normalize).filter(s -> !s.isEmpty()).distinct().toList();
+    }
+
+    private void record(long start) {
+        queries.increment();
+        queryNanos.add(System.nanoTime() - start);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Snapshot current = snapshot;
+        long count = queries.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("profiles", current.profiles().length);
+        metrics.put("available", current.available().cardinality());
+        metrics.put("skills", current.skills().size());
+        metrics.put("companies", current.companies().size());
+        metrics.put("positions", current.positions().size());
+        metrics.put("loadMillis", loadMillis);
+        metrics.put("queries", count);
+        metrics.put("avgQueryMicros", count > 0 ? queryNanos.sum() / 1_000.0 / count : 0);
+        metrics.put("updates", updates.sum());
+        metrics.put("fuzzyCompactions", fuzzyCompactions.sum());
+        metrics.put("fuzzy", fuzzy.getMetrics());
+        return metrics;
+    }
+}
@@ -0,0 +1,10 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.dto.AlumniProfileDTO;
+
+/**
+ * CDI event fired when an alumni profile is created or updated, carrying the
+ * profile as it was saved.
+ */
+public record AlumniProfileChanged(AlumniProfileDTO profile) {
+}
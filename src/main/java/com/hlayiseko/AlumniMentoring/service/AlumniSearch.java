@@ -0,0 +1,26 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import java.util.List;
+
+/**
+ * Filters and ordering of an alumni search. Null or empty filters match
+ * everyone; all given filters must match. Only alumni available for
+ * mentoring are ever returned.
+ *
+ * {@code text} matches a name, company or skill containing it;
+ * {@code company} and {@code position} match values containing them;
+ * graduation years are inclusive bounds.
+ */
+public record AlumniSearch(
+        List<String> skills,
+        boolean matchAllSkills,
+        AlumniIndex.Match skillMode,
+        String text,
+        String company,
+        String position,
+        Integer minGraduationYear,
+        Integer maxGraduationYear,
+        AlumniIndex.Sort sort,
+        boolean descending
+) {
+}
@@ -1,8 +1,13 @@
 package com.hlayiseko.AlumniMentoring.service;
 
 
+import com.hlayiseko.AlumniMentoring.dto.AlumniPage;
+import com.hlayiseko.AlumniMentoring.dto.AlumniProfileDTO;
 import com.hlayiseko.AlumniMentoring.entity.*;
+import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.persistence.*;
 
 import java.util.List;
@@ -13,6 +18,12 @@ public class AlumniService {
     @PersistenceContext(unitName = "AlumniPU")
     private EntityManager em;
 
+    @EJB
+    private AlumniIndex index;
+
+    @Inject
+    private Event<AlumniProfileChanged> profileChanges;
+
     public AlumniProfile findById(Long id) {
         return em.find(AlumniProfile.class, id);
     }
@@ -24,26 +35,19 @@ public class AlumniService {
                 .getResultList();
     }
 
-    public List<AlumniProfile> searchBySkill(String skill) {
-        return em.createQuery(
-                        "SELECT DISTINCT a FROM AlumniProfile a JOIN a.skills s " +
-                                "WHERE LOWER(s) LIKE LOWER(:skill) AND a.availableForMentoring = true",
-                        AlumniProfile.class)
-                .setParameter("skill", "%" + skill + "%")
-                .getResultList();
-    }
-
-    public List<AlumniProfile> searchByCompany(String company) {
-        return em.createQuery(
-                        "SELECT a FROM AlumniProfile a WHERE LOWER(a.company) LIKE LOWER(:company) " +
-                                "AND a.availableForMentoring = true",
-                        AlumniProfile.class)
-                .setParameter("company", "%" + company + "%")
-                .getResultList();
+    /**
+     * One page of available alumni matching every filter of the search, plus
+     * facet counts over all matches if {@code facetLimit} is positive,
+     * answered by the in-memory index without a database round trip.
+     */
+    public AlumniPage search(AlumniSearch search, AlumniCursor cursor, int limit, int facetLimit) {
+        return index.search(search, cursor, limit, facetLimit);
     }
 
     public AlumniProfile create(AlumniProfile alumni) {
         em.persist(alumni);
+        em.flush(); // Assigns the id the index keys on
+        profileChanges.fire(new AlumniProfileChanged(AlumniProfileDTO.from(alumni)));
         return alumni;
     }
 
@@ -63,6 +67,8 @@ public class AlumniService {
         existing.setAvailableForMentoring(alumni.getAvailableForMentoring());
         existing.setLinkedin(alumni.getLinkedin());
 
-        return em.merge(existing);
+        AlumniProfile merged = em.merge(existing);
+        profileChanges.fire(new AlumniProfileChanged(AlumniProfileDTO.from(merged)));
+        return merged;
     }
 }
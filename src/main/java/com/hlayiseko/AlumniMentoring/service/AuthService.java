@@ -1,7 +1,9 @@
 package com.hlayiseko.AlumniMentoring.service;
 
+import com.hlayiseko.AlumniMentoring.dto.AlumniProfileDTO;
 import com.hlayiseko.AlumniMentoring.entity.*;
 import jakarta.ejb.Stateless;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.persistence.*;
 import jakarta.security.enterprise.identitystore.Pbkdf2PasswordHash;
@@ -28,6 +30,9 @@ public class AuthService {
     @Inject
     private EmailService emailService;
 
+    @Inject
+    private Event<AlumniProfileChanged> profileChanges;
+
     /**
      * Validates user credentials against the database.
      * 
@@ -62,6 +67,10 @@ public class AuthService {
         // Hash the password before storing
         user.setPassword(passwordHash.generate(user.getPassword().toCharArray()));
         em.persist(user);
+        if (user instanceof AlumniProfile alumni) {
+            em.flush(); // Assigns the id the alumni index keys on
+            profileChanges.fire(new AlumniProfileChanged(AlumniProfileDTO.from(alumni)));
+        }
         
         // Send welcome email notification
         emailService.sendWelcomeEmail(user);
@@ -94,7 +103,11 @@ public class AuthService {
      */
     public User updateUser(User user) {
         try {
-            return em.merge(user);
+            User merged = em.merge(user);
+            if (merged instanceof AlumniProfile alumni) {
+                profileChanges.fire(new AlumniProfileChanged(AlumniProfileDTO.from(alumni)));
+            }
+            return merged;
         } catch (Exception e) {
             System.err.println("Error updating user: " + e.getMessage());
             throw e;
@@ -0,0 +1,344 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.dto.ChatMessageDTO;
+import com.hlayiseko.AlumniMentoring.entity.ChatRoom;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind pipeline for chat messages.
+ *
+ * Messages are acked with a provisional sequence id as soon as they are
+ * queued, then persisted in micro-batches: a batch is flushed when it reaches
+ * {@code alumni.chat.writer.batchSize} messages or after
+ * {@code alumni.chat.writer.flushMillis} ms, whichever comes first. Each flush
+ * is one JDBC transaction with a batched INSERT, a single
+ * {@code last_message_at}/{@code last_message_id} UPDATE per room and one unread counter increment
+ * per (room, recipient). A group post is a single row without a recipient;
+ * its room's counters move with one set-based upsert per (room, sender) over
+ * {@code chat_room_members}, so the cost per batch does not grow with the
+ * number of members on the Java side.
+ *
+ * If a batch fails, its messages are retried one transaction each, so a
+ * single bad row fails only its own message. The flush loop runs on its own
+ * thread from the container's {@link ManagedThreadFactory} rather than
+ * holding a managed executor thread for the life of the application.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class ChatMessageWriter {
+
+    private static final int BATCH_SIZE = Integer.getInteger("alumni.chat.writer.batchSize", 100);
+    private static final long FLUSH_MILLIS = Long.getLong("alumni.chat.writer.flushMillis", 5);
+    private static final int QUEUE_CAPACITY = Integer.getInteger("alumni.chat.writer.queueCapacity", 10_000);
+    private static final long SUBMIT_TIMEOUT_MILLIS = 100;
+
+    private static final String INSERT_MESSAGE =
+            "INSERT INTO messages (chat_room_id, sender_id, recipient_id, content, read_status, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_ROOM =
+            "UPDATE chat_rooms SET last_message_at = ?, last_message_id = ? " +
+            "WHERE id = ? AND (last_message_id IS NULL OR last_message_id < ?)";
+    private static final String INCREMENT_UNREAD =
+            "INSERT INTO unread_counters (chat_room_id, user_id, unread_count) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE unread_count = unread_count + VALUES(unread_count)";
+    private static final String INCREMENT_GROUP_UNREAD =
+            "INSERT INTO unread_counters (chat_room_id, user_id, unread_count) " +
+            "SELECT m.chat_room_id, m.user_id, ? FROM chat_room_members m WHERE m.chat_room_id = ? AND m.user_id <> ? " +
+            "ON DUPLICATE KEY UPDATE unread_count = unread_count + VALUES(unread_count)";
+
+    @Resource(lookup = "jdbc/AlumniDS")
+    private DataSource dataSource;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    @PersistenceUnit(unitName = "AlumniPU")
+    private EntityManagerFactory emf;
+
+    private final BlockingQueue<PendingMessage> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean running;
+    private Thread flusher;
+
+    // Metrics
+    private final AtomicLong batchesFlushed = new AtomicLong();
+    private final AtomicLong messagesFlushed = new AtomicLong();
+    private final AtomicLong failedMessages = new AtomicLong();
+    private final AtomicLong retriedBatches = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private record PendingMessage(long sequence, ChatMessageDTO message, CompletableFuture<ChatMessageDTO> persisted) {}
+
+    private record RoomRecipient(long roomId, long recipientId) {}
+
+    private record RoomSender(long roomId, long senderId) {}
+
+    @PostConstruct
+    void start() {
+        running = true;
+        flusher = threadFactory.newThread(this::flushLoop);
+        flusher.setName("chat-message-writer");
+        flusher.start();
+        System.out.println("Chat message writer started (batchSize=" + BATCH_SIZE + ", flushMillis=" + FLUSH_MILLIS + ")");
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            System.err.println("Chat message writer did not drain cleanly");
+        }
+    }
+
+    /**
+     * Queues a message for persistence and returns immediately.
+     *
+     * @throws IllegalStateException if the pipeline is saturated
+     */
+    public MessageReceipt submit(ChatMessageDTO message) {
+        PendingMessage pending = new PendingMessage(sequence.incrementAndGet(), message, new CompletableFuture<>());
+        try {
+            if (!queue.offer(pending, SUBMIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Chat message writer is saturated");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing message", e);
+        }
+        return new MessageReceipt(pending.sequence(), message, pending.persisted());
+    }
+
+    public Map<String, Object> getMetrics() {
+        long batches = batchesFlushed.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queueDepth", queue.size());
+        metrics.put("batchesFlushed", batches);
+        metrics.put("messagesFlushed", messagesFlushed.get());
+        metrics.put("failedMessages", failedMessages.get());
+        metrics.put("retriedBatches", retriedBatches.get());
+        metrics.put("avgBatchSize", batches == 0 ? 0.0 : (double) messagesFlushed.get() / batches);
+        metrics.put("maxBatchSize", maxBatchSize.get());
+        metrics.put("avgFlushMillis", batches == 0 ? 0.0 : totalFlushNanos.get() / 1_000_000.0 / batches);
+        metrics.put("maxFlushMillis", maxFlushNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    private void flushLoop() {
+        List<PendingMessage> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch until it is full or the flush window closes
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_MILLIS);
+                while (batch.size() < BATCH_SIZE) {
+                    queue.drainTo(batch, BATCH_SIZE - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= BATCH_SIZE || remaining <= 0) {
+                        break;
+                    }
+                    PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (Exception e) {
+                System.err.println("Unexpected error in chat message writer: " + e.getMessage());
+                e.printStackTrace();
+                for (PendingMessage pending : batch) {
+                    pending.persisted().completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        long start = System.nanoTime();
+        try {
+            write(batch);
+            recordFlush(batch.size(), System.nanoTime() - start);
+            return;
+        } catch (SQLException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+                return;
+            }
+            System.err.println("Error flushing " + batch.size() + " chat messages, retrying one by one: " + e.getMessage());
+            retriedBatches.incrementAndGet();
+        }
+
+        // Already broadcast, so every message that can be stored must be
+        int written = 0;
+        for (PendingMessage pending : batch) {
+            try {
+                write(List.of(pending));
+                written++;
+            } catch (SQLException e) {
+                fail(pending, e);
+            }
+        }
+        if (written > 0) {
+            recordFlush(written, System.nanoTime() - start);
+        }
+    }
+
+    private void fail(PendingMessage pending, SQLException e) {
+        failedMessages.incrementAndGet();
+        System.err.println("Error storing chat message from user " + pending.message().senderId()
+                + " in room " + pending.message().chatRoomId() + ": " + e.getMessage());
+        pending.persisted().completeExceptionally(e);
+    }
+
+    /**
+     * Stores the messages in one transaction and completes their futures.
+     */
+    private void write(List<PendingMessage> batch) throws SQLException {
+        Map<Long, Integer> latestByRoom = new HashMap<>();
+        Map<RoomRecipient, Integer> unreadIncrements = new HashMap<>();
+        Map<RoomSender, Integer> groupIncrements = new HashMap<>();
+        long[] ids = new long[batch.size()];
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement insert = connection.prepareStatement(INSERT_MESSAGE, Statement.RETURN_GENERATED_KEYS)) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        ChatMessageDTO m = batch.get(i).message();
+                        insert.setLong(1, m.chatRoomId());
+                        insert.setLong(2, m.senderId());
+                        if (m.recipientId() != null) {
+                            insert.setLong(3, m.recipientId());
+                        } else {
+                            insert.setNull(3, Types.BIGINT);
+                        }
+                        insert.setString(4, m.content());
+                        insert.setBoolean(5, m.read());
+                        insert.setTimestamp(6, Timestamp.valueOf(m.sentAt()));
+                        insert.addBatch();
+                        latestByRoom.put(m.chatRoomId(), i);
+                        if (m.recipientId() != null) {
+                            unreadIncrements.merge(new RoomRecipient(m.chatRoomId(), m.recipientId()), 1, Integer::sum);
+                        } else {
+                            groupIncrements.merge(new RoomSender(m.chatRoomId(), m.senderId()), 1, Integer::sum);
+                        }
+                    }
+                    insert.executeBatch();
+                    try (ResultSet keys = insert.getGeneratedKeys()) {
+                        int i = 0;
+                        while (keys.next() && i < ids.length) {
+                            ids[i++] = keys.getLong(1);
+                        }
+                    }
+                }
+
+                // One update per room, however many messages it received, pointing at its latest message
+                try (PreparedStatement update = connection.prepareStatement(UPDATE_ROOM)) {
+                    for (Map.Entry<Long, Integer> entry : latestByRoom.entrySet()) {
+                        int latest = entry.getValue();
+                        update.setTimestamp(1, Timestamp.valueOf(batch.get(latest).message().sentAt()));
+                        update.setLong(2, ids[latest]);
+                        update.setLong(3, entry.getKey());
+                        update.setLong(4, ids[latest]);
+                        update.addBatch();
+                    }
+                    update.executeBatch();
+                }
+
+                // Unread counters move in the same transaction as the inserts
+                try (PreparedStatement increment = connection.prepareStatement(INCREMENT_UNREAD)) {
+                    for (Map.Entry<RoomRecipient, Integer> entry : unreadIncrements.entrySet()) {
+                        increment.setLong(1, entry.getKey().roomId());
+                        increment.setLong(2, entry.getKey().recipientId());
+                        increment.setLong(3, entry.getValue());
+                        increment.addBatch();
+                    }
+                    increment.executeBatch();
+                }
+                if (!groupIncrements.isEmpty()) {
+                    try (PreparedStatement increment = connection.prepareStatement(INCREMENT_GROUP_UNREAD)) {
+                        for (Map.Entry<RoomSender, Integer> entry : groupIncrements.entrySet()) {
+                            increment.setLong(1, entry.getValue());
+                            increment.setLong(2, entry.getKey().roomId());
+                            increment.setLong(3, entry.getKey().senderId());
+                            increment.addBatch();
+                        }
+                        increment.executeBatch();
+                    }
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+
+        // Rooms were updated behind JPA's back; drop any stale cached copies
+        for (Long roomId : latestByRoom.keySet()) {
+            emf.getCache().evict(ChatRoom.class, roomId);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingMessage pending = batch.get(i);
+            pending.persisted().complete(pending.message().withId(ids[i]));
+        }
+    }
+
+    private void recordFlush(int size, long elapsedNanos) {
+        batchesFlushed.incrementAndGet();
+        messagesFlushed.addAndGet(size);
+        totalFlushNanos.addAndGet(elapsedNanos);
+        maxBatchSize.accumulateAndGet(size, Math::max);
+        maxFlushNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+}
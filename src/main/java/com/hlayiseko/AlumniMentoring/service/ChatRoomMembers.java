@@ -0,0 +1,68 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Member ids of recently used chat rooms, so membership checks and per-post
+ * fan-out do not query {@code chat_room_members} on every message.
+ *
+ * Entries are dropped when this node changes a room's membership and expire
+ * after {@code alumni.chat.members.ttlSeconds}, which bounds how long another
+ * node's change can go unnoticed. Expired entries of rooms nobody reads again
+ * are evicted by {@link #sweep()} from the chat heartbeat.
+ */
+@ApplicationScoped
+public class ChatRoomMembers {
+
+    private static final long TTL_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong("alumni.chat.members.ttlSeconds", 60));
+
+    private record Entry(long[] sortedIds, long loadedAt) {}
+
+    private final Map<Long, Entry> rooms = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @return the room's member ids in ascending order, or null on a miss
+     */
+    public long[] get(Long roomId) {
+        Entry entry = rooms.get(roomId);
+        if (entry == null || entry.loadedAt() < System.currentTimeMillis() - TTL_MILLIS) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.sortedIds();
+    }
+
+    public void put(Long roomId, long[] memberIds) {
+        long[] sorted = memberIds.clone();
+        Arrays.sort(sorted);
+        rooms.put(roomId, new Entry(sorted, System.currentTimeMillis()));
+    }
+
+    public void invalidate(Long roomId) {
+        rooms.remove(roomId);
+    }
+
+    public void sweep() {
+        long expiredBefore = System.currentTimeMillis() - TTL_MILLIS;
+        rooms.values().removeIf(entry -> entry.loadedAt() < expiredBefore);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("rooms", rooms.size());
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        return metrics;
+    }
+}
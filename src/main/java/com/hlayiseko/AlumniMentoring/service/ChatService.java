@@ -1,18 +1,67 @@
 package com.hlayiseko.AlumniMentoring.service;
 
+import com.hlayiseko.AlumniMentoring.dto.ChatMessageDTO;
+import com.hlayiseko.AlumniMentoring.dto.ChatMessagePage;
+import com.hlayiseko.AlumniMentoring.dto.ChatRoomDTO;
 import com.hlayiseko.AlumniMentoring.entity.*;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Stateless
 public class ChatService {
 
+    // Strict mode: do not ack a message until its batch is durable
+    private static final boolean STRICT_DURABILITY =
+            Boolean.parseBoolean(System.getProperty("alumni.chat.writer.strict", "true"));
+    private static final long STRICT_TIMEOUT_MILLIS = 5_000;
+
     @PersistenceContext(unitName = "AlumniPU")
     private EntityManager em;
 
+    @Inject
+    private ChatMessageWriter messageWriter;
+
+    @Inject
+    private RecentMessageCache recentMessages;
+
+    @Inject
+    private ReadReceiptTracker readReceipts;
+
+    @Inject
+    private Event<UnreadCountChanged> unreadChanges;
+
+    @Inject
+    private ChatRoomMembers members;
+
+    // Columns mapped by ChatRoomDTO.fromRow; only rooms the user is a member of
+    private static final String ROOM_SUMMARY_SELECT =
+            "SELECT cr.id, s.id, s.fullName, a.id, a.fullName, cr.createdAt, cr.lastMessageAt, cr.isActive, " +
+            "uc.unreadCount, lm.id, lms.id, lm.content, cr.group, cr.name, " +
+            "(SELECT COUNT(m2) FROM ChatRoomMember m2 WHERE m2.chatRoomId = cr.id) " +
+            "FROM ChatRoom cr JOIN ChatRoomMember mem ON mem.chatRoomId = cr.id AND mem.userId = :userId " +
+            "JOIN cr.alumni a LEFT JOIN cr.student s " +
+            "LEFT JOIN cr.lastMessage lm LEFT JOIN lm.sender lms " +
+            "LEFT JOIN UnreadCounter uc ON uc.chatRoomId = cr.id AND uc.userId = :userId ";
+
     public ChatRoom createOrGetChatRoom(Student student, AlumniProfile alumni) {
         // Check if chat room already exists
         Optional<ChatRoom> existingRoom = em.createQuery(
@@ -30,9 +79,116 @@ public class ChatService {
         // Create new chat room
         ChatRoom chatRoom = new ChatRoom(student, alumni);
         em.persist(chatRoom);
+        em.flush();
+        em.persist(new ChatRoomMember(chatRoom.getId(), student.getId()));
+        em.persist(new ChatRoomMember(chatRoom.getId(), alumni.getId()));
         return chatRoom;
     }
 
+    /**
+     * Creates a group room run by {@code mentor}, with the mentor and the
+     * given users as members. Unknown user ids are skipped.
+     */
+    public ChatRoom createGroupRoom(AlumniProfile mentor, String name, Collection<Long> memberIds) {
+        ChatRoom chatRoom = ChatRoom.group(mentor, name);
+        em.persist(chatRoom);
+        em.flush();
+
+        Set<Long> userIds = new LinkedHashSet<>();
+        userIds.add(mentor.getId());
+        userIds.addAll(memberIds);
+        for (Long userId : userIds) {
+            if (em.find(User.class, userId) != null) {
+                em.persist(new ChatRoomMember(chatRoom.getId(), userId));
+            }
+        }
+        return chatRoom;
+    }
+
+    /**
+     * @return false if the user was already a member or does not exist
+     */
+    public boolean addMember(Long chatRoomId, Long userId) {
+        if (em.find(ChatRoomMember.class, new ChatRoomMember.Key(chatRoomId, userId)) != null
+                || em.find(User.class, userId) == null) {
+            return false;
+        }
+        em.persist(new ChatRoomMember(chatRoomId, userId));
+        members.invalidate(chatRoomId);
+        return true;
+    }
+
+    /**
+     * Removes a member of a group room together with their unread counter
+     * for the room.
+     *
+     * @return false if the user was not a member
+     * @throws IllegalArgumentException for direct rooms and for the group's mentor
+     */
+    public boolean removeMember(Long chatRoomId, Long userId) {
+        ChatRoom chatRoom = em.find(ChatRoom.class, chatRoomId);
+        if (chatRoom == null || !chatRoom.isGroup()) {
+            throw new IllegalArgumentException("Only group rooms have removable members");
+        }
+        if (chatRoom.getAlumni().getId().equals(userId)) {
+            throw new IllegalArgumentException("The room's mentor cannot be removed");
+        }
+        ChatRoomMember member = em.find(ChatRoomMember.class, new ChatRoomMember.Key(chatRoomId, userId));
+        if (member == null) {
+            return false;
+        }
+        em.remove(member);
+        em.createQuery("DELETE FROM UnreadCounter c WHERE c.chatRoomId = :roomId AND c.userId = :userId")
+                .setParameter("roomId", chatRoomId)
+                .setParameter("userId", userId)
+                .executeUpdate();
+        members.invalidate(chatRoomId);
+        return true;
+    }
+
+    /**
+     * Member ids of a room in ascending order, from {@link ChatRoomMembers}
+     * when cached.
+     */
+    public long[] getMemberIds(Long chatRoomId) {
+        long[] cached = members.get(chatRoomId);
+        if (cached != null) {
+            return cached;
+        }
+        long[] ids = em.createQuery(
+                "SELECT m.userId FROM ChatRoomMember m WHERE m.chatRoomId = :roomId", Long.class)
+                .setParameter("roomId", chatRoomId)
+                .getResultStream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        members.put(chatRoomId, ids);
+        return members.get(chatRoomId);
+    }
+
+    public boolean isMember(Long chatRoomId, Long userId) {
+        return Arrays.binarySearch(getMemberIds(chatRoomId), userId) >= 0;
+    }
+
+    /**
+     * Whether the user may read and post in the room: a participant of a
+     * one-to-one room or a member of a group room.
+     */
+    public boolean canAccess(ChatRoom chatRoom, User user) {
+        return chatRoom.isGroup() ? isMember(chatRoom.getId(), user.getId()) : chatRoom.isParticipant(user);
+    }
+
+    /**
+     * Members of a room with their read watermark, for the member list.
+     */
+    public List<Object[]> getMembers(Long chatRoomId) {
+        return em.createQuery(
+                "SELECT u.id, u.fullName, u.role, m.lastReadMessageId FROM ChatRoomMember m, User u " +
+                "WHERE m.chatRoomId = :roomId AND u.id = m.userId ORDER BY u.fullName",
+                Object[].class)
+                .setParameter("roomId", chatRoomId)
+                .getResultList();
+    }
+
     public ChatRoom getChatRoomById(Long chatRoomId) {
         return em.find(ChatRoom.class, chatRoomId);
     }
@@ -46,131 +202,312 @@ public class ChatService {
                 .getSingleResult();
     }
 
-    public List<ChatRoom> getUserChatRooms(User user) {
-        System.out.println("=== ChatService.getUserChatRooms called ===");
-        System.out.println("User: " + user.getEmail() + ", role: " + user.getRole() + ", ID: " + user.getId());
-        
+    /**
+     * Room list entries for a user in one round trip: participants, the user's
+     * unread counter and the latest message preview are all joined in.
+     * Membership decides which rooms are listed, so one-to-one and group
+     * rooms come from the same query whatever the user's role.
+     */
+    public List<ChatRoomDTO> getUserChatRoomSummaries(Long userId) {
+        return em.createQuery(
+                ROOM_SUMMARY_SELECT +
+                "ORDER BY COALESCE(cr.lastMessageAt, cr.createdAt) DESC",
+                Object[].class)
+                .setParameter("userId", userId)
+                .getResultStream()
+                .map(ChatRoomDTO::fromRow)
+                .toList();
+    }
+
+    public ChatRoomDTO getChatRoomSummary(Long chatRoomId, Long userId) {
+        return em.createQuery(ROOM_SUMMARY_SELECT + "WHERE cr.id = :roomId", Object[].class)
+                .setParameter("userId", userId)
+                .setParameter("roomId", chatRoomId)
+                .getResultStream()
+                .findFirst()
+                .map(ChatRoomDTO::fromRow)
+                .orElse(null);
+    }
+
+    /**
+     * Hands a message from an already validated participant (e.g. a WebSocket
+     * whose membership was checked in onOpen) to the write-behind pipeline.
+     * In strict mode the call returns only once the message's batch has
+     * committed; otherwise it returns at once with a provisional sequence id.
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public MessageReceipt sendMessage(ChatMessageDTO draft) {
+        // Whose counters the writer bumps: the recipient, or every other member of a group
+        List<Long> readers = draft.recipientId() != null
+                ? List.of(draft.recipientId())
+                : Arrays.stream(getMemberIds(draft.chatRoomId()))
+                        .filter(id -> id != draft.senderId())
+                        .boxed()
+                        .toList();
+
+        MessageReceipt receipt = messageWriter.submit(draft);
+        receipt.persisted().thenAccept(stored -> {
+            recentMessages.append(stored);
+            unreadChanges.fire(new UnreadCountChanged(readers, stored.chatRoomId(), stored.id(), 1));
+        });
+        if (!STRICT_DURABILITY) {
+            return receipt;
+        }
+
         try {
-            // Use role-based queries instead of instanceof checks
-            if (user.getRole() == Role.STUDENT) {
-                System.out.println("Querying for student chat rooms...");
-                List<ChatRoom> rooms = em.createQuery(
-                        "SELECT cr FROM ChatRoom cr WHERE cr.student.id = :userId ORDER BY COALESCE(cr.lastMessageAt, cr.createdAt) DESC",
-                        ChatRoom.class)
-                        .setParameter("userId", user.getId())
-                        .getResultList();
-                System.out.println("Found " + rooms.size() + " chat rooms for student: " + user.getEmail());
-                return rooms;
-            } else if (user.getRole() == Role.ALUMNI || user.getRole() == Role.ADMIN) {
-                System.out.println("Querying for alumni chat rooms...");
-                List<ChatRoom> rooms = em.createQuery(
-                        "SELECT cr FROM ChatRoom cr WHERE cr.alumni.id = :userId ORDER BY COALESCE(cr.lastMessageAt, cr.createdAt) DESC",
-                        ChatRoom.class)
-                        .setParameter("userId", user.getId())
-                        .getResultList();
-                System.out.println("Found " + rooms.size() + " chat rooms for alumni: " + user.getEmail());
-                for (ChatRoom room : rooms) {
-                    System.out.println("  Chat Room ID: " + room.getId() + ", Student: " + room.getStudent().getEmail() + ", Alumni: " + room.getAlumni().getEmail());
-                }
-                return rooms;
-            }
-            System.out.println("No chat rooms found for user role: " + user.getRole());
-            return List.of();
-        } catch (Exception e) {
-            System.err.println("Exception in ChatService.getUserChatRooms: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
+            ChatMessageDTO stored = receipt.persisted().get(STRICT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return new MessageReceipt(receipt.sequence(), stored, receipt.persisted());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Message could not be persisted", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for message to be persisted", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for message to be persisted", e);
         }
     }
 
-    public Message sendMessage(Long chatRoomId, User sender, String content) {
-        ChatRoom chatRoom = getChatRoomById(chatRoomId);
-        if (chatRoom == null) {
-            throw new IllegalArgumentException("Chat room not found");
+    public List<Message> getChatMessages(Long chatRoomId, int limit, int offset) {
+        // Served by idx_messages_room_created (chat_room_id, created_at, id)
+        return em.createQuery(
+                "SELECT m FROM Message m WHERE m.chatRoom.id = :roomId ORDER BY m.createdAt ASC, m.id ASC",
+                Message.class)
+                .setParameter("roomId", chatRoomId)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Keyset page of a room's history, returned oldest first. Without a cursor
+     * the newest {@code limit} messages are returned. Each page is a single
+     * range scan on (chat_room_id, created_at, id), however deep it is. The
+     * newest page of an active room is served from {@link RecentMessageCache}.
+     */
+    public ChatMessagePage getChatMessagePage(Long chatRoomId, MessageCursor cursor, int limit) {
+        if (cursor != null || limit > RecentMessageCache.MESSAGES_PER_ROOM) {
+            return queryMessagePage(chatRoomId, cursor, limit);
         }
 
-        // Validate participant
+        boolean[] hasMore = new boolean[1];
+        List<ChatMessageDTO> cached = recentMessages.getLatest(chatRoomId, limit, hasMore);
+        if (cached == null) {
+            // Load a full ring's worth so the next first-page reads of any size hit
+            recentMessages.beginLoad(chatRoomId);
+            ChatMessagePage latest = queryMessagePage(chatRoomId, null, RecentMessageCache.MESSAGES_PER_ROOM);
+            recentMessages.fill(chatRoomId, latest.messages(), !latest.hasMore());
+            cached = latest.messages().subList(Math.max(0, latest.messages().size() - limit), latest.messages().size());
+            hasMore[0] = latest.hasMore() || latest.messages().size() > limit;
+        }
 
-        if (!chatRoom.isParticipant(sender)) {
-            throw new IllegalArgumentException("User is not a participant in this chat room");
+        String next = null;
+        if (hasMore[0] && !cached.isEmpty()) {
+            ChatMessageDTO edge = cached.get(0);
+            next = new MessageCursor(MessageCursor.Direction.BEFORE, edge.sentAt(), edge.id()).encode();
         }
+        return new ChatMessagePage(cached, next, hasMore[0]);
+    }
 
-        // Determine recipient
-        User recipient = (sender.getId().equals(chatRoom.getStudent().getId())) ? 
-            chatRoom.getAlumni() : chatRoom.getStudent();
+    private ChatMessagePage queryMessagePage(Long chatRoomId, MessageCursor cursor, int limit) {
+        boolean forward = cursor != null && cursor.direction() == MessageCursor.Direction.AFTER;
 
-        Message message = new Message();
-        message.setSender(sender);
-        message.setRecipient(recipient);
-        message.setContent(content);
-        em.persist(message);
+        String keyset = "";
+        if (cursor != null) {
+            keyset = forward
+                    ? "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) "
+                    : "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) ";
+        }
+        String order = forward ? "ORDER BY m.createdAt ASC, m.id ASC" : "ORDER BY m.createdAt DESC, m.id DESC";
 
-        // Update chat room's last message time
-        chatRoom.setLastMessageAt(LocalDateTime.now());
-        em.merge(chatRoom);
+        TypedQuery<Message> query = em.createQuery(
+                "SELECT m FROM Message m JOIN FETCH m.sender LEFT JOIN FETCH m.recipient " +
+                "WHERE m.chatRoom.id = :roomId " + keyset + order,
+                Message.class)
+                .setParameter("roomId", chatRoomId)
+                .setMaxResults(limit + 1);
+        if (cursor != null) {
+            query.setParameter("createdAt", cursor.createdAt())
+                    .setParameter("id", cursor.id());
+        }
 
-        return message;
-    }
+        List<Message> rows = query.getResultList();
+        boolean hasMore = rows.size() > limit;
+        List<ChatMessageDTO> messages = new ArrayList<>(Math.min(rows.size(), limit));
+        for (int i = 0; i < rows.size() && i < limit; i++) {
+            messages.add(ChatMessageDTO.from(rows.get(i), chatRoomId));
+        }
+        if (!forward) {
+            Collections.reverse(messages);
+        }
 
-    public List<Message> getChatMessages(Long chatRoomId, int limit, int offset) {
-        ChatRoom chatRoom = getChatRoomById(chatRoomId);
-        if (chatRoom == null) {
-            return List.of();
+        String next = null;
+        if (hasMore) {
+            ChatMessageDTO edge = forward ? messages.get(messages.size() - 1) : messages.get(0);
+            next = new MessageCursor(forward ? MessageCursor.Direction.AFTER : MessageCursor.Direction.BEFORE,
+                    edge.sentAt(), edge.id()).encode();
         }
+        return new ChatMessagePage(messages, next, hasMore);
+    }
 
+    /**
+     * Resolves a message id in the given room to a keyset cursor, or null if
+     * the message does not belong to the room.
+     */
+    public MessageCursor cursorForMessage(Long chatRoomId, Long messageId, MessageCursor.Direction direction) {
         return em.createQuery(
-                "SELECT m FROM Message m WHERE (m.sender = :student AND m.recipient = :alumni) " +
-                "OR (m.sender = :alumni AND m.recipient = :student) ORDER BY m.createdAt ASC",
-                Message.class)
-                .setParameter("student", chatRoom.getStudent())
-                .setParameter("alumni", chatRoom.getAlumni())
-                .setFirstResult(offset)
-                .setMaxResults(limit)
-                .getResultList();
+                "SELECT m.createdAt FROM Message m WHERE m.id = :id AND m.chatRoom.id = :roomId",
+                LocalDateTime.class)
+                .setParameter("id", messageId)
+                .setParameter("roomId", chatRoomId)
+                .getResultStream()
+                .findFirst()
+                .map(createdAt -> new MessageCursor(direction, createdAt, messageId))
+                .orElse(null);
+    }
+
+    /**
+     * Messages of a room newer than {@code lastSeenMessageId}, oldest first,
+     * for resuming a dropped connection. Served from the recent-message ring
+     * when it reaches back far enough, otherwise by a keyset range scan.
+     * {@code hasMore} is set when more than {@code limit} messages were missed.
+     * Returns null if the message is not part of the room.
+     */
+    public ChatMessagePage getMessagesSince(Long chatRoomId, Long lastSeenMessageId, int limit) {
+        List<ChatMessageDTO> cached = recentMessages.getAfter(chatRoomId, lastSeenMessageId, limit + 1);
+        if (cached != null) {
+            boolean hasMore = cached.size() > limit;
+            return new ChatMessagePage(hasMore ? cached.subList(0, limit) : cached, null, hasMore);
+        }
+
+        MessageCursor cursor = cursorForMessage(chatRoomId, lastSeenMessageId, MessageCursor.Direction.AFTER);
+        if (cursor == null) {
+            return null;
+        }
+        return queryMessagePage(chatRoomId, cursor, limit);
     }
 
     public List<Message> getChatMessages(Long chatRoomId) {
         return getChatMessages(chatRoomId, 50, 0); // Default to last 50 messages
     }
 
+    /**
+     * Marks everything currently in the room as read by the user. The write is
+     * debounced by {@link ReadReceiptTracker}; rooms without new messages since
+     * the last mark cost nothing.
+     */
     public void markMessagesAsRead(Long chatRoomId, User user) {
-        ChatRoom chatRoom = getChatRoomById(chatRoomId);
-        if (chatRoom == null) return;
+        Long latest = getLatestMessageId(chatRoomId);
+        if (latest != null) {
+            readReceipts.markRead(chatRoomId, user.getId(), latest);
+        }
+    }
 
-        // Use ID comparison instead of object equality
-        User otherUser = (user.getId().equals(chatRoom.getStudent().getId())) ? 
-            chatRoom.getAlumni() : chatRoom.getStudent();
+    /**
+     * Marks the user's messages in the room up to {@code messageId} as read,
+     * e.g. from a read signal sent by a connected client. Watermarks only move
+     * forward, so the id is clamped to the room's latest message; otherwise a
+     * client could mark messages that do not exist yet as read.
+     */
+    public void markMessagesAsRead(Long chatRoomId, Long userId, long messageId) {
+        if (messageId <= 0) {
+            return;
+        }
+        Long latest = getLatestMessageId(chatRoomId);
+        if (latest != null) {
+            readReceipts.markRead(chatRoomId, userId, Math.min(messageId, latest));
+        }
+    }
 
-        em.createQuery(
-                "UPDATE Message m SET m.read = true " +
-                "WHERE m.sender = :sender AND m.recipient = :recipient AND m.read = false")
-                .setParameter("sender", otherUser)
-                .setParameter("recipient", user)
-                .executeUpdate();
+    private Long getLatestMessageId(Long chatRoomId) {
+        Long cached = recentMessages.getLatestId(chatRoomId);
+        if (cached != null) {
+            return cached;
+        }
+        return em.createQuery("SELECT cr.lastMessage.id FROM ChatRoom cr WHERE cr.id = :roomId", Long.class)
+                .setParameter("roomId", chatRoomId)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
     }
 
     public long getUnreadMessageCount(Long chatRoomId, User user) {
-        ChatRoom chatRoom = getChatRoomById(chatRoomId);
-        if (chatRoom == null) return 0;
-
-        // Use ID comparison instead of object equality
-        User otherUser = (user.getId().equals(chatRoom.getStudent().getId())) ? 
-            chatRoom.getAlumni() : chatRoom.getStudent();
-
+        if (readReceipts.hasPending(chatRoomId, user.getId())) {
+            return 0; // The room was just read; its counter drops on the next flush
+        }
+        // Primary key lookup on unread_counters
         return em.createQuery(
-                "SELECT COUNT(m) FROM Message m WHERE m.sender = :sender AND m.recipient = :recipient AND m.read = false",
+                "SELECT c.unreadCount FROM UnreadCounter c WHERE c.chatRoomId = :roomId AND c.userId = :userId",
                 Long.class)
-                .setParameter("sender", otherUser)
-                .setParameter("recipient", user)
-                .getSingleResult();
+                .setParameter("roomId", chatRoomId)
+                .setParameter("userId", user.getId())
+                .getResultStream()
+                .findFirst()
+                .orElse(0L);
+    }
+
+    /**
+     * Unread count of every room the user has unread messages in, from the
+     * per-room counters in one query.
+     */
+    public Map<Long, Long> getUnreadCounts(Long userId) {
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        em.createQuery(
+                "SELECT c.chatRoomId, c.unreadCount FROM UnreadCounter c WHERE c.userId = :userId AND c.unreadCount > 0",
+                Object[].class)
+                .setParameter("userId", userId)
+                .getResultList()
+                .forEach(row -> {
+                    Long roomId = (Long) row[0];
+                    // Rooms just read still have their old counter until the next flush
+                    counts.put(roomId, readReceipts.hasPending(roomId, userId) ? 0L : (Long) row[1]);
+                });
+        return counts;
+    }
+
+    /**
+     * The user's unread counts with the point each room's count is up to date
+     * with: the room's latest message and the user's read watermark, or the
+     * pending one if the room was just read. The single writer per node
+     * commits message ids in order and only moves last_message_id forward,
+     * so every message up to it has been counted.
+     */
+    public UnreadSnapshot getUnreadSnapshot(Long userId) {
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        Map<Long, Long> latestMessageIds = new HashMap<>();
+        Map<Long, Long> readUpTo = new HashMap<>();
+        em.createQuery(
+                "SELECT c.chatRoomId, c.unreadCount, lm.id, mb.lastReadMessageId FROM UnreadCounter c " +
+                "JOIN ChatRoom cr ON cr.id = c.chatRoomId LEFT JOIN cr.lastMessage lm " +
+                "LEFT JOIN ChatRoomMember mb ON mb.chatRoomId = c.chatRoomId AND mb.userId = c.userId " +
+                "WHERE c.userId = :userId",
+                Object[].class)
+                .setParameter("userId", userId)
+                .getResultList()
+                .forEach(row -> {
+                    Long roomId = (Long) row[0];
+                    long count = (Long) row[1];
+                    Long read = (Long) row[3];
+                    Long pending = readReceipts.pendingWatermark(roomId, userId);
+                    if (pending != null) {
+                        count = 0;
+                        read = read != null ? Math.max(read, pending) : pending;
+                    }
+                    if (count > 0) {
+                        counts.put(roomId, count);
+                    }
+                    if (row[2] != null) {
+                        latestMessageIds.put(roomId, (Long) row[2]);
+                    }
+                    if (read != null) {
+                        readUpTo.put(roomId, read);
+                    }
+                });
+        return new UnreadSnapshot(counts, latestMessageIds, readUpTo);
     }
 
     public long getTotalUnreadMessageCount(User user) {
-        return em.createQuery(
-                "SELECT COUNT(m) FROM Message m WHERE m.recipient = :user AND m.read = false",
-                Long.class)
-                .setParameter("user", user)
-                .getSingleResult();
+        // Same per-room counts as the room list, so rooms with a pending read mark count as zero here too
+        return getUnreadCounts(user.getId()).values().stream().mapToLong(Long::longValue).sum();
     }
 
     public ChatRoom createChatRoomFromMentorRequest(MentorRequest mentorRequest) {
@@ -0,0 +1,362 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.dto.AlumniProfileDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant word index over alumni names, companies, positions and
+ * skills, owned by {@link AlumniIndex} and keyed by its ordinals.
+ *
+ * Every distinct word gets a term id with one bit set of ordinals per field,
+ * and every padded trigram of a word lists the words containing it. A query
+ * word collects the words sharing enough of its trigrams, then keeps those
+ * within a bounded Levenshtein distance (none up to 3 letters, one up to 7,
+ * two beyond) or starting with it. Profiles are ranked by the sum, over query
+ * words, of their best match weighted by field.
+ *
+ * Words of removed or changed profiles keep their term id with cleared bits,
+ * and their bytes stay counted, until the owner replaces the index. Once a
+ * quarter of the terms (and at least {@value #MIN_DEAD_TERMS}) have no
+ * profile left, {@link #needsCompaction()} asks it to. Once the estimated
+ * footprint reaches {@code alumni.search.fuzzy.maxBytes}, new words are no
+ * longer indexed here (they stay findable through the exact dictionaries)
+ * and are counted in the metrics.
+ */
+final class FuzzyTermIndex {
+
+    private static final int NAME = 0;
+    private static final int COMPANY = 1;
+    private static final int POSITION = 2;
+    private static final int SKILL = 3;
+    private static final float[] FIELD_WEIGHTS = {3f, 2f, 1f, 2f};
+
+    private static final long MAX_BYTES = Long.getLong("alumni.search.fuzzy.maxBytes", 16L * 1024 * 1024);
+
+    // Rough costs: map entry and string per term, map entry per trigram, array slot per posting
+    private static final int TERM_OVERHEAD_BYTES = 120;
+    private static final int GRAM_OVERHEAD_BYTES = 80;
+    private static final int GRAM_POSTING_BYTES = 4;
+
+    static final int MIN_DEAD_TERMS = 256;
+
+    record Hit(int ordinal, float score) {}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<BitSet[]> postings = new ArrayList<>();
+    private final Map<Long, IntList> grams = new HashMap<>();
+    private final BitSet deadTerms = new BitSet();
+    private long estimatedBytes;
+    private long rejectedTerms;
+
+    void add(int ordinal, AlumniProfileDTO profile) {
+        lock.writeLock().lock();
+        try {
+            forEachWord(profile, (field, word) -> {
+                int term = termId(word, true);
+                if (term >= 0) {
+                    BitSet[] fields = postings.get(term);
+                    if (fields[field] == null) {
+                        fields[field] = new BitSet();
+                    }
+                    long before = fields[field].size();
+                    fields[field].set(ordinal);
+                    deadTerms.clear(term);
+                    estimatedBytes += (fields[field].size() - before) / 8;
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int ordinal, AlumniProfileDTO profile) {
+        lock.writeLock().lock();
+        try {
+            forEachWord(profile, (field, word) -> {
+                int term = termId(word, false);
+                if (term >= 0 && postings.get(term)[field] != null) {
+                    postings.get(term)[field].clear(ordinal);
+                    if (unused(postings.get(term))) {
+                        deadTerms.set(term);
+                    }
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Whether enough terms have lost all their profiles that the owner
+     * should build a fresh index to reclaim their space.
+     */
+    boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            int dead = deadTerms.cardinality();
+            return dead >= MIN_DEAD_TERMS && dead * 4L >= terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean unused(BitSet[] fields) {
+        for (BitSet field : fields) {
+            if (field != null && !field.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The best {@code limit} ordinals among {@code allowed} for the query,
+     * highest score first.
+     */
+    List<Hit> search(String query, BitSet allowed, int limit) {
+        List<String> words = words(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        float[] totals = new float[allowed.length()];
+        lock.readLock().lock();
+        try {
+            int[] shared = new int[terms.size()];
+            for (String word : words) {
+                float[] best = new float[totals.length];
+                for (Map.Entry<Integer, Float> match : matches(word, shared).entrySet()) {
+                    BitSet[] fields = postings.get(match.getKey());
+                    for (int field = 0; field < fields.length; field++) {
+                        if (fields[field] == null) {
+                            continue;
+                        }
+                        float score = FIELD_WEIGHTS[field] * match.getValue();
+                        BitSet bits = fields[field];
+                        for (int ordinal = bits.nextSetBit(0); ordinal >= 0 && ordinal < best.length;
+                             ordinal = bits.nextSetBit(ordinal + 1)) {
+                            best[ordinal] = Math.max(best[ordinal], score);
+                        }
+                    }
+                }
+                for (int ordinal = 0; ordinal < totals.length; ordinal++) {
+                    totals[ordinal] += best[ordinal];
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (int ordinal = allowed.nextSetBit(0); ordinal >= 0; ordinal = allowed.nextSetBit(ordinal + 1)) {
+            if (totals[ordinal] > 0) {
+                hits.add(new Hit(ordinal, totals[ordinal]));
+            }
+        }
+        hits.sort((a, b) -> Float.compare(b.score(), a.score()));
+        return hits.subList(0, Math.min(limit, hits.size()));
+    }
+
+    /**
+     * Term ids similar to the word, with a similarity of 1 for the word
+     * itself down towards 0 for distant ones.
+     */
+    private Map<Integer, Float> matches(String word, int[] shared) {
+        Map<Integer, Float> matches = new HashMap<>();
+        Integer exact = termIds.get(word);
+        if (exact != null) {
+            matches.put(exact, 1f);
+        }
+        int length = word.length();
+        if (length < 3) {
+            return matches;
+        }
+
+        int maxEdits = maxEdits(length);
+        int threshold = minSharedTrigrams(length, maxEdits);
+        List<Integer> touched = new ArrayList<>();
+        for (long gram : trigrams(word)) {
+            IntList list = grams.get(gram);
+            if (list == null) {
+                continue;
+            }
+            for (int i = 0; i < list.size; i++) {
+                int term = list.values[i];
+                if (shared[term]++ == 0) {
+                    touched.add(term);
+                }
+            }
+        }
+
+        for (int term : touched) {
+            int count = shared[term];
+            shared[term] = 0;
+            if (count < threshold || matches.containsKey(term)) {
+                continue;
+            }
+            String candidate = terms.get(term);
+            int distance = boundedDistance(word, candidate, maxEdits);
+            if (distance <= maxEdits) {
+                matches.put(term, 1f - (float) distance / (length + 1));
+            } else if (candidate.startsWith(word)) {
+                matches.put(term, 0.8f);
+            }
+        }
+        return matches;
+    }
+
+    static int maxEdits(int length) {
+        return length <= 3 ? 0 : length <= 7 ? 1 : 2;
+    }
+
+    /**
+     * Trigrams a word of {@code length} letters must share with a candidate
+     * for the candidate to be checked at all.
+     */
+    static int minSharedTrigrams(int length, int maxEdits) {
+        // A word has as many padded trigrams as letters; each edit breaks at most three,
+        // and a prefix match misses only the last one
+        return Math.max(1, Math.min(length - 3 * maxEdits, length - 1));
+    }
+
+    Map<String, Object> getMetrics() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("terms", terms.size());
+            metrics.put("deadTerms", deadTerms.cardinality());
+            metrics.put("trigrams", grams.size());
+            metrics.put("estimatedBytes", estimatedBytes);
+            metrics.put("maxBytes", MAX_BYTES);
+            metrics.put("rejectedTerms", rejectedTerms);
+            return metrics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int termId(String word, boolean create) {
+        Integer existing = termIds.get(word);
+        if (existing != null || !create) {
+            return existing != null ? existing : -1;
+        }
+        long[] wordGrams = trigrams(word);
+        long cost = TERM_OVERHEAD_BYTES + 2L * word.length() + (long) wordGrams.length * GRAM_POSTING_BYTES;
+        if (estimatedBytes + cost > MAX_BYTES) {
+            rejectedTerms++;
+            return -1;
+        }
+
+        int term = terms.size();
+        terms.add(word);
+        postings.add(new BitSet[4]);
+        termIds.put(word, term);
+        for (long gram : wordGrams) {
+            IntList list = grams.get(gram);
+            if (list == null) {
+                list = new IntList();
+                grams.put(gram, list);
+                cost += GRAM_OVERHEAD_BYTES;
+            }
+            list.add(term);
+        }
+        estimatedBytes += cost;
+        return term;
+    }
+
+    private interface WordConsumer {
+        void accept(int field, String word);
+    }
+
+    private static void forEachWord(AlumniProfileDTO profile, WordConsumer consumer) {
+        words(profile.fullName()).forEach(word -> consumer.accept(NAME, word));
+        words(profile.company()).forEach(word -> consumer.accept(COMPANY, word));
+        words(profile.position()).forEach(word -> consumer.accept(POSITION, word));
+        if (profile.skills() != null) {
+            for (String skill : profile.skills()) {
+                words(skill).forEach(word -> consumer.accept(SKILL, word));
+            }
+        }
+    }
+
+    static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        // Keep + and # so C++ and C# stay distinct from C
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}+#]+"))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Distinct trigrams of {@code $word$}, three chars packed into a long.
+     */
+    private static long[] trigrams(String word) {
+        String padded = "$" + word + "$";
+        long[] result = new long[Math.max(0, padded.length() - 2)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        return Arrays.stream(result).distinct().toArray();
+    }
+
+    /**
+     * Levenshtein distance, or {@code max + 1} as soon as it must exceed {@code max}.
+     */
+    static int boundedDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    /**
+     * Growable list of term ids for one trigram.
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
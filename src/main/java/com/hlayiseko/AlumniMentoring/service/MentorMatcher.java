@@ -0,0 +1,530 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.dto.AlumniProfileDTO;
+import com.hlayiseko.AlumniMentoring.dto.MentorMatchDTO;
+import com.hlayiseko.AlumniMentoring.entity.RequestStatus;
+import com.hlayiseko.AlumniMentoring.entity.Student;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranks available mentors for a student.
+ *
+ * A mentor's score adds up three parts, weighted by
+ * {@code alumni.match.weight.skill}, {@code .load} and {@code .response}:
+ * <ul>
+ *   <li>skill match: the IDF-weighted share of the student's major and
+ *       interest words found in the mentor's skills and position;</li>
+ *   <li>load: {@code 1 / (1 + accepted mentees)};</li>
+ *   <li>response: the smoothed share of requests the mentor answered,
+ *       discounted by the mentor's average response time.</li>
+ * </ul>
+ *
+ * Mentor words are kept as sorted term-id arrays (sparse vectors) and the
+ * load and response parts as one precomputed prior per mentor, rebuilt only
+ * when the {@link AlumniIndex} snapshot or the request statistics change.
+ * Scoring a student is then a sorted-array intersection per mentor, split
+ * over a fork-join pool in ranges of {@code alumni.match.leafSize} mentors,
+ * each range keeping its own bounded top-K heap before the heaps are merged.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class MentorMatcher {
+
+    private static final double SKILL_WEIGHT = Double.parseDouble(System.getProperty("alumni.match.weight.skill", "0.6"));
+    private static final double LOAD_WEIGHT = Double.parseDouble(System.getProperty("alumni.match.weight.load", "0.25"));
+    private static final double RESPONSE_WEIGHT = Double.parseDouble(System.getProperty("alumni.match.weight.response", "0.15"));
+    private static final int LEAF_SIZE = Integer.getInteger("alumni.match.leafSize", 8192);
+    private static final long STATS_REFRESH_MILLIS =
+            TimeUnit.SECONDS.toMillis(Long.getLong("alumni.match.statsRefreshSeconds", 30));
+
+    private record MentorStats(int accepted, int total, int answered, double avgResponseHours) {}
+
+    @PersistenceContext(unitName = "AlumniPU")
+    private EntityManager em;
+
+    @EJB
+    private AlumniIndex index;
+
+    private ForkJoinPool pool;
+
+    // Replaced wholesale, never mutated in place
+    private volatile Map<Long, MentorStats> stats = Map.of();
+    private volatile long statsLoadedAt;
+    private volatile boolean statsStale = true;
+    private volatile Features features;
+
+    @PostConstruct
+    void start() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdown();
+    }
+
+    public void onRequestChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) MentorRequestChanged change) {
+        statsStale = true;
+    }
+
+    /**
+     * The best {@code limit} available mentors for the student, skipping
+     * mentors the student already has a pending or accepted request with.
+     * {@code interests} adds words to the student's major.
+     */
+    public List<MentorMatchDTO> recommend(Long studentId, List<String> interests, int limit) {
+        Student student = em.find(Student.class, studentId);
+        if (student == null) {
+            throw new IllegalArgumentException("Student not found");
+        }
+        Features current = currentFeatures();
+
+        List<String> words = new ArrayList<>(tokenize(student.getMajor()));
+        for (String interest : interests) {
+            words.addAll(tokenize(interest));
+        }
+        int[] query = current.vectorOf(words);
+
+        BitSet candidates = (BitSet) current.candidates.clone();
+        List<Long> requested = em.createQuery(
+                        "SELECT r.alumni.id FROM MentorRequest r WHERE r.student.id = :studentId AND r.status <> :rejected",
+                        Long.class)
+                .setParameter("studentId", studentId)
+                .setParameter("rejected", RequestStatus.REJECTED)
+                .getResultList();
+        for (Long alumniId : requested) {
+            Integer ordinal = current.ordinals.get(alumniId);
+            if (ordinal != null) {
+                candidates.clear(ordinal);
+            }
+        }
+
+        TopK top = rank(current, query, candidates, limit, true);
+        double norm = current.norm(query);
+        List<MentorMatchDTO> matches = new ArrayList<>(top.size);
+        for (int i = 0; i < top.size; i++) {
+            int ordinal = top.ordinals[i];
+            AlumniProfileDTO profile = current.profiles[ordinal];
+            MentorStats mentor = stats.getOrDefault(profile.id(), new MentorStats(0, 0, 0, 0));
+            matches.add(new MentorMatchDTO(profile, top.scores[i],
+                    norm > 0 ? current.overlap(query, ordinal) / norm : 0,
+                    mentor.accepted(), responseRate(mentor)));
+        }
+        return matches;
+    }
+
+    /**
+     * Ranks {@code alumni} synthetic mentors (random skills over a 2000-word
+     * vocabulary, random request history) for random students, on one thread
+     * and on the fork-join pool, and reports build time and per-query latency.
+     */
+    public Map<String, Object> benchmark(int alumni, int k, int runs) {
+        SplittableRandom random = new SplittableRandom(42);
+        int vocabulary = 2000;
+
+        long buildStart = System.nanoTime();
+        int[][] terms = new int[alumni][];
+        float[] priors = new float[alumni];
+        for (int i = 0; i < alumni; i++) {
+            int[] row = new int[3 + random.nextInt(8)];
+            for (int j = 0; j < row.length; j++) {
+                // Squared uniform: a few common skills, a long tail of rare ones
+                double u = random.nextDouble();
+                row[j] = (int) (u * u * vocabulary);
+            }
+            terms[i] = Arrays.stream(row).sorted().distinct().toArray();
+            MentorStats mentor = new MentorStats(random.nextInt(6), 10, random.nextInt(11), random.nextDouble() * 96);
+            priors[i] = (float) prior(mentor);
+        }
+        BitSet candidates = new BitSet(alumni);
+        candidates.set(0, alumni);
+        Features synthetic = new Features(new AlumniProfileDTO[alumni], Map.of(), new HashMap<>(), terms,
+                idf(terms, vocabulary), priors, candidates, null, 0);
+        long buildNanos = System.nanoTime() - buildStart;
+
+        // Let the JIT compile the scoring loop before timing it
+        for (int run = 0; run < 5; run++) {
+            int[] query = random.ints(5, 0, vocabulary).sorted().distinct().toArray();
+            rank(synthetic, query, candidates, k, false);
+            rank(synthetic, query, candidates, k, true);
+        }
+
+        long[] sequential = new long[runs];
+        long[] parallel = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            int[] query = random.ints(5, 0, vocabulary).sorted().distinct().toArray();
+            long start = System.nanoTime();
+            rank(synthetic, query, candidates, k, false);
+            sequential[run] = System.nanoTime() - start;
+            start = System.nanoTime();
+            rank(synthetic, query, candidates, k, true);
+            parallel[run] = System.nanoTime() - start;
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("alumni", alumni);
+        result.put("k", k);
+        result.put("runs", runs);
+        result.put("parallelism", pool.getParallelism());
+        result.put("buildMillis", buildNanos / 1_000_000.0);
+        result.put("sequential", latency(sequential));
+        result.put("forkJoin", latency(parallel));
+        return result;
+    }
+
+    private TopK rank(Features features, int[] query, BitSet candidates, int k, boolean parallel) {
+        int size = features.terms.length;
+        TopK top = parallel && size > LEAF_SIZE
+                ? pool.invoke(new RankTask(features, query, candidates, k, 0, size))
+                : new RankTask(features, query, candidates, k, 0, size).compute();
+        top.sortDescending();
+        return top;
+    }
+
+    /**
+     * Scores one range of mentors into a bounded heap, splitting ranges larger
+     * than the leaf size in two.
+     */
+    private static final class RankTask extends RecursiveTask<TopK> {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks never leave the pool, so nothing is ever serialized
+        private final transient Features features;
+        private final int[] query;
+        private final BitSet candidates;
+        private final int k;
+        private final int from;
+        private final int to;
+
+        RankTask(Features features, int[] query, BitSet candidates, int k, int from, int to) {
+            this.features = features;
+            this.query = query;
+            this.candidates = candidates;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from > LEAF_SIZE && getPool() != null) {
+                int middle = (from + to) >>> 1;
+                RankTask left = new RankTask(features, query, candidates, k, from, middle);
+                left.fork();
+                TopK right = new RankTask(features, query, candidates, k, middle, to).compute();
+                TopK merged = left.join();
+                merged.addAll(right);
+                return merged;
+            }
+
+            TopK top = new TopK(k);
+            double norm = features.norm(query);
+            double skillScale = norm > 0 ? SKILL_WEIGHT / norm : 0;
+            for (int ordinal = candidates.nextSetBit(from); ordinal >= 0 && ordinal < to;
+                 ordinal = candidates.nextSetBit(ordinal + 1)) {
+                double score = features.priors[ordinal];
+                if (skillScale > 0) {
+                    score += skillScale * features.overlap(query, ordinal);
+                }
+                top.offer(ordinal, (float) score);
+            }
+            return top;
+        }
+    }
+
+    /**
+     * Bounded min-heap of the best {@code k} (ordinal, score) pairs, in
+     * primitive arrays.
+     */
+    private static final class TopK {
+
+        final int[] ordinals;
+        final float[] scores;
+        int size;
+
+        TopK(int k) {
+            ordinals = new int[k];
+            scores = new float[k];
+        }
+
+        void offer(int ordinal, float score) {
+            if (size < ordinals.length) {
+                ordinals[size] = ordinal;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (size > 0 && score > scores[0]) {
+                ordinals[0] = ordinal;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        void addAll(TopK other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.ordinals[i], other.scores[i]);
+            }
+        }
+
+        /**
+         * Turns the heap into a best-first array (heap sort in place).
+         */
+        void sortDescending() {
+            int n = size;
+            while (size > 1) {
+                swap(0, --size);
+                siftDown(0);
+            }
+            size = n;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= scores[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int smallest = i;
+                if (left < size && scores[left] < scores[smallest]) {
+                    smallest = left;
+                }
+                if (left + 1 < size && scores[left + 1] < scores[smallest]) {
+                    smallest = left + 1;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int ordinal = ordinals[a];
+            ordinals[a] = ordinals[b];
+            ordinals[b] = ordinal;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+
+    /**
+     * Precomputed scoring inputs for one index snapshot and one version of
+     * the request statistics. Ordinals are the index's.
+     */
+    private static final class Features {
+
+        final AlumniProfileDTO[] profiles;
+        final Map<Long, Integer> ordinals;
+        final Map<String, Integer> termIds;
+        final int[][] terms;
+        final float[] idf;
+        final float[] priors;
+        final BitSet candidates;
+        final AlumniIndex.Snapshot snapshot;
+        final long statsVersion;
+
+        Features(AlumniProfileDTO[] profiles, Map<Long, Integer> ordinals, Map<String, Integer> termIds, int[][] terms,
+                 float[] idf, float[] priors, BitSet candidates, AlumniIndex.Snapshot snapshot, long statsVersion) {
+            this.profiles = profiles;
+            this.ordinals = ordinals;
+            this.termIds = termIds;
+            this.terms = terms;
+            this.idf = idf;
+            this.priors = priors;
+            this.candidates = candidates;
+            this.snapshot = snapshot;
+            this.statsVersion = statsVersion;
+        }
+
+        /**
+         * Sorted distinct ids of the known words; unknown words cannot match anyone.
+         */
+        int[] vectorOf(List<String> words) {
+            return words.stream()
+                    .map(termIds::get)
+                    .filter(id -> id != null)
+                    .mapToInt(Integer::intValue)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+        }
+
+        double norm(int[] query) {
+            double norm = 0;
+            for (int term : query) {
+                norm += idf[term];
+            }
+            return norm;
+        }
+
+        /**
+         * IDF weight of the terms shared by the query and the mentor, by
+         * merging the two sorted arrays.
+         */
+        double overlap(int[] query, int ordinal) {
+            int[] mentor = terms[ordinal];
+            double sum = 0;
+            int i = 0;
+            int j = 0;
+            while (i < query.length && j < mentor.length) {
+                if (query[i] < mentor[j]) {
+                    i++;
+                } else if (query[i] > mentor[j]) {
+                    j++;
+                } else {
+                    sum += idf[query[i]];
+                    i++;
+                    j++;
+                }
+            }
+            return sum;
+        }
+    }
+
+    private Features currentFeatures() {
+        refreshStatsIfStale();
+        AlumniIndex.Snapshot snapshot = index.snapshot();
+        long statsVersion = statsLoadedAt;
+        Features current = features;
+        if (current != null && current.snapshot == snapshot && current.statsVersion == statsVersion) {
+            return current;
+        }
+        current = buildFeatures(snapshot, stats, statsVersion);
+        features = current;
+        return current;
+    }
+
+    private static Features buildFeatures(AlumniIndex.Snapshot snapshot, Map<Long, MentorStats> stats, long statsVersion) {
+        AlumniProfileDTO[] profiles = snapshot.profiles();
+        Map<String, Integer> termIds = new HashMap<>();
+        int[][] terms = new int[profiles.length][];
+        float[] priors = new float[profiles.length];
+        for (int ordinal = 0; ordinal < profiles.length; ordinal++) {
+            AlumniProfileDTO profile = profiles[ordinal];
+            List<String> words = new ArrayList<>();
+            if (profile.skills() != null) {
+                profile.skills().forEach(skill -> words.addAll(tokenize(skill)));
+            }
+            words.addAll(tokenize(profile.position()));
+            terms[ordinal] = words.stream()
+                    .mapToInt(word -> termIds.computeIfAbsent(word, w -> termIds.size()))
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            priors[ordinal] = (float) prior(stats.getOrDefault(profile.id(), new MentorStats(0, 0, 0, 0)));
+        }
+        return new Features(profiles, snapshot.ordinals(), termIds, terms, idf(terms, termIds.size()), priors,
+                snapshot.available(), snapshot, statsVersion);
+    }
+
+    private static float[] idf(int[][] terms, int vocabulary) {
+        int[] documentFrequency = new int[vocabulary];
+        for (int[] row : terms) {
+            for (int term : row) {
+                documentFrequency[term]++;
+            }
+        }
+        float[] idf = new float[vocabulary];
+        for (int term = 0; term < vocabulary; term++) {
+            idf[term] = (float) Math.log(1 + (double) terms.length / Math.max(1, documentFrequency[term]));
+        }
+        return idf;
+    }
+
+    private static double prior(MentorStats mentor) {
+        double load = 1.0 / (1 + mentor.accepted());
+        // A day's wait halves the response part; no history counts as 0.5
+        double speed = 1.0 / (1 + mentor.avgResponseHours() / 24);
+        return LOAD_WEIGHT * load + RESPONSE_WEIGHT * responseRate(mentor) * speed;
+    }
+
+    private static double responseRate(MentorStats mentor) {
+        return (mentor.answered() + 1.0) / (mentor.total() + 2.0);
+    }
+
+    /**
+     * Reloads accepted, answered and total requests per mentor in one query,
+     * at most every {@code alumni.match.statsRefreshSeconds} once a request changed.
+     */
+    private void refreshStatsIfStale() {
+        long now = System.currentTimeMillis();
+        if (!statsStale || now - statsLoadedAt < STATS_REFRESH_MILLIS && statsLoadedAt > 0) {
+            return;
+        }
+        statsStale = false;
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = em.createNativeQuery(
+                        "SELECT alumni_id, SUM(status = 'ACCEPTED'), COUNT(*), SUM(status <> 'PENDING'), " +
+                        "AVG(CASE WHEN status <> 'PENDING' THEN TIMESTAMPDIFF(MINUTE, created_at, updated_at) END) " +
+                        "FROM mentor_requests GROUP BY alumni_id")
+                .getResultList();
+        Map<Long, MentorStats> loaded = new HashMap<>();
+        for (Object[] row : rows) {
+            loaded.put(((Number) row[0]).longValue(), new MentorStats(
+                    ((Number) row[1]).intValue(),
+                    ((Number) row[2]).intValue(),
+                    ((Number) row[3]).intValue(),
+                    row[4] != null ? ((Number) row[4]).doubleValue() / 60 : 0));
+        }
+        stats = loaded;
+        statsLoadedAt = now;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        // Keep + and # so C++ and C# stay distinct from C
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}+#]+"))
+                .filter(word -> word.length() > 1 || word.equals("c") || word.equals("r"))
+                .toList();
+    }
+
+    private static Map<String, Object> latency(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("p50Millis", percentile(sorted, 0.50));
+        stats.put("p99Millis", percentile(sorted, 0.99));
+        stats.put("maxMillis", sorted[sorted.length - 1] / 1_000_000.0);
+        return stats;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
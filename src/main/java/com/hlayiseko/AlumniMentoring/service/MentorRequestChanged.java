@@ -0,0 +1,16 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.dto.MentorRequestDTO;
+
+/**
+ * CDI event fired when a mentor request is created or its status changes,
+ * carrying the view each side of the request is allowed to see.
+ */
+public record MentorRequestChanged(
+        Long studentId,
+        Long alumniId,
+        MentorRequestDTO studentView,
+        MentorRequestDTO alumniView,
+        boolean created
+) {
+}
@@ -1,7 +1,9 @@
 package com.hlayiseko.AlumniMentoring.service;
 
+import com.hlayiseko.AlumniMentoring.dto.MentorRequestDTO;
 import com.hlayiseko.AlumniMentoring.entity.*;
 import jakarta.ejb.Stateless;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.persistence.*;
 
@@ -19,6 +21,9 @@ public class MentorRequestService {
     @Inject
     private ChatService chatService;
 
+    @Inject
+    private Event<MentorRequestChanged> requestChanges;
+
     public MentorRequest createRequest(MentorRequest request, String studentEmail) {
         Student student = em.createQuery(
                         "SELECT s FROM Student s WHERE s.email= :email", Student.class)
@@ -28,6 +33,8 @@ public class MentorRequestService {
         request.setStudent(student);
         request.setStatus(RequestStatus.PENDING);
         em.persist(request);
+        // Assigns the IDENTITY id, which the change event carries
+        em.flush();
 
         // Send email notification to mentor
         emailService.sendMentorRequestNotification(
@@ -36,6 +43,7 @@ public class MentorRequestService {
             request.getMessage()
         );
 
+        fireChanged(request, true);
         return request;
     }
 
@@ -132,10 +140,20 @@ public class MentorRequestService {
             request.getAlumni().getFullName(),
             status.toString()
         );
-        
+
+        fireChanged(updatedRequest, false);
         return updatedRequest;
     }
 
+    private void fireChanged(MentorRequest request, boolean created) {
+        requestChanges.fire(new MentorRequestChanged(
+                request.getStudent().getId(),
+                request.getAlumni().getId(),
+                MentorRequestDTO.forStudentView(request),
+                MentorRequestDTO.forAlumniView(request),
+                created));
+    }
+
     // Temporarily commented out JMS method
     /*
     private void sendWelcomeNotification(MentorRequest request) {
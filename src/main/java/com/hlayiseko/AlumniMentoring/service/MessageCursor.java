@@ -0,0 +1,36 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position in a room's history, ordered by {@code (createdAt, id)} to
+ * match the {@code (chat_room_id, created_at, id)} index. Serialized as an
+ * opaque URL-safe token for the {@code next} field of a message page.
+ */
+public record MessageCursor(Direction direction, LocalDateTime createdAt, long id) {
+
+    public enum Direction {
+        BEFORE, AFTER
+    }
+
+    public String encode() {
+        String raw = (direction == Direction.BEFORE ? "b" : "a") + "|" + createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MessageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            Direction direction = "b".equals(parts[0]) ? Direction.BEFORE : Direction.AFTER;
+            return new MessageCursor(direction, LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.dto.ChatMessageDTO;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Acknowledgement for a message handed to the write-behind pipeline.
+ *
+ * @param sequence  provisional, process-wide monotonic sequence id assigned on submit
+ * @param message   the message as acked; its {@code id} is only set once it is durable
+ * @param persisted completes with the stored message (database id set) after its batch commits
+ */
+public record MessageReceipt(
+        long sequence,
+        ChatMessageDTO message,
+        CompletableFuture<ChatMessageDTO> persisted
+) {
+    public boolean isDurable() {
+        return message.id() != null;
+    }
+}
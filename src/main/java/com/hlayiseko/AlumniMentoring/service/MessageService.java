@@ -46,7 +46,7 @@ public class MessageService {
 
     public void markAsRead(Long messageId, String userEmail) {
         Message message = em.find(Message.class, messageId);
-        if (message != null && message.getRecipient().getEmail().equals(userEmail)) {
+        if (message != null && message.getRecipient() != null && message.getRecipient().getEmail().equals(userEmail)) {
             message.setRead(true);
             em.merge(message);
         }
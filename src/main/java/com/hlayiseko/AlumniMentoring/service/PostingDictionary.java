@@ -0,0 +1,138 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable sorted map from normalized values to the {@link BitSet} of
+ * ordinals that have them, as used by {@link AlumniIndex} snapshots.
+ *
+ * A dictionary is a base map shared between versions plus a small overlay of
+ * the keys changed since that base was built, where an empty bit set marks a
+ * removed key. Moving an ordinal between keys copies the overlay and the
+ * touched postings only; once the overlay outgrows the square root of the
+ * base (at least {@value #MIN_OVERLAY} keys) it is folded into a new base, so
+ * an update costs O(sqrt n) copying on average instead of O(n). Neither map
+ * nor any bit set is modified after construction.
+ */
+final class PostingDictionary<K extends Comparable<K>> {
+
+    private static final int MIN_OVERLAY = 64;
+
+    private final NavigableMap<K, BitSet> base;
+    private final NavigableMap<K, BitSet> overlay;
+    private final int size;
+
+    private PostingDictionary(NavigableMap<K, BitSet> base, NavigableMap<K, BitSet> overlay, int size) {
+        this.base = base;
+        this.overlay = overlay;
+        this.size = size;
+    }
+
+    /**
+     * Takes ownership of a freshly built map; the caller must not modify it
+     * or its bit sets afterwards.
+     */
+    static <K extends Comparable<K>> PostingDictionary<K> of(NavigableMap<K, BitSet> postings) {
+        return new PostingDictionary<>(postings, new TreeMap<>(), postings.size());
+    }
+
+    int size() {
+        return size;
+    }
+
+    BitSet get(K key) {
+        BitSet changed = overlay.get(key);
+        if (changed != null) {
+            return changed.isEmpty() ? null : changed;
+        }
+        return base.get(key);
+    }
+
+    /**
+     * Visits every key and its postings, in no particular order.
+     */
+    void forEach(BiConsumer<K, BitSet> action) {
+        for (Map.Entry<K, BitSet> entry : base.entrySet()) {
+            if (!overlay.containsKey(entry.getKey())) {
+                action.accept(entry.getKey(), entry.getValue());
+            }
+        }
+        overlay.forEach((key, postings) -> {
+            if (!postings.isEmpty()) {
+                action.accept(key, postings);
+            }
+        });
+    }
+
+    /**
+     * Visits the keys from {@code from} to {@code to} and their postings, in
+     * no particular order.
+     */
+    void forEachInRange(K from, boolean fromInclusive, K to, boolean toInclusive, BiConsumer<K, BitSet> action) {
+        for (Map.Entry<K, BitSet> entry : base.subMap(from, fromInclusive, to, toInclusive).entrySet()) {
+            if (!overlay.containsKey(entry.getKey())) {
+                action.accept(entry.getKey(), entry.getValue());
+            }
+        }
+        overlay.subMap(from, fromInclusive, to, toInclusive).forEach((key, postings) -> {
+            if (!postings.isEmpty()) {
+                action.accept(key, postings);
+            }
+        });
+    }
+
+    /**
+     * A dictionary with the ordinal moved from the {@code before} keys to the
+     * {@code after} keys, or this one if they are the same.
+     */
+    PostingDictionary<K> move(List<K> before, List<K> after, int ordinal) {
+        if (before.equals(after)) {
+            return this;
+        }
+        NavigableMap<K, BitSet> changed = new TreeMap<>(overlay);
+        int newSize = size;
+        for (K key : before) {
+            if (!after.contains(key)) {
+                BitSet current = get(key);
+                if (current == null) {
+                    continue;
+                }
+                BitSet postings = (BitSet) current.clone();
+                postings.clear(ordinal);
+                changed.put(key, postings);
+                if (postings.isEmpty()) {
+                    newSize--;
+                }
+            }
+        }
+        for (K key : after) {
+            if (!before.contains(key)) {
+                BitSet current = get(key);
+                BitSet postings = current != null ? (BitSet) current.clone() : new BitSet();
+                postings.set(ordinal);
+                changed.put(key, postings);
+                if (current == null) {
+                    newSize++;
+                }
+            }
+        }
+
+        if (changed.size() <= Math.max(MIN_OVERLAY, (int) Math.sqrt(base.size()))) {
+            return new PostingDictionary<>(base, changed, newSize);
+        }
+        NavigableMap<K, BitSet> merged = new TreeMap<>(base);
+        changed.forEach((key, postings) -> {
+            if (postings.isEmpty()) {
+                merged.remove(key);
+            } else {
+                merged.put(key, postings);
+            }
+        });
+        return new PostingDictionary<>(merged, new TreeMap<>(), newSize);
+    }
+}
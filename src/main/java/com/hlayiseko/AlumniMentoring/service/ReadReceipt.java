@@ -0,0 +1,10 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+/**
+ * CDI event fired once a reader's messages in a room, up to and including
+ * {@code upToMessageId}, have been durably marked as read. {@code marked} is
+ * how many messages that flipped, i.e. how far the reader's unread counter
+ * dropped.
+ */
+public record ReadReceipt(Long roomId, Long readerId, long upToMessageId, int marked) {
+}
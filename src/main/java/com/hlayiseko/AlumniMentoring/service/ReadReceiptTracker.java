@@ -0,0 +1,295 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Debounced read receipts.
+ *
+ * Marking a room as read only raises an in-memory "read up to message id"
+ * watermark for the (room, reader) pair. Every
+ * {@code alumni.chat.receipts.flushMillis} the raised watermarks are written
+ * in one JDBC transaction: a guarded UPDATE of the still-unread messages, the
+ * member's {@code last_read_message_id} in {@code chat_room_members} and a
+ * matching decrement of the unread counter. Group posts have no per-recipient
+ * read flag, so in group rooms the decrement is the number of other members'
+ * posts between the old and the new watermark. Watermarks that do not move past
+ * what was already flushed never reach the database, and a
+ * {@link ReadReceipt} event is fired for each watermark that marked something.
+ * The last flushed watermark is remembered for at most
+ * {@code alumni.chat.receipts.maxRemembered} pairs, least recently used first
+ * out; a forgotten pair only costs one no-op write the next time it is marked.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class ReadReceiptTracker {
+
+    private static final long FLUSH_MILLIS = Long.getLong("alumni.chat.receipts.flushMillis", 1000);
+    private static final int MAX_REMEMBERED = Integer.getInteger("alumni.chat.receipts.maxRemembered", 10_000);
+
+    private static final String MARK_READ =
+            "UPDATE messages SET read_status = TRUE " +
+            "WHERE chat_room_id = ? AND recipient_id = ? AND read_status = FALSE AND id <= ?";
+    private static final String ADVANCE_WATERMARK =
+            "UPDATE chat_room_members SET last_read_message_id = ? " +
+            "WHERE chat_room_id = ? AND user_id = ? AND (last_read_message_id IS NULL OR last_read_message_id < ?)";
+    private static final String COUNT_GROUP_READ =
+            "SELECT COUNT(*) FROM messages WHERE chat_room_id = ? AND id > ? AND id <= ? AND sender_id <> ?";
+    private static final String DECREMENT_UNREAD =
+            "UPDATE unread_counters SET unread_count = GREATEST(unread_count - ?, 0) " +
+            "WHERE chat_room_id = ? AND user_id = ?";
+
+    private record RoomReader(long roomId, long readerId) {}
+
+    @Resource(lookup = "jdbc/AlumniDS")
+    private DataSource dataSource;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    @Inject
+    private RecentMessageCache recentMessages;
+
+    @Inject
+    private Event<ReadReceipt> receipts;
+
+    // Raised but not yet written
+    private final Map<RoomReader, Long> pending = new ConcurrentHashMap<>();
+    // Last written watermark per pair, to drop no-op marks without a query; guarded by itself
+    // Access-ordered, so iteration starts at the least recently used pair
+    private final LinkedHashMap<RoomReader, Long> flushed = new LinkedHashMap<>(256, 0.75f, true);
+    private ScheduledFuture<?> flusher;
+
+    // Metrics
+    private final AtomicLong marksRecorded = new AtomicLong();
+    private final AtomicLong marksSkipped = new AtomicLong();
+    private final AtomicLong watermarksFlushed = new AtomicLong();
+    private final AtomicLong messagesMarked = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        flusher = scheduler.scheduleWithFixedDelay(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        flusher.cancel(false);
+        flush();
+    }
+
+    /**
+     * Records that the reader has seen the room up to {@code upToMessageId}.
+     */
+    public void markRead(Long roomId, Long readerId, long upToMessageId) {
+        RoomReader key = new RoomReader(roomId, readerId);
+        Long done;
+        synchronized (flushed) {
+            done = flushed.get(key);
+        }
+        if (done != null && done >= upToMessageId) {
+            marksSkipped.incrementAndGet();
+            return;
+        }
+        pending.merge(key, upToMessageId, Math::max);
+        marksRecorded.incrementAndGet();
+    }
+
+    /**
+     * True if the reader has a read mark in the room that is not written yet,
+     * so the stored unread counter is about to drop.
+     */
+    public boolean hasPending(Long roomId, Long readerId) {
+        return pending.containsKey(new RoomReader(roomId, readerId));
+    }
+
+    /**
+     * The watermark raised for the reader but not yet written, if any.
+     */
+    public Long pendingWatermark(Long roomId, Long readerId) {
+        return pending.get(new RoomReader(roomId, readerId));
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pending", pending.size());
+        synchronized (flushed) {
+            metrics.put("remembered", flushed.size());
+        }
+        metrics.put("marksRecorded", marksRecorded.get());
+        metrics.put("marksSkipped", marksSkipped.get());
+        metrics.put("watermarksFlushed", watermarksFlushed.get());
+        metrics.put("messagesMarked", messagesMarked.get());
+        return metrics;
+    }
+
+    /**
+     * Moves the members' stored watermarks forward and, for group rooms,
+     * replaces {@code marked[i]} with the number of posts the move covers.
+     */
+    private static void advanceWatermarks(Connection connection, List<RoomReader> keys, List<Long> watermarks,
+                                          int[] marked) throws SQLException {
+        // Current watermark and room kind of every pair, in one query
+        StringBuilder sql = new StringBuilder(
+                "SELECT m.chat_room_id, m.user_id, m.last_read_message_id, r.is_group " +
+                "FROM chat_room_members m JOIN chat_rooms r ON r.id = m.chat_room_id " +
+                "WHERE (m.chat_room_id, m.user_id) IN (");
+        for (int i = 0; i < keys.size(); i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+        sql.append(") FOR UPDATE");
+
+        Map<RoomReader, Long> previous = new HashMap<>();
+        Set<RoomReader> groups = new HashSet<>();
+        try (PreparedStatement select = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < keys.size(); i++) {
+                select.setLong(2 * i + 1, keys.get(i).roomId());
+                select.setLong(2 * i + 2, keys.get(i).readerId());
+            }
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    RoomReader key = new RoomReader(rows.getLong(1), rows.getLong(2));
+                    long watermark = rows.getLong(3);
+                    previous.put(key, rows.wasNull() ? 0L : watermark);
+                    if (rows.getBoolean(4)) {
+                        groups.add(key);
+                    }
+                }
+            }
+        }
+
+        try (PreparedStatement count = connection.prepareStatement(COUNT_GROUP_READ)) {
+            for (int i = 0; i < keys.size(); i++) {
+                RoomReader key = keys.get(i);
+                if (!groups.contains(key) || previous.get(key) >= watermarks.get(i)) {
+                    continue;
+                }
+                count.setLong(1, key.roomId());
+                count.setLong(2, previous.get(key));
+                count.setLong(3, watermarks.get(i));
+                count.setLong(4, key.readerId());
+                try (ResultSet rows = count.executeQuery()) {
+                    marked[i] = rows.next() ? rows.getInt(1) : 0;
+                }
+            }
+        }
+
+        try (PreparedStatement advance = connection.prepareStatement(ADVANCE_WATERMARK)) {
+            for (int i = 0; i < keys.size(); i++) {
+                advance.setLong(1, watermarks.get(i));
+                advance.setLong(2, keys.get(i).roomId());
+                advance.setLong(3, keys.get(i).readerId());
+                advance.setLong(4, watermarks.get(i));
+                advance.addBatch();
+            }
+            advance.executeBatch();
+        }
+    }
+
+    synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<RoomReader> keys = new ArrayList<>(pending.size());
+        List<Long> watermarks = new ArrayList<>(pending.size());
+        for (RoomReader key : pending.keySet()) {
+            Long watermark = pending.remove(key);
+            if (watermark != null) {
+                keys.add(key);
+                watermarks.add(watermark);
+            }
+        }
+
+        int[] marked;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement update = connection.prepareStatement(MARK_READ)) {
+                    for (int i = 0; i < keys.size(); i++) {
+                        update.setLong(1, keys.get(i).roomId());
+                        update.setLong(2, keys.get(i).readerId());
+                        update.setLong(3, watermarks.get(i));
+                        update.addBatch();
+                    }
+                    marked = update.executeBatch();
+                }
+
+                advanceWatermarks(connection, keys, watermarks, marked);
+
+                // Counters move by exactly what was marked, in the same transaction
+                try (PreparedStatement decrement = connection.prepareStatement(DECREMENT_UNREAD)) {
+                    boolean any = false;
+                    for (int i = 0; i < keys.size(); i++) {
+                        if (marked[i] > 0) {
+                            decrement.setLong(1, marked[i]);
+                            decrement.setLong(2, keys.get(i).roomId());
+                            decrement.setLong(3, keys.get(i).readerId());
+                            decrement.addBatch();
+                            any = true;
+                        }
+                    }
+                    if (any) {
+                        decrement.executeBatch();
+                    }
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error flushing " + keys.size() + " read watermarks: " + e.getMessage());
+            // Put them back for the next round
+            for (int i = 0; i < keys.size(); i++) {
+                pending.merge(keys.get(i), watermarks.get(i), Math::max);
+            }
+            return;
+        }
+
+        watermarksFlushed.addAndGet(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            RoomReader key = keys.get(i);
+            long watermark = watermarks.get(i);
+            synchronized (flushed) {
+                flushed.merge(key, watermark, Math::max);
+                Iterator<RoomReader> eldest = flushed.keySet().iterator();
+                while (flushed.size() > MAX_REMEMBERED) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+            if (marked[i] > 0) {
+                messagesMarked.addAndGet(marked[i]);
+                recentMessages.markRead(key.roomId(), key.readerId(), watermark);
+                receipts.fire(new ReadReceipt(key.roomId(), key.readerId(), watermark, marked[i]));
+            }
+        }
+    }
+}
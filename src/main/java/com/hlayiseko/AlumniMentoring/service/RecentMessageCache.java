@@ -0,0 +1,281 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.dto.ChatMessageDTO;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-memory cache of the most recent messages of active rooms.
+ *
+ * Each resident room keeps a ring buffer of its last
+ * {@code alumni.chat.cache.messagesPerRoom} messages. Rooms are evicted in LRU
+ * order when the estimated footprint exceeds {@code alumni.chat.cache.maxBytes},
+ * and rooms idle for longer than {@code alumni.chat.cache.idleMinutes} are
+ * dropped on the next write.
+ */
+@ApplicationScoped
+public class RecentMessageCache {
+
+    public static final int MESSAGES_PER_ROOM = Integer.getInteger("alumni.chat.cache.messagesPerRoom", 50);
+    private static final long MAX_BYTES = Long.getLong("alumni.chat.cache.maxBytes", 32L * 1024 * 1024);
+    private static final long IDLE_MILLIS = Long.getLong("alumni.chat.cache.idleMinutes", 30) * 60_000;
+
+    // Rough per-message overhead: DTO, boxed ids, timestamp and array slot
+    private static final int MESSAGE_OVERHEAD_BYTES = 200;
+
+    // Guarded by this; access-ordered so iteration starts at the least recently used room
+    private final LinkedHashMap<Long, RoomBuffer> rooms = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Returns the newest {@code limit} messages of a room (oldest first), or
+     * null on a miss. {@code hasMore} is written to {@code hasMoreOut[0]}.
+     */
+    public synchronized List<ChatMessageDTO> getLatest(Long roomId, int limit, boolean[] hasMoreOut) {
+        RoomBuffer buffer = rooms.get(roomId);
+        if (buffer == null || buffer.loading || limit > MESSAGES_PER_ROOM
+                || (limit > buffer.size && !buffer.complete)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        buffer.lastAccess = System.currentTimeMillis();
+        hasMoreOut[0] = buffer.size > limit || !buffer.complete;
+        return buffer.latest(limit);
+    }
+
+    /**
+     * Returns up to {@code limit} messages newer than {@code afterId} (oldest
+     * first), or null if the ring does not reach back to {@code afterId}.
+     */
+    public synchronized List<ChatMessageDTO> getAfter(Long roomId, long afterId, int limit) {
+        RoomBuffer buffer = rooms.get(roomId);
+        if (buffer == null || buffer.loading
+                || (!buffer.complete && (buffer.size == 0 || buffer.get(0).id() > afterId))) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        buffer.lastAccess = System.currentTimeMillis();
+        return buffer.after(afterId, limit);
+    }
+
+    /**
+     * Registers a room as loading so that messages persisted while the
+     * database read is in flight are not lost. Must be followed by {@link #fill}.
+     */
+    public synchronized void beginLoad(Long roomId) {
+        if (!rooms.containsKey(roomId)) {
+            rooms.put(roomId, new RoomBuffer());
+        }
+    }
+
+    /**
+     * Completes a load started with {@link #beginLoad}.
+     *
+     * @param latest   the newest messages of the room, oldest first
+     * @param complete true when the room has no messages older than {@code latest}
+     */
+    public synchronized void fill(Long roomId, List<ChatMessageDTO> latest, boolean complete) {
+        RoomBuffer buffer = rooms.get(roomId);
+        if (buffer == null || !buffer.loading) {
+            return; // Evicted while loading, or filled by a concurrent reader
+        }
+        List<ChatMessageDTO> appendedWhileLoading = buffer.latest(buffer.size);
+        totalBytes -= buffer.bytes;
+        buffer.reset();
+        for (ChatMessageDTO message : latest) {
+            buffer.add(message);
+        }
+        for (ChatMessageDTO message : appendedWhileLoading) {
+            buffer.add(message);
+        }
+        buffer.complete = complete && buffer.size < MESSAGES_PER_ROOM;
+        buffer.loading = false;
+        buffer.lastAccess = System.currentTimeMillis();
+        totalBytes += buffer.bytes;
+        evict();
+    }
+
+    /**
+     * Adds a persisted message to its room if the room is resident.
+     */
+    public synchronized void append(ChatMessageDTO message) {
+        RoomBuffer buffer = rooms.get(message.chatRoomId());
+        if (buffer == null) {
+            return;
+        }
+        long before = buffer.bytes;
+        buffer.add(message);
+        totalBytes += buffer.bytes - before;
+        evict();
+    }
+
+    /**
+     * Reflects a mark-read on the cached copies of a room's messages up to
+     * and including {@code upToMessageId}.
+     */
+    public synchronized void markRead(Long roomId, Long recipientId, long upToMessageId) {
+        RoomBuffer buffer = rooms.get(roomId);
+        if (buffer != null) {
+            buffer.markRead(recipientId, upToMessageId);
+        }
+    }
+
+    /**
+     * Id of the newest cached message of a resident room, or null.
+     */
+    public synchronized Long getLatestId(Long roomId) {
+        RoomBuffer buffer = rooms.get(roomId);
+        if (buffer == null || buffer.loading || buffer.size == 0) {
+            return null;
+        }
+        return buffer.get(buffer.size - 1).id();
+    }
+
+    /**
+     * Drops a room, e.g. after another node wrote to it.
+     */
+    public synchronized void invalidate(Long roomId) {
+        RoomBuffer buffer = rooms.remove(roomId);
+        if (buffer != null) {
+            totalBytes -= buffer.bytes;
+        }
+    }
+
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("rooms", rooms.size());
+        metrics.put("estimatedBytes", totalBytes);
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("evictions", evictions.sum());
+        return metrics;
+    }
+
+    private void evict() {
+        long idleBefore = System.currentTimeMillis() - IDLE_MILLIS;
+        Iterator<RoomBuffer> it = rooms.values().iterator();
+        while (it.hasNext()) {
+            RoomBuffer buffer = it.next();
+            boolean overBudget = totalBytes > MAX_BYTES;
+            boolean idle = !buffer.loading && buffer.lastAccess < idleBefore;
+            if (!overBudget && !idle) {
+                break; // LRU order: everything after this was used more recently
+            }
+            totalBytes -= buffer.bytes;
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static long estimateBytes(ChatMessageDTO message) {
+        return MESSAGE_OVERHEAD_BYTES
+                + 2L * (length(message.content()) + length(message.senderName()) + length(message.recipientName()));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * Fixed-size ring of one room's newest messages, kept in id order.
+     */
+    private static final class RoomBuffer {
+        final ChatMessageDTO[] ring = new ChatMessageDTO[MESSAGES_PER_ROOM];
+        int head;   // index of the oldest message
+        int size;
+        long bytes;
+        long lastAccess = System.currentTimeMillis();
+        boolean loading = true;
+        boolean complete;
+
+        ChatMessageDTO get(int i) {
+            return ring[(head + i) % ring.length];
+        }
+
+        void set(int i, ChatMessageDTO message) {
+            ring[(head + i) % ring.length] = message;
+        }
+
+        void add(ChatMessageDTO message) {
+            if (message.id() == null) {
+                return;
+            }
+            // Writers may complete slightly out of order; keep the ring sorted and free of duplicates
+            int pos = size;
+            while (pos > 0 && get(pos - 1).id() >= message.id()) {
+                if (get(pos - 1).id().equals(message.id())) {
+                    return;
+                }
+                pos--;
+            }
+            if (size == ring.length) {
+                if (pos == 0) {
+                    return; // Older than everything we keep
+                }
+                bytes -= estimateBytes(get(0));
+                ring[head] = null;
+                head = (head + 1) % ring.length;
+                size--;
+                pos--;
+                complete = false;
+            }
+            for (int i = size; i > pos; i--) {
+                set(i, get(i - 1));
+            }
+            set(pos, message);
+            size++;
+            bytes += estimateBytes(message);
+        }
+
+        List<ChatMessageDTO> latest(int limit) {
+            int count = Math.min(limit, size);
+            List<ChatMessageDTO> result = new ArrayList<>(count);
+            for (int i = size - count; i < size; i++) {
+                result.add(get(i));
+            }
+            return result;
+        }
+
+        List<ChatMessageDTO> after(long afterId, int limit) {
+            int start = size;
+            while (start > 0 && get(start - 1).id() > afterId) {
+                start--;
+            }
+            int end = Math.min(size, start + limit);
+            List<ChatMessageDTO> result = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                result.add(get(i));
+            }
+            return result;
+        }
+
+        void markRead(Long recipientId, long upToMessageId) {
+            for (int i = 0; i < size && get(i).id() <= upToMessageId; i++) {
+                ChatMessageDTO message = get(i);
+                if (!message.read() && recipientId.equals(message.recipientId())) {
+                    set(i, message.asRead());
+                }
+            }
+        }
+
+        void reset() {
+            Arrays.fill(ring, null);
+            head = 0;
+            size = 0;
+            bytes = 0;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import java.util.List;
+
+/**
+ * CDI event fired when the unread counters of {@code userIds} in a room all
+ * move by {@code delta}, e.g. +1 for every other member once post
+ * {@code messageId} is durable. One event covers the whole room, however many
+ * members it has.
+ */
+public record UnreadCountChanged(List<Long> userIds, Long roomId, long messageId, long delta) {
+}
@@ -0,0 +1,53 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Rebuilds {@code unread_counters} from the {@code messages} table, correcting
+ * any drift (e.g. messages marked read through another path). Direct rooms
+ * count unread messages per recipient; group rooms count other members' posts
+ * past each member's read watermark. Runs nightly and can be triggered on
+ * demand.
+ */
+@Singleton
+public class UnreadCounterReconciler {
+
+    @PersistenceContext(unitName = "AlumniPU")
+    private EntityManager em;
+
+    @Schedule(hour = "3", minute = "30", persistent = false)
+    public void reconcileNightly() {
+        reconcile();
+    }
+
+    public int reconcile() {
+        long start = System.currentTimeMillis();
+
+        // All statements run in one transaction, so readers never see the zeroed state
+        em.createNativeQuery("UPDATE unread_counters SET unread_count = 0").executeUpdate();
+        int rows = em.createNativeQuery(
+                "INSERT INTO unread_counters (chat_room_id, user_id, unread_count) " +
+                "SELECT chat_room_id, recipient_id, COUNT(*) FROM messages " +
+                "WHERE read_status = FALSE AND chat_room_id IS NOT NULL AND recipient_id IS NOT NULL " +
+                "GROUP BY chat_room_id, recipient_id " +
+                "ON DUPLICATE KEY UPDATE unread_count = VALUES(unread_count)")
+                .executeUpdate();
+        // Group posts have no recipient; each member has read up to their watermark
+        rows += em.createNativeQuery(
+                "INSERT INTO unread_counters (chat_room_id, user_id, unread_count) " +
+                "SELECT mb.chat_room_id, mb.user_id, COUNT(*) FROM chat_room_members mb " +
+                "JOIN chat_rooms r ON r.id = mb.chat_room_id AND r.is_group = TRUE " +
+                "JOIN messages m ON m.chat_room_id = mb.chat_room_id " +
+                "AND m.id > COALESCE(mb.last_read_message_id, 0) AND m.sender_id <> mb.user_id " +
+                "GROUP BY mb.chat_room_id, mb.user_id " +
+                "ON DUPLICATE KEY UPDATE unread_count = VALUES(unread_count)")
+                .executeUpdate();
+
+        System.out.println("Reconciled unread counters (" + rows + " rows) in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return rows;
+    }
+}
@@ -0,0 +1,33 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import java.util.Map;
+
+/**
+ * A user's non-zero unread counts by room, with how far each room's count is
+ * up to date: it includes the +1 of every message up to
+ * {@code latestMessageIds} and the read marks up to {@code readUpTo}. Both
+ * come from the same query as the counts, so a change event can be checked
+ * against them to avoid applying it twice.
+ */
+public record UnreadSnapshot(Map<Long, Long> counts, Map<Long, Long> latestMessageIds, Map<Long, Long> readUpTo) {
+
+    public long total() {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Whether the increment for the message is already in the counts.
+     */
+    public boolean includesMessage(Long roomId, long messageId) {
+        Long latest = latestMessageIds.get(roomId);
+        return latest != null && messageId <= latest;
+    }
+
+    /**
+     * Whether the read mark up to the message is already in the counts.
+     */
+    public boolean includesRead(Long roomId, long upToMessageId) {
+        Long read = readUpTo.get(roomId);
+        return read != null && upToMessageId <= read;
+    }
+}
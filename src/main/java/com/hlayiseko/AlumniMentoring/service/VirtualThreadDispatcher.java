@@ -0,0 +1,219 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ContextService;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking request work (JDBC, JMS) off the container's fixed pools.
+ *
+ * By default each task gets its own virtual thread. Tasks are wrapped by the
+ * container {@link ContextService}, so they see the application's naming
+ * context and class loader just like managed threads do. Setting
+ * {@code alumni.dispatch.virtual=false} routes the same work to the default
+ * {@link ManagedExecutorService} (platform threads) instead.
+ *
+ * The benchmark never touches either of those: it runs on a throwaway
+ * virtual-thread executor and a throwaway fixed pool of
+ * {@code alumni.dispatch.benchmark.platformThreads} managed threads, one
+ * benchmark at a time.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class VirtualThreadDispatcher {
+
+    private static final boolean VIRTUAL = Boolean.parseBoolean(System.getProperty("alumni.dispatch.virtual", "true"));
+    private static final int BENCHMARK_PLATFORM_THREADS = Integer.getInteger("alumni.dispatch.benchmark.platformThreads", 32);
+    private static final long BENCHMARK_TIMEOUT_SECONDS = 60;
+
+    public static final int MAX_BENCHMARK_TASKS = 10_000;
+    public static final long MAX_BENCHMARK_BLOCK_MILLIS = 1_000;
+    // Total sleeping time of one benchmark, so the platform run stays within seconds
+    public static final long MAX_BENCHMARK_WORK_MILLIS = 500_000;
+
+    @Resource
+    private ContextService contextService;
+
+    @Resource
+    private ManagedExecutorService platformExecutor;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    private ExecutorService virtualExecutor;
+    private final AtomicBoolean benchmarkRunning = new AtomicBoolean();
+
+    // Metrics
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @PostConstruct
+    void start() {
+        virtualExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("alumni-vt-", 0).factory());
+        System.out.println("Request dispatcher started (" + (VIRTUAL ? "virtual" : "platform") + " threads)");
+    }
+
+    @PreDestroy
+    void stop() {
+        virtualExecutor.shutdown();
+        try {
+            virtualExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Executor view of the dispatcher, e.g. for per-session serial queues.
+     */
+    public Executor executor() {
+        return this::execute;
+    }
+
+    public void execute(Runnable task) {
+        submitted.incrementAndGet();
+        Runnable tracked = () -> {
+            int now = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(now, Math::max);
+            try {
+                task.run();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+        if (VIRTUAL) {
+            virtualExecutor.execute(contextService.contextualRunnable(tracked));
+        } else {
+            platformExecutor.execute(tracked);
+        }
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor());
+    }
+
+    /**
+     * Counts a dispatched task that failed. Failures surface in the caller's
+     * future, not here, so callers report them.
+     */
+    public void recordFailure() {
+        failed.incrementAndGet();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", VIRTUAL ? "virtual" : "platform");
+        metrics.put("submitted", submitted.get());
+        metrics.put("failed", failed.get());
+        metrics.put("inFlight", inFlight.get());
+        metrics.put("maxInFlight", maxInFlight.get());
+        return metrics;
+    }
+
+    /**
+     * Runs the same blocking workload on virtual threads and on a fixed pool
+     * of managed platform threads and reports throughput, peak concurrency
+     * and latency percentiles (measured from submission, so queueing time
+     * counts).
+     *
+     * @throws IllegalStateException if another benchmark is running
+     */
+    public Map<String, Object> benchmark(int tasks, long blockMillis) {
+        if (!benchmarkRunning.compareAndSet(false, true)) {
+            throw new IllegalStateException("A dispatch benchmark is already running");
+        }
+        ExecutorService virtual = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("alumni-vt-bench-", 0).factory());
+        ExecutorService platform = Executors.newFixedThreadPool(BENCHMARK_PLATFORM_THREADS, threadFactory);
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("tasks", tasks);
+            result.put("blockMillis", blockMillis);
+            result.put("platformThreads", BENCHMARK_PLATFORM_THREADS);
+            result.put("virtual", runBenchmark(task -> virtual.execute(contextService.contextualRunnable(task)), tasks, blockMillis));
+            result.put("platform", runBenchmark(platform::execute, tasks, blockMillis));
+            return result;
+        } finally {
+            // Interrupts whatever is still sleeping after a timeout
+            virtual.shutdownNow();
+            platform.shutdownNow();
+            benchmarkRunning.set(false);
+        }
+    }
+
+    private static Map<String, Object> runBenchmark(Executor executor, int tasks, long blockMillis) {
+        long[] latencies = new long[tasks];
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(tasks);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            long submittedAt = System.nanoTime();
+            executor.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    // Stands in for a blocking JDBC or JMS call
+                    Thread.sleep(blockMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    latencies[index] = System.nanoTime() - submittedAt;
+                    done.countDown();
+                }
+            });
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        try {
+            if (!done.await(BENCHMARK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                stats.put("error", "Timed out");
+                return stats;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.put("error", "Interrupted");
+            return stats;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        stats.put("elapsedMillis", elapsed / 1_000_000.0);
+        stats.put("throughputPerSecond", tasks / (elapsed / 1_000_000_000.0));
+        stats.put("peakConcurrency", peak.get());
+        stats.put("p50Millis", percentile(latencies, 0.50));
+        stats.put("p99Millis", percentile(latencies, 0.99));
+        stats.put("maxMillis", latencies[latencies.length - 1] / 1_000_000.0);
+        return stats;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
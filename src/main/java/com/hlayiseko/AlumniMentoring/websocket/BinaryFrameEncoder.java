@@ -0,0 +1,102 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import jakarta.json.JsonArray;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of a chat frame for clients that negotiate the
+ * {@code chat.binary} subprotocol.
+ *
+ * Layout: one version byte followed by a tagged value. Integers are
+ * zig-zag varints, strings and containers are varint length-prefixed.
+ * <pre>
+ *   0 null | 1 false | 2 true | 3 integer | 4 double (8 bytes, big endian)
+ *   5 string | 6 object (count, then key/value pairs) | 7 array (count, then values)
+ * </pre>
+ */
+final class BinaryFrameEncoder {
+
+    static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INTEGER = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte STRING = 5;
+    private static final byte OBJECT = 6;
+    private static final byte ARRAY = 7;
+
+    private BinaryFrameEncoder() {}
+
+    static ByteBuffer encode(JsonObject json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        out.write(VERSION);
+        writeValue(out, json);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, JsonValue value) {
+        switch (value.getValueType()) {
+            case NULL -> out.write(NULL);
+            case FALSE -> out.write(FALSE);
+            case TRUE -> out.write(TRUE);
+            case NUMBER -> {
+                JsonNumber number = (JsonNumber) value;
+                if (number.isIntegral()) {
+                    out.write(INTEGER);
+                    writeVarLong(out, (number.longValue() << 1) ^ (number.longValue() >> 63));
+                } else {
+                    out.write(DOUBLE);
+                    long bits = Double.doubleToLongBits(number.doubleValue());
+                    for (int shift = 56; shift >= 0; shift -= 8) {
+                        out.write((int) (bits >>> shift));
+                    }
+                }
+            }
+            case STRING -> {
+                out.write(STRING);
+                writeString(out, ((JsonString) value).getString());
+            }
+            case OBJECT -> {
+                JsonObject object = (JsonObject) value;
+                out.write(OBJECT);
+                writeVarLong(out, object.size());
+                for (Map.Entry<String, JsonValue> entry : object.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeValue(out, entry.getValue());
+                }
+            }
+            case ARRAY -> {
+                JsonArray array = (JsonArray) value;
+                out.write(ARRAY);
+                writeVarLong(out, array.size());
+                for (JsonValue element : array) {
+                    writeValue(out, element);
+                }
+            }
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,238 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import com.hlayiseko.AlumniMentoring.dto.ChatMessageDTO;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable outgoing chat event.
+ *
+ * Each event is encoded once and the same frame instance is handed to every
+ * recipient session. The JSON text is built eagerly; the compact binary form
+ * is only produced the first time a binary client asks for it.
+ */
+public final class ChatFrame {
+
+    private final JsonObject json;
+    private final String text;
+    private volatile ByteBuffer binary;
+
+    private ChatFrame(JsonObject json) {
+        this.json = json;
+        this.text = json.toString();
+    }
+
+    public static ChatFrame of(JsonObject json) {
+        return new ChatFrame(json);
+    }
+
+    /**
+     * Message frame. {@code id} is the database id once the message is durable;
+     * {@code seq} is the provisional sequence id assigned when it was accepted.
+     */
+    public static ChatFrame message(ChatMessageDTO message, long sequence) {
+        return new ChatFrame(messageJson(message)
+                .add("seq", sequence)
+                .build());
+    }
+
+    /**
+     * Messages missed while a client was disconnected, oldest first, sent as
+     * one frame on reconnect.
+     */
+    public static ChatFrame replay(Long roomId, List<ChatMessageDTO> messages) {
+        JsonArrayBuilder array = Json.createArrayBuilder();
+        for (ChatMessageDTO message : messages) {
+            array.add(messageJson(message));
+        }
+        return new ChatFrame(Json.createObjectBuilder()
+                .add("type", "replay")
+                .add("roomId", roomId)
+                .add("messages", array)
+                .build());
+    }
+
+    /**
+     * Everything that arrived for the user while no socket of theirs received
+     * it, across all rooms, with the current unread count of each room.
+     * {@code truncated} means older messages were dropped and rooms should be
+     * reloaded over REST.
+     */
+    public static ChatFrame mailbox(List<ChatMessageDTO> messages, Map<Long, Long> unreadCounts, boolean truncated) {
+        JsonArrayBuilder array = Json.createArrayBuilder();
+        for (ChatMessageDTO message : messages) {
+            array.add(messageJson(message));
+        }
+        JsonArrayBuilder unread = Json.createArrayBuilder();
+        unreadCounts.forEach((roomId, count) -> unread.add(Json.createObjectBuilder()
+                .add("roomId", roomId)
+                .add("unreadCount", count)));
+        return new ChatFrame(Json.createObjectBuilder()
+                .add("type", "mailbox")
+                .add("messages", array)
+                .add("unread", unread)
+                .add("truncated", truncated)
+                .build());
+    }
+
+    /**
+     * Tells a reconnecting client that the gap cannot be replayed and it should
+     * reload the history over REST.
+     */
+    public static ChatFrame resync(Long roomId, String reason) {
+        return new ChatFrame(Json.createObjectBuilder()
+                .add("type", "resync")
+                .add("roomId", roomId)
+                .add("reason", reason)
+                .build());
+    }
+
+    public static ChatFrame system(Long roomId, String content) {
+        return new ChatFrame(Json.createObjectBuilder()
+                .add("type", "system")
+                .add("roomId", roomId)
+                .add("content", content)
+                .add("sentAt", Clock.now())
+                .build());
+    }
+
+    /**
+     * Presence of room participants: {@code userId}, {@code name},
+     * {@code status} (ONLINE, AWAY, OFFLINE) and {@code typing} per entry.
+     */
+    public static ChatFrame presence(Long roomId, JsonArrayBuilder users) {
+        return new ChatFrame(Json.createObjectBuilder()
+                .add("type", "presence")
+                .add("roomId", roomId)
+                .add("users", users)
+                .build());
+    }
+
+    /**
+     * Tells the other participants that {@code readerId} has read the room up
+     * to {@code upToMessageId}.
+     */
+    public static ChatFrame read(Long roomId, Long readerId, long upToMessageId) {
+        return new ChatFrame(Json.createObjectBuilder()
+                .add("type", "read")
+                .add("roomId", roomId)
+                .add("readerId", readerId)
+                .add("upToMessageId", upToMessageId)
+                .build());
+    }
+
+    /**
+     * Acknowledges a subscribe/unsubscribe on a multiplexed connection.
+     */
+    public static ChatFrame subscription(String type, Long roomId) {
+        return new ChatFrame(Json.createObjectBuilder()
+                .add("type", type)
+                .add("roomId", roomId)
+                .build());
+    }
+
+    /**
+     * Tells a sender its message was not accepted: {@code rate-limited} (retry
+     * after {@code retryAfterMillis}) or {@code too-large}.
+     */
+    public static ChatFrame throttle(Long roomId, String reason, long retryAfterMillis) {
+        return new ChatFrame(Json.createObjectBuilder()
+                .add("type", "throttle")
+                .add("roomId", roomId)
+                .add("reason", reason)
+                .add("retryAfterMillis", retryAfterMillis)
+                .build());
+    }
+
+    /**
+     * Rejects a client request; {@code roomId} may be null.
+     */
+    public static ChatFrame error(Long roomId, String message) {
+        JsonObjectBuilder builder = Json.createObjectBuilder()
+                .add("type", "error");
+        if (roomId != null) {
+            builder.add("roomId", roomId);
+        }
+        return new ChatFrame(builder
+                .add("error", message)
+                .build());
+    }
+
+    private static JsonObjectBuilder messageJson(ChatMessageDTO message) {
+        JsonObjectBuilder builder = Json.createObjectBuilder()
+                .add("type", "message")
+                .add("roomId", message.chatRoomId());
+        if (message.id() != null) {
+            builder.add("id", message.id());
+        } else {
+            builder.addNull("id");
+        }
+        return builder
+                .add("content", message.content())
+                .add("senderId", message.senderId())
+                .add("senderName", message.senderName())
+                .add("senderRole", message.senderRole())
+                .add("messageType", "TEXT")
+                .add("sentAt", message.sentAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .add("isRead", message.read());
+    }
+
+    public JsonObject json() {
+        return json;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    /**
+     * Returns a read-only view of the binary encoding. The underlying bytes are
+     * shared by all recipients; only the position/limit are per call.
+     */
+    public ByteBuffer binary() {
+        ByteBuffer encoded = binary;
+        if (encoded == null) {
+            encoded = BinaryFrameEncoder.encode(json).asReadOnlyBuffer();
+            binary = encoded;
+        }
+        return encoded.duplicate();
+    }
+
+    /**
+     * Second-resolution timestamp shared by all system frames created within
+     * the same second, so join/leave bursts do not reformat the clock each time.
+     */
+    private static final class Clock {
+        private static volatile Clock current = new Clock(-1, "");
+
+        private final long epochSecond;
+        private final String formatted;
+
+        private Clock(long epochSecond, String formatted) {
+            this.epochSecond = epochSecond;
+            this.formatted = formatted;
+        }
+
+        static String now() {
+            long second = System.currentTimeMillis() / 1000;
+            Clock clock = current;
+            if (clock.epochSecond != second) {
+                clock = new Clock(second, LocalDateTime
+                        .ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault())
+                        .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                current = clock;
+            }
+            return clock.formatted;
+        }
+    }
+}
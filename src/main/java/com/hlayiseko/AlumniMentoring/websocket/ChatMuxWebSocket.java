@@ -0,0 +1,241 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import com.hlayiseko.AlumniMentoring.entity.ChatRoom;
+import com.hlayiseko.AlumniMentoring.entity.User;
+import com.hlayiseko.AlumniMentoring.service.ChatService;
+import com.hlayiseko.AlumniMentoring.service.MessageReceipt;
+import com.hlayiseko.AlumniMentoring.service.VirtualThreadDispatcher;
+import jakarta.ejb.EJB;
+import jakarta.json.Json;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.websocket.*;
+import jakarta.websocket.server.PathParam;
+import jakarta.websocket.server.ServerEndpoint;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One WebSocket per user carrying any number of chat rooms.
+ *
+ * The user is validated once in {@code onOpen}; rooms are then joined and
+ * left with {@code {"op":"subscribe","roomId":1,"lastSeenMessageId":42}} and
+ * {@code {"op":"unsubscribe","roomId":1}}, and messages are sent with
+ * {@code {"op":"message","roomId":1,"content":"..."}}. Every outgoing frame
+ * carries its {@code roomId}.
+ */
+@ServerEndpoint(value = "/chat-mux/{userId}", subprotocols = {"chat.json", SessionOutbox.BINARY_SUBPROTOCOL})
+public class ChatMuxWebSocket {
+
+    private static final String SUBSCRIPTIONS_KEY = ChatMuxWebSocket.class.getName() + ".subscriptions";
+
+    @EJB
+    private ChatService chatService;
+
+    @EJB
+    private ChatSessionRegistry sessions;
+
+    @EJB
+    private PresenceService presence;
+
+    @EJB
+    private VirtualThreadDispatcher dispatcher;
+
+    @PersistenceContext(unitName = "AlumniPU")
+    private EntityManager em;
+
+    @OnOpen
+    public void onOpen(Session session, @PathParam("userId") String userId) {
+        try {
+            Long userIdLong = Long.parseLong(userId);
+            User user = em.find(User.class, userIdLong);
+            if (user == null) {
+                System.err.println("User not found: " + userIdLong);
+                session.close(new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, "User not found"));
+                return;
+            }
+
+            session.getUserProperties().put(SUBSCRIPTIONS_KEY, new ConcurrentHashMap<Long, ChatSessionState>());
+            SessionOutbox.attach(session);
+            SessionInbox.attach(session, dispatcher.executor());
+            session.setMaxIdleTimeout(ChatSessionRegistry.IDLE_TIMEOUT_MILLIS);
+            sessions.joinMux(userIdLong, session);
+            sessions.deliverMailbox(userIdLong, session);
+
+            System.out.println("User " + user.getFullName() + " (" + userId + ") opened a multiplexed chat connection");
+
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid user ID format: " + e.getMessage());
+            closeQuietly(session, new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, "Invalid ID format"));
+        } catch (Exception e) {
+            System.err.println("Error opening multiplexed WebSocket connection: " + e.getMessage());
+            e.printStackTrace();
+            closeQuietly(session, new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "Error opening connection"));
+        }
+    }
+
+    @OnMessage
+    public void onMessage(String message, Session session, @PathParam("userId") String userId) {
+        Map<Long, ChatSessionState> subscriptions = subscriptions(session);
+        SessionOutbox outbox = SessionOutbox.of(session);
+        if (subscriptions == null || outbox == null) {
+            System.err.println("Message on unvalidated multiplexed session for user " + userId);
+            return;
+        }
+        outbox.touch();
+
+        // The blocking part runs on the dispatcher, in order per session
+        if (!SessionInbox.of(session).submit(() -> handleRequest(session, subscriptions, outbox, message, userId))) {
+            outbox.enqueue(ChatFrame.error(null, "Too many pending requests"));
+        }
+    }
+
+    private void handleRequest(Session session, Map<Long, ChatSessionState> subscriptions, SessionOutbox outbox,
+                               String message, String userId) {
+        Long roomId = null;
+        try {
+            JsonObject request = Json.createReader(new StringReader(message)).readObject();
+            JsonNumber roomNumber = request.getJsonNumber("roomId");
+            if (roomNumber == null) {
+                outbox.enqueue(ChatFrame.error(null, "roomId is required"));
+                return;
+            }
+            roomId = roomNumber.longValue();
+            Long userIdLong = Long.parseLong(userId);
+
+            switch (request.getString("op", "")) {
+                case "subscribe" -> {
+                    JsonNumber lastSeen = request.getJsonNumber("lastSeenMessageId");
+                    subscribe(session, subscriptions, roomId, userIdLong, lastSeen != null ? lastSeen.longValue() : null);
+                }
+                case "unsubscribe" -> unsubscribe(session, subscriptions, roomId, userIdLong);
+                case "message" -> send(outbox, subscriptions, roomId, message, request.getString("content", ""));
+                case "typing", "presence", "read" -> {
+                    ChatSessionState state = subscriptions.get(roomId);
+                    if (state != null) {
+                        ChatWebSocket.handleSignal(presence, chatService, state, request.getString("op"), request);
+                    }
+                }
+                default -> outbox.enqueue(ChatFrame.error(roomId, "Unknown op"));
+            }
+        } catch (Exception e) {
+            System.err.println("Error processing multiplexed message: " + e.getMessage());
+            e.printStackTrace();
+            outbox.enqueue(ChatFrame.error(roomId, "Could not process request"));
+        }
+    }
+
+    @OnMessage
+    public void onPong(PongMessage pong, Session session) {
+        // Heartbeat reply; the connection is still alive
+        SessionOutbox outbox = SessionOutbox.of(session);
+        if (outbox != null) {
+            outbox.touch();
+        }
+    }
+
+    @OnClose
+    public void onClose(Session session, @PathParam("userId") String userId) {
+        try {
+            SessionOutbox outbox = SessionOutbox.of(session);
+            if (outbox != null) {
+                outbox.close();
+            }
+            Long userIdLong = Long.parseLong(userId);
+            sessions.leaveMux(userIdLong, session);
+
+            Map<Long, ChatSessionState> subscriptions = subscriptions(session);
+            if (subscriptions != null) {
+                for (ChatSessionState state : subscriptions.values()) {
+                    presence.disconnected(state.roomId(), userIdLong);
+                }
+            }
+
+            System.out.println("User " + userId + " closed a multiplexed chat connection");
+
+        } catch (Exception e) {
+            System.err.println("Error closing multiplexed WebSocket connection: " + e.getMessage());
+        }
+    }
+
+    @OnError
+    public void onError(Session session, Throwable throwable, @PathParam("userId") String userId) {
+        System.err.println("Multiplexed WebSocket error for user " + userId + ": " + throwable.getMessage());
+        throwable.printStackTrace();
+    }
+
+    private void subscribe(Session session, Map<Long, ChatSessionState> subscriptions,
+                           Long roomId, Long userId, Long lastSeenMessageId) {
+        SessionOutbox outbox = SessionOutbox.of(session);
+        if (subscriptions.containsKey(roomId)) {
+            outbox.enqueue(ChatFrame.subscription("subscribed", roomId));
+            return;
+        }
+
+        // Same checks as the per-room endpoint, once per room rather than once per socket
+        ChatRoom chatRoom = chatService.getChatRoomById(roomId);
+        User user = em.find(User.class, userId);
+        ChatSessionState state = chatRoom != null && user != null ? ChatWebSocket.stateFor(chatService, chatRoom, user) : null;
+        if (state == null) {
+            outbox.enqueue(ChatFrame.error(roomId, "Access denied"));
+            return;
+        }
+
+        subscriptions.put(roomId, state);
+        sessions.subscribe(roomId, userId, session);
+        chatService.markMessagesAsRead(roomId, user);
+        outbox.enqueue(ChatFrame.subscription("subscribed", roomId));
+
+        if (lastSeenMessageId != null) {
+            sessions.replayMissedMessages(session, roomId, lastSeenMessageId);
+        }
+        presence.connected(roomId, userId, user.getFullName());
+        outbox.enqueue(presence.snapshot(roomId));
+    }
+
+    private void unsubscribe(Session session, Map<Long, ChatSessionState> subscriptions, Long roomId, Long userId) {
+        ChatSessionState state = subscriptions.remove(roomId);
+        if (state != null) {
+            sessions.unsubscribe(roomId, userId, session);
+            presence.disconnected(roomId, userId);
+        }
+        SessionOutbox.of(session).enqueue(ChatFrame.subscription("unsubscribed", roomId));
+    }
+
+    private void send(SessionOutbox outbox, Map<Long, ChatSessionState> subscriptions, Long roomId,
+                      String rawFrame, String content) {
+        ChatSessionState state = subscriptions.get(roomId);
+        if (state == null) {
+            outbox.enqueue(ChatFrame.error(roomId, "Not subscribed"));
+            return;
+        }
+        if (!ChatWebSocket.withinFrameLimit(state, outbox, rawFrame)
+                || !ChatWebSocket.admit(state, outbox)
+                || !ChatWebSocket.withinSizeLimit(state, outbox, content)
+                || content.trim().isEmpty()) {
+            return;
+        }
+
+        MessageReceipt receipt = chatService.sendMessage(state.draft(content));
+        presence.stoppedTyping(roomId, state.userId());
+        sessions.broadcastMessage(receipt);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, ChatSessionState> subscriptions(Session session) {
+        return (Map<Long, ChatSessionState>) session.getUserProperties().get(SUBSCRIPTIONS_KEY);
+    }
+
+    private static void closeQuietly(Session session, CloseReason reason) {
+        try {
+            session.close(reason);
+        } catch (IOException e) {
+            System.err.println("Error closing session: " + e.getMessage());
+        }
+    }
+}
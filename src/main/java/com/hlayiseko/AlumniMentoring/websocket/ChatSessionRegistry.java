@@ -0,0 +1,428 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import com.hlayiseko.AlumniMentoring.dto.ChatMessageDTO;
+import com.hlayiseko.AlumniMentoring.dto.ChatMessagePage;
+import com.hlayiseko.AlumniMentoring.service.ChatRoomMembers;
+import com.hlayiseko.AlumniMentoring.service.ChatService;
+import com.hlayiseko.AlumniMentoring.service.MessageReceipt;
+import com.hlayiseko.AlumniMentoring.service.ReadReceipt;
+import com.hlayiseko.AlumniMentoring.service.RecentMessageCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Session;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chat sessions connected to this node, plus the {@link RoomEventBus} that
+ * carries room events to the other nodes.
+ *
+ * Per-room sockets are indexed by room and user. Multiplexed sockets are
+ * indexed by user, one entry per open connection, and each connection's
+ * subscriptions by room and user, so a user with several tabs open keeps
+ * receiving a room until the last of them leaves it.
+ *
+ * The bus is chosen with {@code alumni.chat.bus}: {@code local} (default) for
+ * a single instance, or {@code socket} for a cluster, configured with
+ * {@code alumni.chat.bus.bindAddress}, {@code alumni.chat.bus.port},
+ * {@code alumni.chat.bus.peers} and {@code alumni.chat.bus.secret}.
+ *
+ * Every {@code alumni.chat.heartbeat.intervalSeconds} the registry pings each
+ * open session and reaps those that are closed or have not been heard from
+ * (message or pong) for {@code alumni.chat.heartbeat.idleTimeoutSeconds}, so
+ * half-open connections do not linger until {@code @OnClose}. A failed ping
+ * alone never reaps a session, and sessions with a send in flight are not
+ * pinged; the idle timeout catches the ones that really are gone.
+ *
+ * Messages whose recipient has no socket here that receives the room are
+ * kept in an {@link OfflineMailbox} and handed over in one frame when the
+ * recipient next connects. Like presence, this is per node: a user who comes
+ * back on another node catches up from the unread counters instead. Group
+ * posts skip the mailbox; members catch up from the room history and their
+ * unread counters.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class ChatSessionRegistry {
+
+    private static final String BUS = System.getProperty("alumni.chat.bus", "local");
+    private static final String BUS_BIND_ADDRESS = System.getProperty("alumni.chat.bus.bindAddress", "127.0.0.1");
+    private static final int BUS_PORT = Integer.getInteger("alumni.chat.bus.port", 7601);
+    private static final String BUS_PEERS = System.getProperty("alumni.chat.bus.peers", "");
+    private static final String BUS_SECRET = System.getProperty("alumni.chat.bus.secret", "");
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    @Inject
+    private RecentMessageCache recentMessages;
+
+    @Inject
+    private ChatRoomMembers roomMembers;
+
+    @EJB
+    private ChatService chatService;
+
+    // Reconnects that missed more than this many messages are told to reload over REST
+    private static final int MAX_REPLAY_MESSAGES = Integer.getInteger("alumni.chat.replay.maxMessages", 100);
+
+    private static final long HEARTBEAT_INTERVAL_SECONDS = Long.getLong("alumni.chat.heartbeat.intervalSeconds", 30);
+    public static final long IDLE_TIMEOUT_MILLIS = Long.getLong("alumni.chat.heartbeat.idleTimeoutSeconds", 90) * 1000;
+    private static final ByteBuffer PING_PAYLOAD = ByteBuffer.wrap(new byte[] {'h', 'b'}).asReadOnlyBuffer();
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private final Map<Long, Map<Long, Session>> rooms = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Session>> muxSessions = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, Set<Session>>> muxSubscribers = new ConcurrentHashMap<>();
+    private final OfflineMailbox mailbox = new OfflineMailbox();
+    private RoomEventBus bus;
+    private ScheduledFuture<?> heartbeat;
+
+    private final AtomicLong pingsSent = new AtomicLong();
+    private final AtomicLong pingsFailed = new AtomicLong();
+    private final AtomicLong reapedConnections = new AtomicLong();
+    private final AtomicLong benchmarkRooms = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        bus = "socket".equals(BUS)
+                ? new SocketRoomEventBus(BUS_BIND_ADDRESS, BUS_PORT, SocketRoomEventBus.parsePeers(BUS_PEERS),
+                        BUS_SECRET, threadFactory)
+                : new LocalRoomEventBus();
+        bus.start(this::onEvent);
+        heartbeat = scheduler.scheduleAtFixedRate(this::heartbeat,
+                HEARTBEAT_INTERVAL_SECONDS, HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        System.out.println("Chat room event bus started (" + BUS + ")");
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeat.cancel(false);
+        bus.stop();
+    }
+
+    public void join(Long roomId, Long userId, Session session) {
+        rooms.compute(roomId, (id, sessions) -> {
+            Map<Long, Session> result = sessions != null ? sessions : new ConcurrentHashMap<>();
+            result.put(userId, session);
+            return result;
+        });
+    }
+
+    /**
+     * Removes the session if it is still the user's current one, dropping the
+     * room entry once it is empty.
+     */
+    public void leave(Long roomId, Long userId, Session session) {
+        rooms.computeIfPresent(roomId, (id, sessions) -> {
+            sessions.remove(userId, session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    /**
+     * Registers one of a user's multiplexed connections, alongside any others
+     * they have open.
+     */
+    public void joinMux(Long userId, Session session) {
+        muxSessions.compute(userId, (id, sessions) -> {
+            Set<Session> result = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            result.add(session);
+            return result;
+        });
+    }
+
+    /**
+     * Removes a multiplexed connection and whatever rooms it was still
+     * subscribed to; the user's other connections are untouched.
+     */
+    public void leaveMux(Long userId, Session session) {
+        muxSessions.computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+        for (Long roomId : muxSubscribers.keySet()) {
+            unsubscribe(roomId, userId, session);
+        }
+    }
+
+    public void subscribe(Long roomId, Long userId, Session session) {
+        muxSubscribers.compute(roomId, (id, users) -> {
+            Map<Long, Set<Session>> result = users != null ? users : new ConcurrentHashMap<>();
+            result.computeIfAbsent(userId, user -> ConcurrentHashMap.newKeySet()).add(session);
+            return result;
+        });
+    }
+
+    public void unsubscribe(Long roomId, Long userId, Session session) {
+        muxSubscribers.computeIfPresent(roomId, (id, users) -> {
+            users.computeIfPresent(userId, (user, sessions) -> {
+                sessions.remove(session);
+                return sessions.isEmpty() ? null : sessions;
+            });
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    /**
+     * Sends a resuming client what it missed in a room since
+     * {@code lastSeenMessageId}: one replay frame, or a resync frame if the
+     * gap is too large to replay.
+     */
+    public void replayMissedMessages(Session session, Long roomId, Long lastSeenMessageId) {
+        SessionOutbox outbox = SessionOutbox.of(session);
+        ChatMessagePage missed = chatService.getMessagesSince(roomId, lastSeenMessageId, MAX_REPLAY_MESSAGES);
+        if (missed == null) {
+            outbox.enqueue(ChatFrame.resync(roomId, "unknown-message"));
+        } else if (missed.hasMore()) {
+            outbox.enqueue(ChatFrame.resync(roomId, "gap-too-large"));
+        } else if (!missed.messages().isEmpty()) {
+            outbox.enqueue(ChatFrame.replay(roomId, missed.messages()));
+        }
+    }
+
+    /**
+     * Sends the first frame of a new connection: whatever reached none of the
+     * user's sockets while they were away, plus their per-room unread counts.
+     * Sends nothing if the mailbox is empty.
+     */
+    public void deliverMailbox(Long userId, Session session) {
+        OfflineMailbox.Batch batch = mailbox.drain(userId);
+        if (batch != null) {
+            SessionOutbox.of(session).enqueue(
+                    ChatFrame.mailbox(batch.messages(), chatService.getUnreadCounts(userId), batch.truncated()));
+        }
+    }
+
+    /**
+     * Broadcasts a message just accepted from its sender. If no socket of the
+     * recipient receives the room at this moment, the message goes to their
+     * mailbox once it is durable. Group posts have no recipient and are only
+     * broadcast.
+     */
+    public void broadcastMessage(MessageReceipt receipt) {
+        ChatMessageDTO message = receipt.message();
+        Long roomId = message.chatRoomId();
+        boolean recipientConnected = message.recipientId() == null || receivesRoom(roomId, message.recipientId());
+
+        broadcast(roomId, ChatFrame.message(message, receipt.sequence()), message.senderId());
+
+        // Other nodes drop their cached copy of this room once the message is durable
+        receipt.persisted().thenAccept(stored -> {
+            invalidateRemoteCaches(roomId);
+            if (!recipientConnected) {
+                mailbox.add(stored.recipientId(), stored);
+            }
+        });
+    }
+
+    private boolean receivesRoom(Long roomId, Long userId) {
+        Map<Long, Session> sessions = rooms.get(roomId);
+        if (sessions != null && sessions.containsKey(userId)) {
+            return true;
+        }
+        Map<Long, Set<Session>> subscribers = muxSubscribers.get(roomId);
+        return subscribers != null && subscribers.containsKey(userId);
+    }
+
+    /**
+     * Publishes a frame to everyone in the room, on every node.
+     */
+    public void broadcast(Long roomId, ChatFrame frame, Long excludeUserId) {
+        bus.publish(RoomEvent.frame(roomId, frame, excludeUserId));
+    }
+
+    /**
+     * Tells the other nodes that the room's history changed here.
+     */
+    public void invalidateRemoteCaches(Long roomId) {
+        bus.publish(RoomEvent.invalidate(roomId));
+    }
+
+    /**
+     * Pushes a durable read receipt to the room's other participants.
+     */
+    public void onReadReceipt(@Observes ReadReceipt receipt) {
+        broadcast(receipt.roomId(), ChatFrame.read(receipt.roomId(), receipt.readerId(), receipt.upToMessageId()),
+                receipt.readerId());
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("localRooms", rooms.size());
+        metrics.put("localSessions", rooms.values().stream().mapToInt(Map::size).sum());
+        metrics.put("muxUsers", muxSessions.size());
+        metrics.put("muxSessions", muxSessions.values().stream().mapToInt(Set::size).sum());
+        metrics.put("muxSubscriptions", muxSubscribers.values().stream()
+                .flatMap(users -> users.values().stream()).mapToInt(Set::size).sum());
+        metrics.put("pingsSent", pingsSent.get());
+        metrics.put("pingsFailed", pingsFailed.get());
+        metrics.put("reapedConnections", reapedConnections.get());
+        metrics.put("mailbox", mailbox.getMetrics());
+        metrics.put("bus", bus.getMetrics());
+        return metrics;
+    }
+
+    /**
+     * Times local delivery of room frames to rooms of each given size, using
+     * in-process fake sessions in throwaway rooms with negative ids.
+     */
+    public Map<String, Object> benchmarkFanOut(int[] memberCounts, int messages) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("messages", messages);
+        List<Map<String, Object>> runs = new ArrayList<>();
+        for (int members : memberCounts) {
+            runs.add(runFanOut(-benchmarkRooms.incrementAndGet(), members, messages));
+        }
+        result.put("runs", runs);
+        return result;
+    }
+
+    private Map<String, Object> runFanOut(Long roomId, int members, int messages) {
+        FanOutBenchmark benchmark = new FanOutBenchmark(members * messages);
+        Session[] fakes = new Session[members];
+        for (int i = 0; i < members; i++) {
+            fakes[i] = benchmark.session(i);
+            SessionOutbox.attach(fakes[i]);
+            join(roomId, (long) i, fakes[i]);
+        }
+
+        long[] fanOut = new long[messages];
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < messages; i++) {
+                ChatFrame frame = ChatFrame.system(roomId, "benchmark " + i);
+                benchmark.sending();
+                long sent = System.nanoTime();
+                onEvent(RoomEvent.frame(roomId, frame, null), true);
+                fanOut[i] = System.nanoTime() - sent;
+            }
+        } finally {
+            for (int i = 0; i < members; i++) {
+                leave(roomId, (long) i, fakes[i]);
+            }
+        }
+        return benchmark.stats(members, fanOut, System.nanoTime() - start);
+    }
+
+    private void onEvent(RoomEvent event, boolean local) {
+        if (event.kind() == RoomEvent.Kind.INVALIDATE) {
+            if (!local) {
+                recentMessages.invalidate(event.roomId());
+            }
+            return;
+        }
+
+        // Hand the frame to each recipient's outbox; slow clients never block the sender
+        Map<Long, Session> sessions = rooms.get(event.roomId());
+        if (sessions != null) {
+            for (Map.Entry<Long, Session> entry : sessions.entrySet()) {
+                if (!entry.getKey().equals(event.excludeUserId())) {
+                    deliver(entry.getValue(), event.frame());
+                }
+            }
+        }
+        Map<Long, Set<Session>> subscribers = muxSubscribers.get(event.roomId());
+        if (subscribers != null) {
+            for (Map.Entry<Long, Set<Session>> entry : subscribers.entrySet()) {
+                if (!entry.getKey().equals(event.excludeUserId())) {
+                    for (Session session : entry.getValue()) {
+                        deliver(session, event.frame());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Pings live sessions and evicts dead or idle ones. Room entries left
+     * empty are dropped by {@link #leave} and {@link #unsubscribe}, atomically
+     * with the removal, so a concurrent join never lands in an unlinked map.
+     */
+    void heartbeat() {
+        try {
+            long idleBefore = System.currentTimeMillis() - IDLE_TIMEOUT_MILLIS;
+            for (Map.Entry<Long, Map<Long, Session>> room : rooms.entrySet()) {
+                for (Map.Entry<Long, Session> entry : room.getValue().entrySet()) {
+                    if (!checkAlive(entry.getValue(), idleBefore)) {
+                        leave(room.getKey(), entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            for (Map.Entry<Long, Set<Session>> entry : muxSessions.entrySet()) {
+                for (Session session : entry.getValue()) {
+                    if (!checkAlive(session, idleBefore)) {
+                        leaveMux(entry.getKey(), session);
+                    }
+                }
+            }
+            SendRateLimiter.sweep();
+            mailbox.sweep();
+            roomMembers.sweep();
+        } catch (RuntimeException e) {
+            System.err.println("Error in chat heartbeat: " + e.getMessage());
+        }
+    }
+
+    private boolean checkAlive(Session session, long idleBefore) {
+        SessionOutbox outbox = SessionOutbox.of(session);
+        boolean idle = outbox == null || outbox.getLastActivity() < idleBefore;
+        if (session.isOpen() && !idle && !outbox.isClosed()) {
+            // A ping racing an async send can be refused by the container; the frame in flight proves liveness anyway
+            if (outbox.isSending()) {
+                return true;
+            }
+            try {
+                session.getAsyncRemote().sendPing(PING_PAYLOAD.duplicate());
+                pingsSent.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                pingsFailed.incrementAndGet();
+                System.err.println("Ping failed for session " + session.getId() + ": " + e.getMessage());
+            }
+            return true;
+        }
+
+        reapedConnections.incrementAndGet();
+        System.out.println("Reaping " + (idle ? "idle" : "closed") + " chat session " + session.getId());
+        if (outbox != null) {
+            outbox.close();
+        }
+        try {
+            session.close(new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "Idle timeout"));
+        } catch (IOException | RuntimeException e) {
+            // Already gone
+        }
+        return false;
+    }
+
+    private static void deliver(Session session, ChatFrame frame) {
+        SessionOutbox outbox = session != null ? SessionOutbox.of(session) : null;
+        if (outbox != null) {
+            outbox.enqueue(frame);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import com.hlayiseko.AlumniMentoring.dto.ChatMessageDTO;
+import com.hlayiseko.AlumniMentoring.entity.ChatRoom;
+import com.hlayiseko.AlumniMentoring.entity.User;
+import jakarta.websocket.Session;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identity and room membership validated once in {@code onOpen} and kept in
+ * {@link Session#getUserProperties()} for the lifetime of the connection, so
+ * the message path never reloads the user or chat room entities.
+ */
+public record ChatSessionState(
+        Long roomId,
+        Long userId,
+        String userName,
+        String userRole,
+        Long recipientId,
+        String recipientName,
+        SendRateLimiter.Bucket sendLimit
+) {
+    static final String KEY = ChatSessionState.class.getName();
+
+    /**
+     * Captures a validated participant of a room, or returns null if the user
+     * is not one of its participants.
+     */
+    public static ChatSessionState forParticipant(ChatRoom chatRoom, User user) {
+        if (chatRoom.isGroup()) {
+            return null;
+        }
+        User recipient;
+        if (chatRoom.getStudent().getId().equals(user.getId())) {
+            recipient = chatRoom.getAlumni();
+        } else if (chatRoom.getAlumni().getId().equals(user.getId())) {
+            recipient = chatRoom.getStudent();
+        } else {
+            return null;
+        }
+        return new ChatSessionState(chatRoom.getId(), user.getId(), user.getFullName(), user.getRole().toString(),
+                recipient.getId(), recipient.getFullName(), SendRateLimiter.bucket(user.getId(), chatRoom.getId()));
+    }
+
+    /**
+     * Captures a member of a group room, whose messages have no single
+     * recipient. Membership must already have been checked.
+     */
+    public static ChatSessionState forGroupMember(ChatRoom chatRoom, User user) {
+        return new ChatSessionState(chatRoom.getId(), user.getId(), user.getFullName(), user.getRole().toString(),
+                null, chatRoom.getName(), SendRateLimiter.bucket(user.getId(), chatRoom.getId()));
+    }
+
+    public static ChatSessionState of(Session session) {
+        return (ChatSessionState) session.getUserProperties().get(KEY);
+    }
+
+    public void attachTo(Session session) {
+        session.getUserProperties().put(KEY, this);
+    }
+
+    /**
+     * Builds an unsaved message from this participant to the other one, or to
+     * the whole room for group members.
+     */
+    public ChatMessageDTO draft(String content) {
+        return new ChatMessageDTO(null, roomId, content, userId, userName, userRole,
+                recipientId, recipientName, LocalDateTime.now(), false);
+    }
+}
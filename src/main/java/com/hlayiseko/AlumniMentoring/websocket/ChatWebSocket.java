@@ -2,8 +2,11 @@ package com.hlayiseko.AlumniMentoring.websocket;
 
 import com.hlayiseko.AlumniMentoring.entity.*;
 import com.hlayiseko.AlumniMentoring.service.ChatService;
+import com.hlayiseko.AlumniMentoring.service.MessageReceipt;
+import com.hlayiseko.AlumniMentoring.service.VirtualThreadDispatcher;
 import jakarta.ejb.EJB;
 import jakarta.json.Json;
+import jakarta.json.JsonNumber;
 import jakarta.json.JsonObject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -12,23 +15,27 @@ import jakarta.websocket.server.PathParam;
 import jakarta.websocket.server.ServerEndpoint;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-@ServerEndpoint("/chat/{chatRoomId}/{userId}")
+@ServerEndpoint(value = "/chat/{chatRoomId}/{userId}", subprotocols = {"chat.json", SessionOutbox.BINARY_SUBPROTOCOL})
 public class ChatWebSocket {
 
     @EJB
     private ChatService chatService;
 
+    @EJB
+    private ChatSessionRegistry sessions;
+
+    @EJB
+    private PresenceService presence;
+
+    @EJB
+    private VirtualThreadDispatcher dispatcher;
+
     @PersistenceContext(unitName = "AlumniPU")
     private EntityManager em;
 
-    // Store active sessions by chat room and user
-    private static final Map<String, Map<String, Session>> chatSessions = new ConcurrentHashMap<>();
-
     @OnOpen
     public void onOpen(Session session, @PathParam("chatRoomId") String chatRoomId, @PathParam("userId") String userId) {
         try {
@@ -53,23 +60,36 @@ public class ChatWebSocket {
                 return;
             }
 
-            // Check if user is participant in this chat room
-            boolean isParticipant = chatRoom.getStudent().getId().equals(userIdLong) || 
-                                  chatRoom.getAlumni().getId().equals(userIdLong);
-            if (!isParticipant) {
+            // Check if user is participant in this chat room, capturing the validated identity once for the message path
+            ChatSessionState state = stateFor(chatService, chatRoom, user);
+            if (state == null) {
                 System.err.println("User " + userIdLong + " is not a participant in chat room " + roomId);
                 session.close(new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, "Access denied"));
                 return;
             }
+            state.attachTo(session);
 
-            // Store session
-            chatSessions.computeIfAbsent(chatRoomId, k -> new ConcurrentHashMap<>()).put(userId, session);
+            // Store session with its outbound queue
+            SessionOutbox.attach(session);
+            SessionInbox.attach(session, dispatcher.executor());
+            session.setMaxIdleTimeout(ChatSessionRegistry.IDLE_TIMEOUT_MILLIS);
+            sessions.join(roomId, userIdLong, session);
             
             // Mark messages as read
             chatService.markMessagesAsRead(roomId, user);
 
-            // Notify other participants that user joined
-            broadcastToRoom(chatRoomId, createSystemMessage(user.getFullName() + " joined the chat"), userId);
+            // Resuming client: send only what it missed (after registering, so nothing falls in between)
+            Long lastSeenMessageId = getLastSeenMessageId(session);
+            if (lastSeenMessageId != null) {
+                sessions.replayMissedMessages(session, roomId, lastSeenMessageId);
+            }
+
+            // Anything that arrived while the user had no socket open, in one frame
+            sessions.deliverMailbox(userIdLong, session);
+
+            // Show who is here to the new session; others learn about it in the next presence frame
+            presence.connected(roomId, userIdLong, user.getFullName());
+            SessionOutbox.of(session).enqueue(presence.snapshot(roomId));
             
             System.out.println("User " + user.getFullName() + " (" + userId + ") joined chat room " + chatRoomId);
             
@@ -94,46 +114,62 @@ public class ChatWebSocket {
     @OnMessage
     public void onMessage(String message, Session session, @PathParam("chatRoomId") String chatRoomId, @PathParam("userId") String userId) {
         try {
-            Long roomId = Long.parseLong(chatRoomId);
-            Long userIdLong = Long.parseLong(userId);
-            
-            System.out.println("Processing message from user " + userIdLong + " in room " + roomId);
-            
+            ChatSessionState state = ChatSessionState.of(session);
+            if (state == null) {
+                System.err.println("Message on unvalidated session for user " + userId + " in room " + chatRoomId);
+                return;
+            }
+            SessionOutbox outbox = SessionOutbox.of(session);
+            outbox.touch();
+
+            // Oversized frames are rejected before any parsing work
+            if (!withinFrameLimit(state, outbox, message)) {
+                return;
+            }
+
+            // The blocking part runs on the dispatcher, in order per session
+            if (!SessionInbox.of(session).submit(() -> handleMessage(state, outbox, message))) {
+                outbox.enqueue(ChatFrame.throttle(state.roomId(), "busy", 100));
+            }
+
+        } catch (Exception e) {
+            System.err.println("Error processing message: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void handleMessage(ChatSessionState state, SessionOutbox outbox, String message) {
+        try {
             // Parse messag JSON
             JsonObject messageJson = Json.createReader(new java.io.StringReader(message)).readObject();
             String content = messageJson.getString("content", "");
             String messageType = messageJson.getString("type", "TEXT");
+
+            // Presence and read signals are debounced and do not count against the message rate limit
+            if (handleSignal(presence, chatService, state, messageType, messageJson)) {
+                return;
+            }
+
+            // Flood control before any persistence work
+            if (!admit(state, outbox)) {
+                return;
+            }
             
             if (content.trim().isEmpty()) {
                 System.out.println("Empty message content, ignoring");
                 return;
             }
-
-            // Get user and send messag
-            User user = getUserById(userIdLong);
-            if (user == null) {
-                System.err.println("User not found for ID: " + userIdLong);
+            if (!withinSizeLimit(state, outbox, content)) {
                 return;
             }
 
-            System.out.println("Sending message as user: " + user.getFullName() + " (ID: " + user.getId() + ")");
-            Message messag = chatService.sendMessage(roomId, user, content);
-            
-            // Create message response
-            JsonObject response = Json.createObjectBuilder()
-                    .add("type", "message")
-                    .add("id", messag.getId())
-                    .add("content", messag.getContent())
-                    .add("senderId", messag.getSender().getId())
-                    .add("senderName", messag.getSender().getFullName())
-                    .add("senderRole", messag.getSender().getRole().toString())
-                    .add("messageType", "TEXT")
-                    .add("sentAt", messag.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
-                    .add("isRead", messag.getRead())
-                    .build();
-
-            // Broadcast to all participants in the chat room
-            broadcastToRoom(chatRoomId, response.toString(), userId);
+            // Membership was validated in onOpen; persistence is batched by the write-behind pipeline
+            MessageReceipt receipt = chatService.sendMessage(state.draft(content));
+
+            presence.stoppedTyping(state.roomId(), state.userId());
+
+            // Encode once, then broadcast the same frame to all participants in the chat room
+            sessions.broadcastMessage(receipt);
             
         } catch (Exception e) {
             System.err.println("Error processing message: " + e.getMessage());
@@ -141,20 +177,31 @@ public class ChatWebSocket {
         }
     }
 
+    @OnMessage
+    public void onPong(PongMessage pong, Session session) {
+        // Heartbeat reply; the connection is still alive
+        SessionOutbox outbox = SessionOutbox.of(session);
+        if (outbox != null) {
+            outbox.touch();
+        }
+    }
+
     @OnClose
     public void onClose(Session session, @PathParam("chatRoomId") String chatRoomId, @PathParam("userId") String userId) {
         try {
             // Remove session
-            Map<String, Session> roomSessions = chatSessions.get(chatRoomId);
-            if (roomSessions != null) {
-                roomSessions.remove(userId);
-                if (roomSessions.isEmpty()) {
-                    chatSessions.remove(chatRoomId);
-                }
+            SessionOutbox outbox = SessionOutbox.of(session);
+            if (outbox != null) {
+                outbox.close();
             }
+            Long roomId = Long.parseLong(chatRoomId);
+            Long userIdLong = Long.parseLong(userId);
+            sessions.leave(roomId, userIdLong, session);
 
-            // Notify other participants that user left
-            broadcastToRoom(chatRoomId, createSystemMessage(userId + " left the chat"), userId);
+            // Other participants see the user go offline in the next presence frame
+            if (ChatSessionState.of(session) != null) {
+                presence.disconnected(roomId, userIdLong);
+            }
             
             System.out.println("User " + userId + " left chat room " + chatRoomId);
             
@@ -169,28 +216,94 @@ public class ChatWebSocket {
         throwable.printStackTrace();
     }
 
-    private void broadcastToRoom(String chatRoomId, String message, String excludeUserId) {
-        Map<String, Session> roomSessions = chatSessions.get(chatRoomId);
-        if (roomSessions != null) {
-            roomSessions.entrySet().stream()
-                    .filter(entry -> !entry.getKey().equals(excludeUserId))
-                    .forEach(entry -> {
-                        try {
-                            entry.getValue().getBasicRemote().sendText(message);
-                        } catch (IOException e) {
-                            System.err.println("Error sending message to user " + entry.getKey() + ": " + e.getMessage());
-                        }
-                    });
+    /**
+     * Session state for a user allowed into the room, or null: direct rooms
+     * check the two participants, group rooms the membership table.
+     */
+    static ChatSessionState stateFor(ChatService chatService, ChatRoom chatRoom, User user) {
+        if (!chatRoom.isGroup()) {
+            return ChatSessionState.forParticipant(chatRoom, user);
+        }
+        return chatService.isMember(chatRoom.getId(), user.getId()) ? ChatSessionState.forGroupMember(chatRoom, user) : null;
+    }
+
+    /**
+     * Rejects raw frames that cannot hold a message within the size cap.
+     */
+    static boolean withinFrameLimit(ChatSessionState state, SessionOutbox outbox, String rawFrame) {
+        // JSON escaping can at most double the content; anything beyond that cannot fit
+        if (rawFrame.length() <= 2 * SendRateLimiter.MAX_MESSAGE_CHARS + 256) {
+            return true;
+        }
+        SendRateLimiter.recordOversized();
+        outbox.enqueue(ChatFrame.throttle(state.roomId(), "too-large", 0));
+        return false;
+    }
+
+    /**
+     * Applies the sender's rate limit, answering rejected messages with a
+     * throttle frame. Allocates nothing when the message is admitted.
+     */
+    static boolean admit(ChatSessionState state, SessionOutbox outbox) {
+        long waitNanos = state.sendLimit().tryAcquire();
+        if (waitNanos > 0) {
+            outbox.enqueue(ChatFrame.throttle(state.roomId(), "rate-limited", TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1));
+            return false;
+        }
+        return true;
+    }
+
+    static boolean withinSizeLimit(ChatSessionState state, SessionOutbox outbox, String content) {
+        if (content.length() <= SendRateLimiter.MAX_MESSAGE_CHARS) {
+            return true;
+        }
+        SendRateLimiter.recordOversized();
+        outbox.enqueue(ChatFrame.throttle(state.roomId(), "too-large", 0));
+        return false;
+    }
+
+    /**
+     * Handles {@code typing}, {@code presence} (status ONLINE/AWAY) and
+     * {@code read} (upToMessageId) frames.
+     *
+     * @return false if the frame is not a presence signal
+     */
+    static boolean handleSignal(PresenceService presence, ChatService chatService, ChatSessionState state,
+                                  String type, JsonObject frame) {
+        switch (type) {
+            case "typing" -> presence.typing(state.roomId(), state.userId());
+            case "read" -> {
+                JsonNumber upTo = frame.getJsonNumber("upToMessageId");
+                // Clamped to the room's latest message by the service
+                if (upTo != null && upTo.longValue() > 0) {
+                    chatService.markMessagesAsRead(state.roomId(), state.userId(), upTo.longValue());
+                }
+            }
+            case "presence" -> {
+                try {
+                    presence.setStatus(state.roomId(), state.userId(),
+                            PresenceService.Status.valueOf(frame.getString("status", "ONLINE")));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Unknown presence status from user " + state.userId());
+                }
+            }
+            default -> {
+                return false;
+            }
         }
+        return true;
     }
 
-    private String createSystemMessage(String content) {
-        return Json.createObjectBuilder()
-                .add("type", "system")
-                .add("content", content)
-                .add("sentAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
-                .build()
-                .toString();
+    static Long getLastSeenMessageId(Session session) {
+        List<String> values = session.getRequestParameterMap().get("lastSeenMessageId");
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(values.get(0));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     private User getUserById(Long userId) {
@@ -0,0 +1,113 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-ins for room members, used to time how long a frame takes
+ * to reach every session of a room as the room grows.
+ *
+ * Each fake session records when its frame reached {@code sendText} and
+ * completes the send at once, so the numbers cover the registry and outbox
+ * path only, not the network or the client.
+ */
+final class FanOutBenchmark {
+
+    private final long[] deliveryNanos;
+    private final AtomicInteger delivered = new AtomicInteger();
+    private volatile long sentAt;
+
+    FanOutBenchmark(int deliveries) {
+        this.deliveryNanos = new long[deliveries];
+    }
+
+    /**
+     * Marks the moment the next frame is published.
+     */
+    void sending() {
+        sentAt = System.nanoTime();
+    }
+
+    Session session(int index) {
+        Map<String, Object> properties = new ConcurrentHashMap<>();
+        RemoteEndpoint.Async remote = (RemoteEndpoint.Async) Proxy.newProxyInstance(
+                FanOutBenchmark.class.getClassLoader(), new Class<?>[] {RemoteEndpoint.Async.class},
+                (proxy, method, args) -> {
+                    if ("sendText".equals(method.getName()) && args.length == 2) {
+                        record();
+                        ((SendHandler) args[1]).onResult(new SendResult());
+                        return null;
+                    }
+                    return defaultValue(method.getReturnType());
+                });
+
+        return (Session) Proxy.newProxyInstance(
+                FanOutBenchmark.class.getClassLoader(), new Class<?>[] {Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getUserProperties" -> properties;
+                    case "getId" -> "fanout-" + index;
+                    case "getNegotiatedSubprotocol" -> "chat.json";
+                    case "isOpen" -> true;
+                    case "getAsyncRemote" -> remote;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "FanOutBenchmark session " + index;
+                    default -> defaultValue(method.getReturnType());
+                });
+    }
+
+    Map<String, Object> stats(int members, long[] messageNanos, long elapsedNanos) {
+        int count = delivered.get();
+        long[] deliveries = Arrays.copyOf(deliveryNanos, Math.min(count, deliveryNanos.length));
+        Arrays.sort(deliveries);
+        Arrays.sort(messageNanos);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("members", members);
+        stats.put("deliveries", count);
+        stats.put("deliveryP50Micros", percentile(deliveries, 0.50));
+        stats.put("deliveryP99Micros", percentile(deliveries, 0.99));
+        stats.put("deliveryMaxMicros", percentile(deliveries, 1.0));
+        stats.put("fanOutP50Micros", percentile(messageNanos, 0.50));
+        stats.put("fanOutP99Micros", percentile(messageNanos, 0.99));
+        stats.put("deliveriesPerSecond", elapsedNanos > 0 ? count / (elapsedNanos / 1_000_000_000.0) : 0);
+        return stats;
+    }
+
+    private void record() {
+        int index = delivered.getAndIncrement();
+        if (index < deliveryNanos.length) {
+            deliveryNanos[index] = System.nanoTime() - sentAt;
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000.0;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
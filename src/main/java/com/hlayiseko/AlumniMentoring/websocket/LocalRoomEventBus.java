@@ -0,0 +1,37 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-node bus: events are delivered straight back to this JVM.
+ */
+public class LocalRoomEventBus implements RoomEventBus {
+
+    private final AtomicLong published = new AtomicLong();
+    private volatile Listener listener;
+
+    @Override
+    public void start(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void publish(RoomEvent event) {
+        published.incrementAndGet();
+        listener.onEvent(event, true);
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("type", "local");
+        metrics.put("published", published.get());
+        return metrics;
+    }
+}
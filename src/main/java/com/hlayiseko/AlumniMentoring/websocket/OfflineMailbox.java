@@ -0,0 +1,94 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import com.hlayiseko.AlumniMentoring.dto.ChatMessageDTO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable messages that reached no open socket of their recipient, kept per
+ * user until the user's next connection takes them all at once.
+ *
+ * At most {@code alumni.chat.mailbox.capacity} messages are kept per user;
+ * older ones are dropped and the batch is flagged as truncated so the client
+ * reloads its rooms instead. Mailboxes nobody collected within
+ * {@code alumni.chat.mailbox.ttlMinutes} are discarded by the heartbeat.
+ */
+final class OfflineMailbox {
+
+    private static final int CAPACITY = Integer.getInteger("alumni.chat.mailbox.capacity", 200);
+    private static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong("alumni.chat.mailbox.ttlMinutes", 60));
+
+    record Batch(List<ChatMessageDTO> messages, boolean truncated) {}
+
+    private final Map<Long, Box> boxes = new ConcurrentHashMap<>();
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong drained = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    void add(Long userId, ChatMessageDTO message) {
+        boxes.compute(userId, (id, existing) -> {
+            Box box = existing != null ? existing : new Box();
+            if (box.messages.size() >= CAPACITY) {
+                box.messages.pollFirst();
+                box.truncated = true;
+                dropped.incrementAndGet();
+            }
+            box.messages.addLast(message);
+            box.lastAdded = System.currentTimeMillis();
+            return box;
+        });
+        recorded.incrementAndGet();
+    }
+
+    /**
+     * Removes and returns everything waiting for the user, or null if nothing is.
+     */
+    Batch drain(Long userId) {
+        Box box = boxes.remove(userId);
+        if (box == null) {
+            return null;
+        }
+        // remove() happens-after the last compute() on this box, so it is safe to read here
+        drained.addAndGet(box.messages.size());
+        return new Batch(new ArrayList<>(box.messages), box.truncated);
+    }
+
+    void sweep() {
+        long expiredBefore = System.currentTimeMillis() - TTL_MILLIS;
+        for (Long userId : boxes.keySet()) {
+            boxes.computeIfPresent(userId, (id, box) -> {
+                if (box.lastAdded >= expiredBefore) {
+                    return box;
+                }
+                expired.addAndGet(box.messages.size());
+                return null;
+            });
+        }
+    }
+
+    Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("users", boxes.size());
+        metrics.put("recorded", recorded.get());
+        metrics.put("drained", drained.get());
+        metrics.put("dropped", dropped.get());
+        metrics.put("expired", expired.get());
+        return metrics;
+    }
+
+    private static final class Box {
+        // Only touched inside compute() on the owning map entry
+        final ArrayDeque<ChatMessageDTO> messages = new ArrayDeque<>();
+        boolean truncated;
+        long lastAdded;
+    }
+}
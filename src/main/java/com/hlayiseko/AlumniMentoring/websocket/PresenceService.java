@@ -0,0 +1,254 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObjectBuilder;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory online/away/typing state of chat room participants.
+ *
+ * Changes are only recorded when they happen; every
+ * {@code alumni.chat.presence.intervalMillis} each room with pending changes
+ * gets at most one presence frame listing them, so a burst of joins or
+ * keystrokes costs one broadcast. Typing lapses after
+ * {@code alumni.chat.presence.typingMillis} without another keystroke.
+ * Nothing here is persisted.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class PresenceService {
+
+    public enum Status {
+        ONLINE, AWAY, OFFLINE
+    }
+
+    private static final long INTERVAL_MILLIS = Long.getLong("alumni.chat.presence.intervalMillis", 500);
+    private static final long TYPING_MILLIS = Long.getLong("alumni.chat.presence.typingMillis", 5000);
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    @EJB
+    private ChatSessionRegistry sessions;
+
+    private final Map<Long, RoomPresence> rooms = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> flusher;
+
+    private final AtomicLong updatesRecorded = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        flusher = scheduler.scheduleWithFixedDelay(this::flush, INTERVAL_MILLIS, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        flusher.cancel(false);
+    }
+
+    /**
+     * Records a connection of the user to the room; the user goes online with
+     * their first connection.
+     */
+    public void connected(Long roomId, Long userId, String name) {
+        // compute() so the flusher cannot drop the room between lookup and join
+        rooms.compute(roomId, (id, existing) -> {
+            RoomPresence room = existing != null ? existing : new RoomPresence();
+            synchronized (room) {
+                Member member = room.members.computeIfAbsent(userId, key -> new Member(name));
+                if (member.connections++ == 0) {
+                    member.status = Status.ONLINE;
+                    room.markChanged(userId);
+                }
+            }
+            return room;
+        });
+    }
+
+    /**
+     * Records a closed connection; the user goes offline with their last one.
+     */
+    public void disconnected(Long roomId, Long userId) {
+        RoomPresence room = rooms.get(roomId);
+        if (room == null) {
+            return;
+        }
+        synchronized (room) {
+            Member member = room.members.get(userId);
+            if (member != null && --member.connections <= 0) {
+                member.status = Status.OFFLINE;
+                member.typingUntil = 0;
+                room.markChanged(userId);
+            }
+        }
+    }
+
+    public void setStatus(Long roomId, Long userId, Status status) {
+        update(roomId, userId, member -> {
+            if (member.status == status || status == Status.OFFLINE) {
+                return false;
+            }
+            member.status = status;
+            return true;
+        });
+    }
+
+    /**
+     * A keystroke. Only the first one in a typing window is broadcast.
+     */
+    public void typing(Long roomId, Long userId) {
+        long now = System.currentTimeMillis();
+        update(roomId, userId, member -> {
+            boolean started = member.typingUntil == 0;
+            member.typingUntil = now + TYPING_MILLIS;
+            return started;
+        });
+    }
+
+    public void stoppedTyping(Long roomId, Long userId) {
+        update(roomId, userId, member -> {
+            if (member.typingUntil == 0) {
+                return false;
+            }
+            member.typingUntil = 0;
+            return true;
+        });
+    }
+
+    /**
+     * Full presence of a room as known on this node, for a newly joined session.
+     */
+    public ChatFrame snapshot(Long roomId) {
+        JsonArrayBuilder users = Json.createArrayBuilder();
+        RoomPresence room = rooms.get(roomId);
+        if (room != null) {
+            synchronized (room) {
+                room.members.forEach((userId, member) -> users.add(member.toJson(userId)));
+            }
+        }
+        return ChatFrame.presence(roomId, users);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("rooms", rooms.size());
+        metrics.put("updatesRecorded", updatesRecorded.get());
+        metrics.put("framesSent", framesSent.get());
+        return metrics;
+    }
+
+    private interface Change {
+        boolean apply(Member member);
+    }
+
+    private void update(Long roomId, Long userId, Change change) {
+        RoomPresence room = rooms.get(roomId);
+        if (room == null) {
+            return;
+        }
+        synchronized (room) {
+            Member member = room.members.get(userId);
+            if (member != null && member.connections > 0 && change.apply(member)) {
+                room.markChanged(userId);
+            }
+        }
+    }
+
+    /**
+     * Sends one frame per room with pending changes, lapses expired typing
+     * state and forgets offline users and empty rooms.
+     */
+    void flush() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<Long, RoomPresence> entry : rooms.entrySet()) {
+                RoomPresence room = entry.getValue();
+                JsonArrayBuilder updates = null;
+                synchronized (room) {
+                    room.members.forEach((userId, member) -> {
+                        if (member.typingUntil != 0 && member.typingUntil < now) {
+                            member.typingUntil = 0;
+                            room.markChanged(userId);
+                        }
+                    });
+                    if (!room.changed.isEmpty()) {
+                        updates = Json.createArrayBuilder();
+                        for (Long userId : room.changed) {
+                            Member member = room.members.get(userId);
+                            updates.add(member.toJson(userId));
+                            if (member.connections <= 0) {
+                                room.members.remove(userId);
+                            }
+                        }
+                        room.changed.clear();
+                    }
+                }
+                if (updates != null) {
+                    sessions.broadcast(entry.getKey(), ChatFrame.presence(entry.getKey(), updates), null);
+                    framesSent.incrementAndGet();
+                }
+            }
+            for (Long roomId : rooms.keySet()) {
+                rooms.computeIfPresent(roomId, (id, room) -> {
+                    synchronized (room) {
+                        return room.members.isEmpty() ? null : room;
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error flushing presence: " + e.getMessage());
+        }
+    }
+
+    private final class RoomPresence {
+        // Guarded by this
+        final Map<Long, Member> members = new HashMap<>();
+        final Set<Long> changed = new LinkedHashSet<>();
+
+        void markChanged(Long userId) {
+            if (changed.add(userId)) {
+                updatesRecorded.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Member {
+        final String name;
+        int connections;
+        Status status = Status.ONLINE;
+        long typingUntil;
+
+        Member(String name) {
+            this.name = name;
+        }
+
+        JsonObjectBuilder toJson(Long userId) {
+            return Json.createObjectBuilder()
+                    .add("userId", userId)
+                    .add("name", name)
+                    .add("status", status.name())
+                    .add("typing", typingUntil != 0);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+/**
+ * Something that happened in a chat room and must reach every node that has
+ * sessions in it.
+ */
+public record RoomEvent(Kind kind, Long roomId, Long excludeUserId, ChatFrame frame) {
+
+    public enum Kind {
+        /** Deliver {@code frame} to the room's sessions, except {@code excludeUserId}. */
+        FRAME,
+        /** The room's history changed on another node; drop locally cached copies. */
+        INVALIDATE
+    }
+
+    public static RoomEvent frame(Long roomId, ChatFrame frame, Long excludeUserId) {
+        return new RoomEvent(Kind.FRAME, roomId, excludeUserId, frame);
+    }
+
+    public static RoomEvent invalidate(Long roomId) {
+        return new RoomEvent(Kind.INVALIDATE, roomId, null, null);
+    }
+}
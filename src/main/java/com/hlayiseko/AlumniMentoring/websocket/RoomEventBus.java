@@ -0,0 +1,29 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import java.util.Map;
+
+/**
+ * Carries room events between the nodes serving chat sockets.
+ *
+ * Each event is published once by the node where it happened; the bus hands
+ * it to the listener on every node (including the publishing one), and each
+ * node delivers it to its own locally connected sessions only.
+ */
+public interface RoomEventBus {
+
+    @FunctionalInterface
+    interface Listener {
+        /**
+         * @param local true if the event was published on this node
+         */
+        void onEvent(RoomEvent event, boolean local);
+    }
+
+    void start(Listener listener);
+
+    void publish(RoomEvent event);
+
+    void stop();
+
+    Map<String, Object> getMetrics();
+}
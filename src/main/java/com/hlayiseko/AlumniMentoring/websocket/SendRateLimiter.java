@@ -0,0 +1,95 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import com.hlayiseko.AlumniMentoring.entity.Message;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-sender flood control for chat messages, keyed by user and room.
+ *
+ * Each (user, room) pair gets one token bucket, implemented as GCRA over a
+ * single {@link AtomicLong}: {@code alumni.chat.rate.perSecond} sustained,
+ * up to {@code alumni.chat.rate.burst} back to back. Buckets are looked up
+ * once when a session joins a room and kept in its {@link ChatSessionState},
+ * so admitting a message is one CAS and allocates nothing.
+ */
+public final class SendRateLimiter {
+
+    private static final double RATE_PER_SECOND = Double.parseDouble(System.getProperty("alumni.chat.rate.perSecond", "5"));
+    private static final int BURST = Integer.getInteger("alumni.chat.rate.burst", 10);
+    // Never more than the content column holds, or the write-behind INSERT would fail
+    public static final int MAX_MESSAGE_CHARS = Math.min(
+            Integer.getInteger("alumni.chat.maxMessageChars", Message.MAX_CONTENT_LENGTH), Message.MAX_CONTENT_LENGTH);
+
+    private static final long EMISSION_INTERVAL_NANOS = (long) (TimeUnit.SECONDS.toNanos(1) / RATE_PER_SECOND);
+    private static final long BURST_TOLERANCE_NANOS = EMISSION_INTERVAL_NANOS * (BURST - 1);
+    private static final long IDLE_BUCKET_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private record Key(long userId, long roomId) {}
+
+    private static final Map<Key, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private static final AtomicLong throttledMessages = new AtomicLong();
+    private static final AtomicLong oversizedMessages = new AtomicLong();
+
+    private SendRateLimiter() {
+    }
+
+    public static Bucket bucket(Long userId, Long roomId) {
+        return buckets.computeIfAbsent(new Key(userId, roomId), key -> new Bucket());
+    }
+
+    /**
+     * Drops buckets that have been full for a while; sessions still holding
+     * one keep using it.
+     */
+    static void sweep() {
+        long idleBefore = System.nanoTime() - IDLE_BUCKET_NANOS;
+        buckets.values().removeIf(bucket -> bucket.theoreticalArrival.get() < idleBefore);
+    }
+
+    static void recordOversized() {
+        oversizedMessages.incrementAndGet();
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("buckets", buckets.size());
+        metrics.put("throttledMessages", throttledMessages.get());
+        metrics.put("oversizedMessages", oversizedMessages.get());
+        return metrics;
+    }
+
+    public static final class Bucket {
+        // Time at which the bucket would be full again, in System.nanoTime() terms
+        private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+        private Bucket() {
+        }
+
+        /**
+         * Takes one token if available.
+         *
+         * @return 0 if the message is allowed, otherwise the nanoseconds until it would be
+         */
+        public long tryAcquire() {
+            long now = System.nanoTime();
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long newTat = Math.max(tat, now) + EMISSION_INTERVAL_NANOS;
+                long waitNanos = newTat - now - EMISSION_INTERVAL_NANOS - BURST_TOLERANCE_NANOS;
+                if (waitNanos > 0) {
+                    throttledMessages.incrementAndGet();
+                    return waitNanos;
+                }
+                if (theoreticalArrival.compareAndSet(tat, newTat)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import jakarta.websocket.Session;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serial inbound queue for a single WebSocket session.
+ *
+ * Frame handling is handed to the dispatcher so the container thread returns
+ * at once, but frames of one session still run one at a time and in arrival
+ * order. At most {@code alumni.chat.inbox.capacity} frames may be waiting;
+ * beyond that new frames are rejected.
+ */
+public class SessionInbox {
+
+    static final String KEY = SessionInbox.class.getName();
+
+    private static final int CAPACITY = Integer.getInteger("alumni.chat.inbox.capacity", 64);
+
+    private static final AtomicLong rejectedFrames = new AtomicLong();
+
+    private final Session session;
+    private final Executor executor;
+
+    // Guarded by this
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private boolean running;
+
+    private SessionInbox(Session session, Executor executor) {
+        this.session = session;
+        this.executor = executor;
+    }
+
+    public static SessionInbox attach(Session session, Executor executor) {
+        SessionInbox inbox = new SessionInbox(session, executor);
+        session.getUserProperties().put(KEY, inbox);
+        return inbox;
+    }
+
+    public static SessionInbox of(Session session) {
+        return (SessionInbox) session.getUserProperties().get(KEY);
+    }
+
+    /**
+     * @return false if the inbox is full and the task was not queued
+     */
+    public boolean submit(Runnable task) {
+        synchronized (this) {
+            if (tasks.size() >= CAPACITY) {
+                rejectedFrames.incrementAndGet();
+                return false;
+            }
+            tasks.addLast(task);
+            if (running) {
+                return true;
+            }
+            running = true;
+        }
+        executor.execute(this::drain);
+        return true;
+    }
+
+    public static long getRejectedFrames() {
+        return rejectedFrames.get();
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable task;
+            synchronized (this) {
+                task = tasks.pollFirst();
+                if (task == null) {
+                    running = false;
+                    return;
+                }
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error handling frame for session " + session.getId() + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded outbound queue for a single WebSocket session.
+ *
+ * Frames are drained one at a time through {@code getAsyncRemote()}, so the
+ * thread that enqueues never waits on the network. When the queue is full the
+ * configured {@link OverflowPolicy} decides whether the oldest frame is dropped
+ * or the slow consumer is disconnected. Sessions that negotiated the
+ * {@code chat.binary} subprotocol receive the compact binary encoding.
+ */
+public class SessionOutbox implements SendHandler {
+
+    public enum OverflowPolicy {
+        DROP_OLDEST, DISCONNECT
+    }
+
+    static final String KEY = SessionOutbox.class.getName();
+    static final String BINARY_SUBPROTOCOL = "chat.binary";
+
+    private static final int CAPACITY = Integer.getInteger("alumni.chat.outbox.capacity", 256);
+    private static final OverflowPolicy POLICY = OverflowPolicy.valueOf(
+            System.getProperty("alumni.chat.outbox.overflowPolicy", OverflowPolicy.DROP_OLDEST.name()));
+
+    private static final AtomicLong droppedFrames = new AtomicLong();
+    private static final AtomicLong disconnectedConsumers = new AtomicLong();
+
+    private final Session session;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final boolean binary;
+
+    // Last time the client was heard from (message or pong), for idle detection
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    // Guarded by this
+    private final ArrayDeque<ChatFrame> queue = new ArrayDeque<>();
+    private boolean sending;
+    private boolean closed;
+
+    public SessionOutbox(Session session, int capacity, OverflowPolicy policy) {
+        this.session = session;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.binary = BINARY_SUBPROTOCOL.equals(session.getNegotiatedSubprotocol());
+    }
+
+    /**
+     * Creates an outbox with the configured defaults and attaches it to the session.
+     */
+    public static SessionOutbox attach(Session session) {
+        SessionOutbox outbox = new SessionOutbox(session, CAPACITY, POLICY);
+        session.getUserProperties().put(KEY, outbox);
+        return outbox;
+    }
+
+    public static SessionOutbox of(Session session) {
+        return (SessionOutbox) session.getUserProperties().get(KEY);
+    }
+
+    public void enqueue(ChatFrame frame) {
+        ChatFrame next = null;
+        boolean disconnect = false;
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (queue.size() >= capacity) {
+                if (policy == OverflowPolicy.DISCONNECT) {
+                    closed = true;
+                    queue.clear();
+                    disconnect = true;
+                } else {
+                    queue.pollFirst();
+                    droppedFrames.incrementAndGet();
+                }
+            }
+            if (!disconnect) {
+                queue.addLast(frame);
+                if (!sending) {
+                    sending = true;
+                    next = queue.pollFirst();
+                }
+            }
+        }
+
+        if (disconnect) {
+            disconnectSlowConsumer();
+        } else if (next != null) {
+            send(next);
+        }
+    }
+
+    @Override
+    public void onResult(SendResult result) {
+        if (!result.isOK()) {
+            System.err.println("Async send failed for session " + session.getId() + ": "
+                    + (result.getException() != null ? result.getException().getMessage() : "unknown"));
+        }
+
+        ChatFrame next;
+        synchronized (this) {
+            next = closed ? null : queue.pollFirst();
+            if (next == null) {
+                sending = false;
+            }
+        }
+        if (next != null) {
+            send(next);
+        }
+    }
+
+    public synchronized void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    public void touch() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Whether a frame has been handed to the container and not yet completed.
+     */
+    public synchronized boolean isSending() {
+        return sending;
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    public static long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    public static long getDisconnectedConsumers() {
+        return disconnectedConsumers.get();
+    }
+
+    private void send(ChatFrame frame) {
+        try {
+            if (binary) {
+                session.getAsyncRemote().sendBinary(frame.binary(), this);
+            } else {
+                session.getAsyncRemote().sendText(frame.text(), this);
+            }
+        } catch (RuntimeException e) {
+            // Session is already closing; stop draining
+            System.err.println("Error queueing frame for session " + session.getId() + ": " + e.getMessage());
+            close();
+        }
+    }
+
+    private void disconnectSlowConsumer() {
+        disconnectedConsumers.incrementAndGet();
+        System.err.println("Disconnecting slow consumer " + session.getId() + " (outbox full)");
+        try {
+            session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Slow consumer"));
+        } catch (IOException e) {
+            System.err.println("Error closing slow consumer: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import jakarta.json.Json;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Full-mesh TCP bus between chat nodes.
+ *
+ * Every node listens on {@code alumni.chat.bus.bindAddress} (loopback by
+ * default) and {@code alumni.chat.bus.port}, and keeps one outbound
+ * connection per peer listed in {@code alumni.chat.bus.peers}
+ * ({@code host:port,host:port}). A published event is encoded once, delivered
+ * locally and queued to each peer link; peers deliver it to their own sessions
+ * and never forward it, so there are no loops. Two instances on one host with
+ * different ports, each listing the other, form a loopback cluster.
+ *
+ * Peers prove they know {@code alumni.chat.bus.secret} before anything else is
+ * read: the listening side sends a random nonce and closes the connection
+ * unless the reply is its HMAC-SHA256 under the secret, otherwise it answers
+ * with one accept byte. Events are not encrypted, so the bus belongs on a
+ * private network.
+ *
+ * All loops run on threads from the given {@link ThreadFactory}; {@link #stop()}
+ * closes every socket and waits briefly for those threads to end.
+ *
+ * Wire format per event: {@code int length} followed by
+ * {@code byte kind, long roomId, long excludeUserId (-1 for none), int textLength, UTF-8 frame JSON}.
+ * An idle link sends a zero length every second, so a peer that went away is
+ * noticed without waiting for the next event.
+ */
+public class SocketRoomEventBus implements RoomEventBus {
+
+    private static final int PEER_QUEUE_CAPACITY = 10_000;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 10_000;
+    private static final int NONCE_BYTES = 32;
+    private static final int HANDSHAKE_ACCEPTED = 1;
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 5_000;
+    private static final long STOP_TIMEOUT_MILLIS = 2_000;
+
+    private final String bindAddress;
+    private final int port;
+    private final List<InetSocketAddress> peers;
+    private final byte[] secret;
+    private final ThreadFactory threadFactory;
+
+    private final List<PeerLink> links = new ArrayList<>();
+    private final Set<Socket> inbound = ConcurrentHashMap.newKeySet();
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final SecureRandom random = new SecureRandom();
+    private volatile Listener listener;
+    private volatile ServerSocket server;
+    private volatile boolean running;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rejectedPeers = new AtomicLong();
+
+    public SocketRoomEventBus(String bindAddress, int port, List<InetSocketAddress> peers, String secret,
+                              ThreadFactory threadFactory) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("The socket chat bus needs a shared secret (alumni.chat.bus.secret)");
+        }
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.peers = peers;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Parses {@code host:port,host:port}.
+     */
+    public static List<InetSocketAddress> parsePeers(String value) {
+        List<InetSocketAddress> result = new ArrayList<>();
+        if (value == null || value.isBlank()) {
+            return result;
+        }
+        for (String peer : value.split(",")) {
+            String trimmed = peer.trim();
+            int colon = trimmed.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Invalid chat bus peer: " + trimmed);
+            }
+            result.add(InetSocketAddress.createUnresolved(
+                    trimmed.substring(0, colon), Integer.parseInt(trimmed.substring(colon + 1))));
+        }
+        return result;
+    }
+
+    @Override
+    public void start(Listener listener) {
+        this.listener = listener;
+        running = true;
+        try {
+            server = new ServerSocket();
+            server.setReuseAddress(true);
+            server.bind(new InetSocketAddress(bindAddress, port));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not listen for chat bus peers on " + bindAddress + ":" + port, e);
+        }
+        spawn("chat-bus-accept", this::acceptLoop);
+        for (InetSocketAddress peer : peers) {
+            PeerLink link = new PeerLink(peer);
+            links.add(link);
+            spawn("chat-bus-peer-" + peer, link::run);
+        }
+    }
+
+    @Override
+    public void publish(RoomEvent event) {
+        published.incrementAndGet();
+        if (event.kind() == RoomEvent.Kind.FRAME) {
+            listener.onEvent(event, true);
+        }
+        if (links.isEmpty()) {
+            return;
+        }
+        byte[] encoded = encode(event);
+        for (PeerLink link : links) {
+            if (!link.queue.offer(encoded)) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeQuietly(server);
+        for (Socket socket : inbound) {
+            closeQuietly(socket);
+        }
+        for (PeerLink link : links) {
+            closeQuietly(link.socket);
+        }
+        long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+        for (Thread thread : threads) {
+            thread.interrupt();
+            try {
+                thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("type", "socket");
+        metrics.put("bindAddress", bindAddress);
+        metrics.put("port", port);
+        metrics.put("peers", peers.size());
+        metrics.put("connectedPeers", links.stream().filter(link -> link.connected).count());
+        metrics.put("inboundPeers", inbound.size());
+        metrics.put("rejectedPeers", rejectedPeers.get());
+        metrics.put("published", published.get());
+        metrics.put("sent", sent.get());
+        metrics.put("received", received.get());
+        metrics.put("dropped", dropped.get());
+        return metrics;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                inbound.add(socket);
+                spawn("chat-bus-inbound-" + socket.getRemoteSocketAddress(), () -> readLoop(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Error accepting chat bus peer: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        try (socket; DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            if (!authenticate(socket, in)) {
+                rejectedPeers.incrementAndGet();
+                System.err.println("Rejected chat bus peer " + socket.getRemoteSocketAddress() + ": bad handshake");
+                return;
+            }
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeByte(HANDSHAKE_ACCEPTED);
+            out.flush();
+            while (running) {
+                int length = in.readInt();
+                if (length == 0) {
+                    continue;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                received.incrementAndGet();
+                listener.onEvent(decode(payload), false);
+            }
+        } catch (IOException e) {
+            // Peer went away; it reconnects on its own
+        } catch (RuntimeException e) {
+            System.err.println("Error handling chat bus event from " + socket.getRemoteSocketAddress() + ": " + e.getMessage());
+        } finally {
+            inbound.remove(socket);
+        }
+    }
+
+    /**
+     * Listening side of the handshake: sends a nonce and checks the peer's
+     * HMAC of it.
+     */
+    private boolean authenticate(Socket socket, DataInputStream in) throws IOException {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.write(nonce);
+        out.flush();
+
+        byte[] expected = sign(secret, nonce);
+        byte[] reply = new byte[expected.length];
+        try {
+            in.readFully(reply);
+        } catch (IOException e) {
+            return false;
+        }
+        socket.setSoTimeout(0);
+        return MessageDigest.isEqual(reply, expected);
+    }
+
+    static byte[] sign(byte[] secret, byte[] nonce) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return mac.doFinal(nonce);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void spawn(String name, Runnable loop) {
+        Thread thread = threadFactory.newThread(() -> {
+            try {
+                loop.run();
+            } finally {
+                threads.remove(Thread.currentThread());
+            }
+        });
+        thread.setName(name);
+        threads.add(thread);
+        thread.start();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Shutting down anyway
+        }
+    }
+
+    static byte[] encode(RoomEvent event) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(event.kind().ordinal());
+            out.writeLong(event.roomId());
+            out.writeLong(event.excludeUserId() != null ? event.excludeUserId() : -1);
+            byte[] text = event.frame() != null ? event.frame().text().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            out.writeInt(text.length);
+            out.write(text);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static RoomEvent decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        RoomEvent.Kind kind = RoomEvent.Kind.values()[in.readByte()];
+        long roomId = in.readLong();
+        long excludeUserId = in.readLong();
+        byte[] text = new byte[in.readInt()];
+        in.readFully(text);
+        ChatFrame frame = text.length == 0 ? null : ChatFrame.of(
+                Json.createReader(new StringReader(new String(text, StandardCharsets.UTF_8))).readObject());
+        return new RoomEvent(kind, roomId, excludeUserId >= 0 ? excludeUserId : null, frame);
+    }
+
+    /**
+     * Outbound connection to one peer, reconnected with backoff. Events
+     * queued while the peer is down are sent once it is back, up to the
+     * queue capacity.
+     */
+    private final class PeerLink {
+        final InetSocketAddress address;
+        final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>(PEER_QUEUE_CAPACITY);
+        volatile Socket socket;
+        volatile boolean connected;
+
+        PeerLink(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        void run() {
+            long delay = 500;
+            while (running) {
+                try (Socket socket = new Socket()) {
+                    this.socket = socket;
+                    socket.connect(new InetSocketAddress(address.getHostString(), address.getPort()), 5_000);
+                    socket.setTcpNoDelay(true);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+                    // Answer the listener's nonce before sending any event
+                    socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+                    byte[] nonce = new byte[NONCE_BYTES];
+                    new DataInputStream(socket.getInputStream()).readFully(nonce);
+                    out.write(sign(secret, nonce));
+                    out.flush();
+                    if (socket.getInputStream().read() != HANDSHAKE_ACCEPTED) {
+                        if (running) {
+                            System.err.println("Chat bus peer " + address + " rejected the handshake; check alumni.chat.bus.secret");
+                        }
+                        throw new IOException("Handshake rejected");
+                    }
+                    socket.setSoTimeout(0);
+
+                    connected = true;
+                    delay = 500;
+                    System.out.println("Chat bus connected to peer " + address);
+                    while (running) {
+                        byte[] payload = queue.poll(1, TimeUnit.SECONDS);
+                        if (payload == null) {
+                            // Keepalive; fails once the peer has closed its end
+                            out.writeInt(0);
+                            out.flush();
+                            continue;
+                        }
+                        // Write everything already queued before flushing
+                        do {
+                            out.writeInt(payload.length);
+                            out.write(payload);
+                            sent.incrementAndGet();
+                            payload = queue.poll();
+                        } while (payload != null);
+                        out.flush();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (IOException e) {
+                    if (connected && running) {
+                        System.err.println("Chat bus lost peer " + address + ": " + e.getMessage());
+                    }
+                } finally {
+                    connected = false;
+                    socket = null;
+                }
+
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                delay = Math.min(MAX_RECONNECT_DELAY_MILLIS, delay * 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+-- Link every message to its chat room so history, unread and mark-read
+-- queries can use a single (chat_room_id, created_at, id) index range scan.
+
+ALTER TABLE messages ADD COLUMN chat_room_id BIGINT NULL;
+
+ALTER TABLE messages
+    ADD CONSTRAINT fk_messages_chat_room FOREIGN KEY (chat_room_id) REFERENCES chat_rooms (id) ON DELETE CASCADE;
+
+CREATE INDEX idx_messages_room_created ON messages (chat_room_id, created_at, id);
+
+-- Backfill existing rows. Split by direction so each UPDATE is a plain
+-- equi-join instead of an OR predicate.
+UPDATE messages m
+    JOIN chat_rooms cr ON m.sender_id = cr.student_id AND m.recipient_id = cr.alumni_id
+SET m.chat_room_id = cr.id
+WHERE m.chat_room_id IS NULL;
+
+UPDATE messages m
+    JOIN chat_rooms cr ON m.sender_id = cr.alumni_id AND m.recipient_id = cr.student_id
+SET m.chat_room_id = cr.id
+WHERE m.chat_room_id IS NULL;
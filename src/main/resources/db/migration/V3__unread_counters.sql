@@ -0,0 +1,18 @@
+-- Materialized per-(room, user) unread counts, maintained by the message
+-- writer and reset on mark-read. Seeded from the current messages table.
+
+CREATE TABLE IF NOT EXISTS unread_counters (
+    chat_room_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    unread_count BIGINT NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (chat_room_id, user_id),
+    INDEX idx_unread_counters_user (user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT INTO unread_counters (chat_room_id, user_id, unread_count)
+SELECT chat_room_id, recipient_id, COUNT(*)
+FROM messages
+WHERE read_status = FALSE AND chat_room_id IS NOT NULL
+GROUP BY chat_room_id, recipient_id
+ON DUPLICATE KEY UPDATE unread_count = VALUES(unread_count);
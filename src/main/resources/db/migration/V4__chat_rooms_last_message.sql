@@ -0,0 +1,10 @@
+-- Point each chat room at its latest message so the room list can show a
+-- preview with a plain join instead of a per-room lookup.
+
+ALTER TABLE chat_rooms ADD COLUMN last_message_id BIGINT NULL;
+
+ALTER TABLE chat_rooms
+    ADD CONSTRAINT fk_chat_rooms_last_message FOREIGN KEY (last_message_id) REFERENCES messages (id) ON DELETE SET NULL;
+
+UPDATE chat_rooms cr
+SET cr.last_message_id = (SELECT MAX(m.id) FROM messages m WHERE m.chat_room_id = cr.id);
@@ -0,0 +1,38 @@
+-- Group rooms: membership moves to chat_room_members, which also holds each
+-- member's read watermark. A group post is one messages row with no
+-- recipient; one-to-one rooms keep their recipient and read_status.
+
+ALTER TABLE chat_rooms ADD COLUMN is_group BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE chat_rooms ADD COLUMN name VARCHAR(200) NULL;
+ALTER TABLE chat_rooms MODIFY student_id BIGINT NULL;
+
+ALTER TABLE messages MODIFY recipient_id BIGINT NULL;
+
+-- Read marks count a room's messages past a watermark by id
+CREATE INDEX idx_messages_room_id ON messages (chat_room_id, id);
+
+CREATE TABLE IF NOT EXISTS chat_room_members (
+    chat_room_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    joined_at DATETIME NULL,
+    last_read_message_id BIGINT NULL,
+
+    PRIMARY KEY (chat_room_id, user_id),
+    INDEX idx_chat_room_members_user (user_id),
+    FOREIGN KEY (chat_room_id) REFERENCES chat_rooms (id) ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Both participants of every existing room, watermarked at their latest read message
+INSERT IGNORE INTO chat_room_members (chat_room_id, user_id, joined_at, last_read_message_id)
+SELECT cr.id, cr.student_id, cr.created_at,
+       (SELECT MAX(m.id) FROM messages m
+        WHERE m.chat_room_id = cr.id AND m.recipient_id = cr.student_id AND m.read_status = TRUE)
+FROM chat_rooms cr
+WHERE cr.student_id IS NOT NULL;
+
+INSERT IGNORE INTO chat_room_members (chat_room_id, user_id, joined_at, last_read_message_id)
+SELECT cr.id, cr.alumni_id, cr.created_at,
+       (SELECT MAX(m.id) FROM messages m
+        WHERE m.chat_room_id = cr.id AND m.recipient_id = cr.alumni_id AND m.read_status = TRUE)
+FROM chat_rooms cr;
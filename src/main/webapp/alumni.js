@@ -2,40 +2,104 @@ document.addEventListener('DOMContentLoaded', async () => {
   if (!Auth.requireAuth('login.html')) return;
   const list = document.getElementById('list');
   const search = document.getElementById('search');
-  const availability = document.getElementById('availability');
+  const sort = document.getElementById('sort');
+  const loadMore = document.getElementById('loadMore');
+  const facetsBox = document.getElementById('facets');
 
+  // Facet values picked by the student, combined with the search box
+  const picked = { skill: null, company: null, year: null };
+
+  // Alumni shown so far and the cursor of the next page, for the current filters
   let data = [];
+  let next = null;
+  let searchTimer = null;
+  let generation = 0;
   
-  // Show loading state
-  list.innerHTML = `
-    <div class="loading-state">
-      <i class="fas fa-spinner fa-spin"></i>
-      <span>Loading mentors...</span>
-    </div>
-  `;
-  
-  try {
-    data = await API.getAlumni();
-    render(data);
-  } catch(e){
-    console.error('Error loading alumni:', e);
-    list.innerHTML = `
-      <div class="empty-state">
-        <i class="fas fa-exclamation-triangle"></i>
-        <h3>Failed to Load Mentors</h3>
-        <p>Unable to load mentor information. Please try refreshing the page.</p>
-      </div>
+  async function load(reset){
+    const current = ++generation;
+    if (reset) {
+      data = [];
+      next = null;
+      // Show loading state
+      list.innerHTML = `
+        <div class="loading-state">
+          <i class="fas fa-spinner fa-spin"></i>
+          <span>Loading mentors...</span>
+        </div>
+      `;
+    }
+    try {
+      const filters = {
+        q: search.value.trim(),
+        sort: sort.value,
+        skill: picked.skill,
+        company: picked.company,
+        minYear: picked.year,
+        maxYear: picked.year,
+        // Facets describe all matches, so they only change with the filters
+        facets: reset ? 10 : 0,
+      };
+      const page = await API.searchAlumni(filters, next);
+      if (current !== generation) return; // A newer search replaced this one
+      data = data.concat(page.alumni);
+      next = page.next;
+      if (page.facets) renderFacets(page.facets, page.total);
+
+      // Nothing matched exactly: offer close spellings instead
+      if (reset && page.total === 0 && filters.q) {
+        const hits = await API.fuzzySearchAlumni(filters.q);
+        if (current !== generation) return;
+        if (hits.length > 0) {
+          facetsBox.innerHTML = `<div class="facet-group"><span class="facet-label">No exact matches for "${escapeAttr(filters.q)}", showing close matches</span></div>`;
+          data = hits.map(hit => hit.alumni);
+        }
+      }
+      render(data);
+      loadMore.style.display = page.hasMore ? '' : 'none';
+    } catch(e){
+      console.error('Error loading alumni:', e);
+      list.innerHTML = `
+        <div class="empty-state">
+          <i class="fas fa-exclamation-triangle"></i>
+          <h3>Failed to Load Mentors</h3>
+          <p>Unable to load mentor information. Please try refreshing the page.</p>
+        </div>
+      `;
+    }
+  }
+
+  load(true);
+
+  function renderFacets(facets, total){
+    const group = (label, key, counts) => counts.length === 0 ? '' : `
+      <div class="facet-group">
+        <span class="facet-label">${label}</span>
+        ${counts.map(c => `<span class="skill facet ${picked[key] === c.value ? 'active' : ''}"
+              data-facet="${key}" data-value="${escapeAttr(c.value)}">${escapeAttr(c.value)} (${c.count})</span>`).join('')}
+      </div>`;
+    facetsBox.innerHTML = `
+      <div class="facet-group"><span class="facet-label">${total} mentors</span></div>
+      ${group('Skills', 'skill', facets.skills)}
+      ${group('Companies', 'company', facets.companies)}
+      ${group('Graduated', 'year', facets.graduationYears)}
     `;
+    facetsBox.querySelectorAll('[data-facet]').forEach(chip => {
+      chip.addEventListener('click', () => {
+        const key = chip.getAttribute('data-facet');
+        const value = chip.getAttribute('data-value');
+        picked[key] = picked[key] === value ? null : value;
+        load(true);
+      });
+    });
+  }
+
+  function escapeAttr(value){
+    return String(value).replace(/&/g,'&amp;').replace(/"/g,'&quot;').replace(/</g,'&lt;');
   }
 
   function render(items){
-    const term = search.value.toLowerCase();
-    const avail = availability.value;
-    const filtered = items.filter(a => {
-      const matches = !term || (a.fullName?.toLowerCase().includes(term) || a.company?.toLowerCase().includes(term) || (a.skills||[]).some(s=>s.toLowerCase().includes(term)));
-      const availMatch = !avail || (avail==='available'? a.availableForMentoring : !a.availableForMentoring);
-      return matches && availMatch;
-    });
+    // Filtering and sorting happen on the server
+    const filtered = items;
     
     if (filtered.length === 0) {
       list.innerHTML = `
@@ -91,8 +155,12 @@ document.addEventListener('DOMContentLoaded', async () => {
     });
   }
 
-  search.addEventListener('input', ()=>render(data));
-  availability.addEventListener('change', ()=>render(data));
+  search.addEventListener('input', ()=>{
+    clearTimeout(searchTimer);
+    searchTimer = setTimeout(()=>load(true), 250);
+  });
+  sort.addEventListener('change', ()=>load(true));
+  loadMore.addEventListener('click', ()=>load(false));
 });
 
 
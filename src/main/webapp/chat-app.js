@@ -13,6 +13,14 @@ class ChatApp {
         this.currentChatRoom = null;
         this.userId = null;
         this.chatRooms = [];
+        this.olderCursor = null;
+        this.loadingOlder = false;
+        this.lastSeenMessageId = null;
+        this.reconnectAttempts = 0;
+        this.reconnectTimer = null;
+        this.lastTypingSent = 0;
+        this.readTimer = null;
+        this.presence = {};
         this.init();
     }
 
@@ -21,6 +29,9 @@ class ChatApp {
         await this.loadUserInfo();
         await this.loadChatRooms();
         this.renderChatRooms();
+
+        // Room badges follow the live unread counts instead of re-fetching the rooms
+        LiveEvents.onUnread(unreadByRoom => this.applyUnreadCounts(unreadByRoom));
     }
 
     setupEventListeners() {
@@ -41,6 +52,31 @@ class ChatApp {
             sendBtn.addEventListener('click', () => this.sendMessage());
         }
 
+        // Typing indicator: at most one signal every two seconds, the server coalesces the rest
+        if (messageInput) {
+            messageInput.addEventListener('input', () => {
+                const now = Date.now();
+                if (now - this.lastTypingSent > 2000) {
+                    this.lastTypingSent = now;
+                    this.sendSignal({ type: 'typing' });
+                }
+            });
+        }
+
+        document.addEventListener('visibilitychange', () => {
+            this.sendSignal({ type: 'presence', status: document.hidden ? 'AWAY' : 'ONLINE' });
+        });
+
+        // Load older history when scrolled to the top
+        const messagesContainer = document.getElementById('messagesContainer');
+        if (messagesContainer) {
+            messagesContainer.addEventListener('scroll', () => {
+                if (messagesContainer.scrollTop === 0) {
+                    this.loadOlderMessages();
+                }
+            });
+        }
+
         // Chat room selection
         document.addEventListener('click', (e) => {
             if (e.target.closest('.chat-room-item')) {
@@ -81,9 +117,6 @@ class ChatApp {
             if (rooms.length === 0) {
                 console.warn('No chat rooms found for this user. Chat rooms are created when mentor requests are accepted.');
             }
-            
-            // Update unread count in navigation
-            this.updateUnreadCount();
         } catch (error) {
             console.error('Error loading chat rooms:', error);
             console.error('Error details:', error.message);
@@ -113,7 +146,11 @@ class ChatApp {
             let chatPartnerName = '';
             let chatPartnerRole = '';
             
-            if (this.currentUser && this.currentUser.role === 'STUDENT') {
+            if (room.group) {
+                // Group rooms are named by their mentor
+                chatPartnerName = this.escapeHtml(room.name || 'Group');
+                chatPartnerRole = `Group • ${room.memberCount} members`;
+            } else if (this.currentUser && this.currentUser.role === 'STUDENT') {
                 // If you're a student, show the alumni name
                 chatPartnerName = room.alumniName || 'Alumni';
                 chatPartnerRole = 'Alumni';
@@ -131,11 +168,11 @@ class ChatApp {
                 <div class="chat-room-item ${room.id === this.currentChatRoom?.id ? 'active' : ''}" 
                      data-room-id="${room.id}">
                     <div class="chat-room-avatar">
-                        <i class="fas fa-user"></i>
+                        <i class="fas ${room.group ? 'fa-users' : 'fa-user'}"></i>
                     </div>
                     <div class="chat-room-content">
                         <div class="chat-room-name">${chatPartnerName}</div>
-                        <div class="chat-room-preview">${chatPartnerRole} • ${room.studentName} & ${room.alumniName}</div>
+                        <div class="chat-room-preview">${room.lastMessagePreview ? this.escapeHtml(room.lastMessagePreview) : (room.group ? chatPartnerRole : `${chatPartnerRole} • ${room.studentName} & ${room.alumniName}`)}</div>
                     </div>
                     <div class="chat-room-meta">
                         <div class="chat-room-time">${room.lastMessageAt ? new Date(room.lastMessageAt).toLocaleDateString() : 'No messages'}</div>
@@ -175,7 +212,9 @@ class ChatApp {
         
         // Show the person's name instead of room name
         let chatPartnerName = '';
-        if (this.currentUser && this.currentUser.role === 'STUDENT') {
+        if (this.currentChatRoom.group) {
+            chatPartnerName = this.currentChatRoom.name || 'Group';
+        } else if (this.currentUser && this.currentUser.role === 'STUDENT') {
             // If you're a student, show the alumni name
             chatPartnerName = this.currentChatRoom.alumniName || 'Alumni';
         } else if (this.currentUser && (this.currentUser.role === 'ALUMNI' || this.currentUser.role === 'ADMIN')) {
@@ -200,6 +239,10 @@ class ChatApp {
         
 
         // Clear any existing messages before loading new ones
+        this.olderCursor = null;
+        this.lastSeenMessageId = null;
+        this.presence = {};
+        this.renderPresence();
         const messagesContainer = document.getElementById('messagesContainer');
         if (messagesContainer) {
             messagesContainer.innerHTML = '';
@@ -220,8 +263,11 @@ class ChatApp {
         this.enableMessageInput();
     }
 
-    connectToChat(roomId) {
+    connectToChat(roomId, resume = false) {
+        clearTimeout(this.reconnectTimer);
         if (this.websocket) {
+            // Intentional close: do not let it trigger a reconnect
+            this.websocket.onclose = null;
             this.websocket.close();
         }
 
@@ -232,7 +278,11 @@ class ChatApp {
         }
 
         const protocol = window.location.protocol === 'https:' ? 'wss:' : 'ws:';
-        const wsUrl = `${protocol}//${window.location.host}/AlumniMentoring/chat/${roomId}/${this.userId}`;
+        let wsUrl = `${protocol}//${window.location.host}/AlumniMentoring/chat/${roomId}/${this.userId}`;
+        if (resume && this.lastSeenMessageId) {
+            // The server replays only what was missed since this message
+            wsUrl += `?lastSeenMessageId=${this.lastSeenMessageId}`;
+        }
         
         console.log('Connecting to WebSocket:', wsUrl);
         console.log('Room ID:', roomId);
@@ -244,6 +294,7 @@ class ChatApp {
         
         this.websocket.onopen = () => {
             console.log('WebSocket connected successfully');
+            this.reconnectAttempts = 0;
             this.updateConnectionStatus('connected', 'Connected');
             this.enableMessageInput();
         };
@@ -258,6 +309,7 @@ class ChatApp {
             this.updateConnectionStatus('disconnected', 'Disconnected');
             // Don't disable input on close - keep it enabled for manual typing
             // this.disableMessageInput();
+            this.scheduleReconnect(roomId);
         };
         
         this.websocket.onerror = (error) => {
@@ -266,6 +318,75 @@ class ChatApp {
         };
     }
 
+    sendSignal(signal) {
+        if (this.websocket && this.websocket.readyState === WebSocket.OPEN) {
+            this.websocket.send(JSON.stringify(signal));
+        }
+    }
+
+    // Tell the server what has been seen, at most once a second
+    scheduleReadReceipt() {
+        if (this.readTimer || document.hidden) {
+            return;
+        }
+        this.readTimer = setTimeout(() => {
+            this.readTimer = null;
+            if (this.lastSeenMessageId) {
+                this.sendSignal({ type: 'read', upToMessageId: this.lastSeenMessageId });
+            }
+        }, 1000);
+    }
+
+    markSentAsRead(upToMessageId) {
+        document.querySelectorAll('.message.sent[data-message-id]').forEach(element => {
+            const id = Number(element.getAttribute('data-message-id'));
+            if (id && id <= upToMessageId) {
+                element.classList.add('read');
+            }
+        });
+    }
+
+    renderPresence() {
+        const statusElement = document.getElementById('chatStatus');
+        if (!statusElement) {
+            return;
+        }
+        const others = Object.entries(this.presence)
+            .filter(([userId]) => userId != this.userId)
+            .map(([, user]) => user);
+        const typing = others.find(user => user.typing);
+        if (typing) {
+            statusElement.textContent = `${typing.name} is typing...`;
+        } else if (others.some(user => user.status === 'ONLINE')) {
+            statusElement.textContent = 'Online';
+        } else if (others.some(user => user.status === 'AWAY')) {
+            statusElement.textContent = 'Away';
+        } else {
+            statusElement.textContent = 'Offline';
+        }
+    }
+
+    scheduleReconnect(roomId) {
+        if (!this.currentChatRoom || this.currentChatRoom.id !== roomId) {
+            return;
+        }
+        // Exponential backoff with jitter, capped at 30 seconds
+        const delay = Math.min(30000, 1000 * Math.pow(2, this.reconnectAttempts)) * (0.5 + Math.random() / 2);
+        this.reconnectAttempts++;
+        this.updateConnectionStatus('connecting', 'Reconnecting...');
+        this.reconnectTimer = setTimeout(() => this.connectToChat(roomId, true), delay);
+    }
+
+    noteSeen(messageId) {
+        if (messageId && (!this.lastSeenMessageId || messageId > this.lastSeenMessageId)) {
+            this.lastSeenMessageId = messageId;
+        }
+    }
+
+    hasMessageElement(container, messageId) {
+        return messageId && container.querySelector(`[data-message-id="${messageId}"]`) !== null;
+    }
+
     handleMessage(data) {
         console.log('Handling message:', data);
         const messagesContainer = document.getElementById('messagesContainer');
@@ -281,8 +402,53 @@ class ChatApp {
             systemMessage.className = 'system-message';
             systemMessage.textContent = data.content;
             messagesContainer.appendChild(systemMessage);
+        } else if (data.type === 'mailbox') {
+            // Everything that arrived while we had no socket open, across all rooms
+            this.applyMailbox(data, messagesContainer);
+        } else if (data.type === 'replay') {
+            // Messages missed while disconnected; skip any we already show
+            data.messages.forEach(message => {
+                if (!this.hasMessageElement(messagesContainer, message.id)) {
+                    messagesContainer.appendChild(this.createHistoryElement(message));
+                }
+                this.noteSeen(message.id);
+            });
+        } else if (data.type === 'resync') {
+            // Too much was missed to replay on the socket; reload the newest page
+            this.olderCursor = null;
+            this.loadMessages(this.currentChatRoom.id);
+            return;
+        } else if (data.type === 'presence') {
+            // Coalesced presence changes (or the full list right after connecting)
+            data.users.forEach(user => {
+                if (user.status === 'OFFLINE') {
+                    delete this.presence[user.userId];
+                } else {
+                    this.presence[user.userId] = user;
+                }
+            });
+            this.renderPresence();
+            return;
+        } else if (data.type === 'read') {
+            // The other participant has read our messages up to this id
+            this.markSentAsRead(data.upToMessageId);
+            return;
+        } else if (data.type === 'throttle') {
+            const notice = document.createElement('div');
+            notice.className = 'system-message';
+            notice.textContent = data.reason === 'too-large'
+                ? 'Message is too long and was not sent.'
+                : 'You are sending messages too quickly. Please wait a moment.';
+            messagesContainer.appendChild(notice);
         } else if (data.type === 'message') {
-            
+            if (this.hasMessageElement(messagesContainer, data.id)) {
+                return;
+            }
+            this.noteSeen(data.id);
+            if (data.senderId != this.userId) {
+                this.scheduleReadReceipt();
+            }
+
             // Check if this is a duplicate of an optimistic message
             if (data.senderId == this.userId && data.id && !data.id.toString().startsWith('temp_')) {
                 // This is the real message from server, remove any temporary message with same content
@@ -310,8 +476,9 @@ class ChatApp {
 
     async loadMessages(roomId) {
         try {
-            const messages = await API.getChatMessages(roomId);
-            this.renderMessages(messages);
+            const page = await API.getChatMessagesPage(roomId);
+            this.olderCursor = page.next;
+            this.renderMessages(page.messages);
         } catch (error) {
             console.error('Error loading messages:', error);
             // Show error message in chat
@@ -330,24 +497,61 @@ class ChatApp {
         container.innerHTML = '';
         
         messages.forEach(message => {
-            const messageElement = document.createElement('div');
-            messageElement.className = `message ${message.senderId == this.userId ? 'sent' : 'received'} fade-in`;
-            
-            const time = new Date(message.sentAt).toLocaleTimeString();
-            
-            messageElement.innerHTML = `
-                <div class="message-content">
-                    <p>${this.escapeHtml(message.content)}</p>
-                    <div class="message-time">${time}</div>
-                </div>
-            `;
-            
-            container.appendChild(messageElement);
+            container.appendChild(this.createHistoryElement(message));
+            this.noteSeen(message.id);
         });
         
         container.scrollTop = container.scrollHeight;
     }
 
+    createHistoryElement(message) {
+        const messageElement = document.createElement('div');
+        messageElement.className = `message ${message.senderId == this.userId ? 'sent' : 'received'} fade-in`;
+        if (message.senderId == this.userId && (message.read || message.isRead)) {
+            messageElement.classList.add('read');
+        }
+        if (message.id) {
+            messageElement.setAttribute('data-message-id', message.id);
+        }
+        
+        const time = new Date(message.sentAt).toLocaleTimeString();
+        
+        messageElement.innerHTML = `
+            <div class="message-content">
+                <p>${this.escapeHtml(message.content)}</p>
+                <div class="message-time">${time}</div>
+            </div>
+        `;
+        return messageElement;
+    }
+
+    async loadOlderMessages() {
+        if (!this.currentChatRoom || !this.olderCursor || this.loadingOlder) {
+            return;
+        }
+        this.loadingOlder = true;
+        const roomId = this.currentChatRoom.id;
+        try {
+            const page = await API.getChatMessagesPage(roomId, this.olderCursor);
+            if (!this.currentChatRoom || this.currentChatRoom.id !== roomId) {
+                return;
+            }
+            this.olderCursor = page.next;
+
+            // Prepend while keeping the current scroll position
+            const container = document.getElementById('messagesContainer');
+            const previousHeight = container.scrollHeight;
+            const fragment = document.createDocumentFragment();
+            page.messages.forEach(message => fragment.appendChild(this.createHistoryElement(message)));
+            container.insertBefore(fragment, container.firstChild);
+            container.scrollTop = container.scrollHeight - previousHeight;
+        } catch (error) {
+            console.error('Error loading older messages:', error);
+        } finally {
+            this.loadingOlder = false;
+        }
+    }
+
     sendMessage() {
         const input = document.getElementById('messageInput');
         const content = input.value.trim();
@@ -481,23 +685,34 @@ class ChatApp {
         });
     }
 
-    async updateUnreadCount() {
-        try {
-            const response = await API.getUnreadCount();
-            const totalUnread = response.unreadCount || 0;
-            
-            // Update chat link in navigation
-            const chatLink = document.querySelector('a[href="chat.html"]');
-            if (chatLink) {
-                if (totalUnread > 0) {
-                    chatLink.innerHTML = `Chat <span class="unread-badge">${totalUnread}</span>`;
-                } else {
-                    chatLink.innerHTML = 'Chat';
+    applyMailbox(data, messagesContainer) {
+        const currentRoomId = this.currentChatRoom ? this.currentChatRoom.id : null;
+        data.messages
+            .filter(message => message.roomId === currentRoomId)
+            .forEach(message => {
+                if (!this.hasMessageElement(messagesContainer, message.id)) {
+                    messagesContainer.appendChild(this.createHistoryElement(message));
                 }
-            }
-        } catch (error) {
-            console.error('Error updating unread count:', error);
+                this.noteSeen(message.id);
+                this.scheduleReadReceipt();
+            });
+
+        if (data.truncated) {
+            // Some messages were dropped on the server; fall back to a full reload
+            this.loadChatRooms().then(() => this.renderChatRooms());
+            return;
         }
+
+        // The frame carries every room with unread messages, so the badges need no REST calls
+        this.applyUnreadCounts(new Map(data.unread.map(entry => [entry.roomId, entry.unreadCount])));
+    }
+
+    applyUnreadCounts(unreadByRoom) {
+        const currentRoomId = this.currentChatRoom ? this.currentChatRoom.id : null;
+        this.chatRooms.forEach(room => {
+            room.unreadCount = room.id === currentRoomId ? 0 : (unreadByRoom.get(room.id) || 0);
+        });
+        this.renderChatRooms();
     }
 
     async markMessagesAsRead(roomId) {
@@ -511,9 +726,7 @@ class ChatApp {
                 room.unreadCount = 0;
                 this.renderChatRooms(); // Re-render to update UI
             }
-            
-            // Update total unread count
-            this.updateUnreadCount();
+            // The navigation total drops when the event stream reports the read
         } catch (error) {
             console.error('Error marking messages as read:', error);
         }
@@ -50,85 +50,20 @@ async function loadDashboardContent(user) {
   try {
     const userRole = user.role;
     const requests = await API.getRequests();
-    const accepted = requests.filter(r => r.status === 'ACCEPTED').length;
-    const pending = requests.filter(r => r.status === 'PENDING').length;
-    
-    // Render stats based on user role
-    if (userRole === 'STUDENT') {
-      const alumni = await API.getAlumni();
-      stats.innerHTML = `
-        <div class="stat-card mentors">
-          <div class="stat-header">
-            <div class="stat-title">Available Mentors</div>
-            <div class="stat-icon"><i class="fas fa-users"></i></div>
-          </div>
-          <div class="stat-value">${alumni.length}</div>
-          <div class="stat-description">Connect with experienced alumni</div>
-          <a href="alumni.html" class="stat-action">
-            Browse Mentors <i class="fas fa-arrow-right"></i>
-          </a>
-        </div>
-        <div class="stat-card requests">
-          <div class="stat-header">
-            <div class="stat-title">My Pending Requests</div>
-            <div class="stat-icon"><i class="fas fa-clock"></i></div>
-          </div>
-          <div class="stat-value">${pending}</div>
-          <div class="stat-description">Awaiting mentor response</div>
-          <a href="requests.html" class="stat-action">
-            View Requests <i class="fas fa-arrow-right"></i>
-          </a>
-        </div>
-        <div class="stat-card chat">
-          <div class="stat-header">
-            <div class="stat-title">Active Mentorships</div>
-            <div class="stat-icon"><i class="fas fa-handshake"></i></div>
-          </div>
-          <div class="stat-value">${accepted}</div>
-          <div class="stat-description">Ongoing mentoring relationships</div>
-          <a href="chat.html" class="stat-action">
-            Open Chat <i class="fas fa-arrow-right"></i>
-          </a>
-        </div>`;
-    } else if (userRole === 'ALUMNI' || userRole === 'ADMIN') {
-      stats.innerHTML = `
-        <div class="stat-card requests">
-          <div class="stat-header">
-            <div class="stat-title">Pending Requests</div>
-            <div class="stat-icon"><i class="fas fa-clock"></i></div>
-          </div>
-          <div class="stat-value">${pending}</div>
-          <div class="stat-description">Awaiting your response</div>
-          <a href="requests.html" class="stat-action">
-            Review Requests <i class="fas fa-arrow-right"></i>
-          </a>
-        </div>
-        <div class="stat-card chat">
-          <div class="stat-header">
-            <div class="stat-title">Active Mentorships</div>
-            <div class="stat-icon"><i class="fas fa-handshake"></i></div>
-          </div>
-          <div class="stat-value">${accepted}</div>
-          <div class="stat-description">Ongoing mentoring relationships</div>
-          <a href="chat.html" class="stat-action">
-            Open Chat <i class="fas fa-arrow-right"></i>
-          </a>
-        </div>
-        <div class="stat-card default">
-          <div class="stat-header">
-            <div class="stat-title">Total Requests</div>
-            <div class="stat-icon"><i class="fas fa-chart-bar"></i></div>
-          </div>
-          <div class="stat-value">${requests.length}</div>
-          <div class="stat-description">All mentorship requests</div>
-          <a href="requests.html" class="stat-action">
-            View All <i class="fas fa-arrow-right"></i>
-          </a>
-        </div>`;
-    }
-    
-    // Add fade-in animation
-    stats.classList.add('fade-in');
+    // Only students see the mentor count
+    const alumniCount = userRole === 'STUDENT' ? (await API.searchAlumni({ limit: 1 })).total : 0;
+    renderStats(stats, userRole, requests, alumniCount);
+
+    // Keep the counts current as requests are created or answered, without re-fetching
+    LiveEvents.onRequest(request => {
+      const index = requests.findIndex(r => r.id === request.id);
+      if (index >= 0) {
+        requests[index] = request;
+      } else {
+        requests.unshift(request);
+      }
+      renderStats(stats, userRole, requests, alumniCount);
+    });
     
   } catch (error) {
     console.error('Error loading dashboard data:', error);
@@ -139,4 +74,85 @@ async function loadDashboardContent(user) {
         <p>Unable to load dashboard data. Please try refreshing the page.</p>
       </div>`;
   }
+}
+
+function renderStats(stats, userRole, requests, alumniCount) {
+  const accepted = requests.filter(r => r.status === 'ACCEPTED').length;
+  const pending = requests.filter(r => r.status === 'PENDING').length;
+
+  // Render stats based on user role
+  if (userRole === 'STUDENT') {
+    stats.innerHTML = `
+      <div class="stat-card mentors">
+        <div class="stat-header">
+          <div class="stat-title">Available Mentors</div>
+          <div class="stat-icon"><i class="fas fa-users"></i></div>
+        </div>
+        <div class="stat-value">${alumniCount}</div>
+        <div class="stat-description">Connect with experienced alumni</div>
+        <a href="alumni.html" class="stat-action">
+          Browse Mentors <i class="fas fa-arrow-right"></i>
+        </a>
+      </div>
+      <div class="stat-card requests">
+        <div class="stat-header">
+          <div class="stat-title">My Pending Requests</div>
+          <div class="stat-icon"><i class="fas fa-clock"></i></div>
+        </div>
+        <div class="stat-value">${pending}</div>
+        <div class="stat-description">Awaiting mentor response</div>
+        <a href="requests.html" class="stat-action">
+          View Requests <i class="fas fa-arrow-right"></i>
+        </a>
+      </div>
+      <div class="stat-card chat">
+        <div class="stat-header">
+          <div class="stat-title">Active Mentorships</div>
+          <div class="stat-icon"><i class="fas fa-handshake"></i></div>
+        </div>
+        <div class="stat-value">${accepted}</div>
+        <div class="stat-description">Ongoing mentoring relationships</div>
+        <a href="chat.html" class="stat-action">
+          Open Chat <i class="fas fa-arrow-right"></i>
+        </a>
+      </div>`;
+  } else if (userRole === 'ALUMNI' || userRole === 'ADMIN') {
+    stats.innerHTML = `
+      <div class="stat-card requests">
+        <div class="stat-header">
+          <div class="stat-title">Pending Requests</div>
+          <div class="stat-icon"><i class="fas fa-clock"></i></div>
+        </div>
+        <div class="stat-value">${pending}</div>
+        <div class="stat-description">Awaiting your response</div>
+        <a href="requests.html" class="stat-action">
+          Review Requests <i class="fas fa-arrow-right"></i>
+        </a>
+      </div>
+      <div class="stat-card chat">
+        <div class="stat-header">
+          <div class="stat-title">Active Mentorships</div>
+          <div class="stat-icon"><i class="fas fa-handshake"></i></div>
+        </div>
+        <div class="stat-value">${accepted}</div>
+        <div class="stat-description">Ongoing mentoring relationships</div>
+        <a href="chat.html" class="stat-action">
+          Open Chat <i class="fas fa-arrow-right"></i>
+        </a>
+      </div>
+      <div class="stat-card default">
+        <div class="stat-header">
+          <div class="stat-title">Total Requests</div>
+          <div class="stat-icon"><i class="fas fa-chart-bar"></i></div>
+        </div>
+        <div class="stat-value">${requests.length}</div>
+        <div class="stat-description">All mentorship requests</div>
+        <a href="requests.html" class="stat-action">
+          View All <i class="fas fa-arrow-right"></i>
+        </a>
+      </div>`;
+  }
+
+  // Add fade-in animation
+  stats.classList.add('fade-in');
 }
\ No newline at end of file
@@ -42,11 +42,25 @@
     },
     register: (user) => apiFetch('/auth/register', { method:'POST', body: JSON.stringify(user) }),
     getAlumni: () => apiFetch('/alumni').then(r=>r.json()),
+    // Paged search: pass page.next as cursor to continue with the same filters
+    searchAlumni: (filters, cursor) => {
+      const params = new URLSearchParams({ paging: 'cursor' });
+      Object.entries(filters || {}).forEach(([key, value]) => { if (value) params.set(key, value); });
+      if (cursor) params.set('cursor', cursor);
+      return apiFetch('/alumni?' + params.toString()).then(r=>r.json());
+    },
+    // Typo-tolerant, ranked: [{alumni, score}]
+    fuzzySearchAlumni: (q) => apiFetch('/alumni/search?q='+encodeURIComponent(q)).then(r=>r.json()),
+    getRecommendedAlumni: (interests) => apiFetch('/alumni/recommended' +
+      (interests ? '?interests='+encodeURIComponent(interests) : '')).then(r=>r.json()),
     getRequests: (status) => apiFetch('/requests' + (status? ('?status='+encodeURIComponent(status)) : '')).then(r=>r.json()),
     createRequest: (payload) => apiFetch('/requests', { method:'POST', body: JSON.stringify(payload) }),
     updateRequest: (id, status) => apiFetch('/requests/'+id+'?status='+encodeURIComponent(status), { method:'PUT' }),
     getChatRooms: () => apiFetch('/chat/rooms').then(r=>r.json()),
     getChatMessages: (roomId) => apiFetch('/chat/rooms/'+roomId+'/messages').then(r=>r.json()),
+    // Keyset paging: omit cursor for the newest page, then pass page.next to go further back
+    getChatMessagesPage: (roomId, cursor) => apiFetch('/chat/rooms/'+roomId+'/messages?' +
+      (cursor ? 'cursor='+encodeURIComponent(cursor) : 'paging=cursor')).then(r=>r.json()),
     getCurrentUser: () => apiFetch('/auth/current-user').then(r=>r.json()),
     updateProfile: (userData) => apiFetch('/auth/profile', { method:'PUT', body: JSON.stringify(userData) }).then(r=>r.json()),
     getUnreadCount: () => apiFetch('/chat/unread-count').then(r=>r.json()),
@@ -0,0 +1,64 @@
+/**
+ * Alumni Mentoring Platform - Live Events
+ *
+ * Listens to the /events Server-Sent Events stream and keeps the signed-in
+ * user's unread counts current, so pages do not have to re-fetch them.
+ * The stream starts with a full snapshot and then sends deltas; the browser
+ * reconnects on its own and each reconnect starts with a fresh snapshot.
+ *
+ * Pages register callbacks with LiveEvents.onUnread(fn) and
+ * LiveEvents.onRequest(fn); the Chat link badge is updated here for all pages.
+ */
+(function(global){
+  const unreadByRoom = new Map();
+  const unreadListeners = [];
+  const requestListeners = [];
+  let source = null;
+
+  function totalUnread(){
+    let total = 0;
+    unreadByRoom.forEach(count => { total += count; });
+    return total;
+  }
+
+  function renderChatBadge(){
+    const chatLink = document.querySelector('a[href="chat.html"]');
+    if (!chatLink) return;
+    const total = totalUnread();
+    chatLink.innerHTML = total > 0 ? `Chat <span class="unread-badge">${total}</span>` : 'Chat';
+  }
+
+  function notifyUnread(){
+    renderChatBadge();
+    unreadListeners.forEach(fn => fn(unreadByRoom, totalUnread()));
+  }
+
+  function connect(){
+    if (source || !global.EventSource) return;
+    source = new EventSource('/AlumniMentoring/resources/events', { withCredentials: true });
+
+    source.addEventListener('unread', event => {
+      const snapshot = JSON.parse(event.data);
+      unreadByRoom.clear();
+      snapshot.rooms.forEach(room => unreadByRoom.set(room.roomId, room.unreadCount));
+      notifyUnread();
+    });
+
+    source.addEventListener('unread-delta', event => {
+      const change = JSON.parse(event.data);
+      unreadByRoom.set(change.roomId, Math.max(0, (unreadByRoom.get(change.roomId) || 0) + change.delta));
+      notifyUnread();
+    });
+
+    source.addEventListener('request', event => {
+      const change = JSON.parse(event.data);
+      requestListeners.forEach(fn => fn(change.request, change.created));
+    });
+  }
+
+  global.LiveEvents = {
+    onUnread: (fn) => { unreadListeners.push(fn); connect(); },
+    onRequest: (fn) => { requestListeners.push(fn); connect(); },
+    start: connect,
+  };
+})(window);
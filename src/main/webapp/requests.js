@@ -148,6 +148,22 @@ document.addEventListener('DOMContentLoaded', async () => {
     } catch(e){ alert('Network error'); }
   }
 
+  // New requests and status changes from other tabs and users arrive on the event stream
+  LiveEvents.onRequest(request => {
+    const index = data.findIndex(r => r.id === request.id);
+    const matches = !status.value || request.status === status.value;
+    if (index >= 0 && matches) {
+      data[index] = request;
+    } else if (index >= 0) {
+      data.splice(index, 1);
+    } else if (matches) {
+      data.unshift(request);
+    } else {
+      return;
+    }
+    render(data);
+  });
+
   status.addEventListener('change', load);
   load();
 });
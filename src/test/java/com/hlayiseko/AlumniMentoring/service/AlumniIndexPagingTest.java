@@ -0,0 +1,115 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.dto.AlumniPage;
+import com.hlayiseko.AlumniMentoring.dto.AlumniProfileDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlumniIndexPagingTest {
+
+    // Two pairs share a company, so COMPANY order falls back to the id
+    private static final List<AlumniProfileDTO> PROFILES = List.of(
+            profile(10, "Zanele Khumalo", "Amazon", 2019),
+            profile(11, "Bongani Mthembu", "Google", 2015),
+            profile(12, "Aisha Patel", "Amazon", 2021),
+            profile(13, "Pieter van Wyk", "Discovery", 2015),
+            profile(14, "Nomsa Sithole", "Google", 2010),
+            profile(15, "Kagiso Molefe", "Capitec", 2017));
+
+    private static AlumniProfileDTO profile(long id, String name, String company, int year) {
+        return new AlumniProfileDTO(id, name, null, company, "Engineer", null, true, year, null, List.of("Java"));
+    }
+
+    private static AlumniSearch sorted(AlumniIndex.Sort sort, boolean descending) {
+        return new AlumniSearch(null, false, AlumniIndex.Match.CONTAINS, null, null, null, null, null, sort, descending);
+    }
+
+    private static List<Long> allPages(AlumniIndex index, AlumniSearch search, int limit) {
+        List<Long> ids = new ArrayList<>();
+        AlumniCursor cursor = null;
+        do {
+            AlumniPage page = index.search(search, cursor, limit, 0);
+            page.alumni().forEach(profile -> ids.add(profile.id()));
+            assertEquals(page.next() != null, page.hasMore());
+            cursor = page.next() != null ? AlumniCursor.decode(page.next()) : null;
+        } while (cursor != null);
+        return ids;
+    }
+
+    private static AlumniIndex index() {
+        AlumniIndex index = new AlumniIndex();
+        index.rebuild(PROFILES);
+        return index;
+    }
+
+    @Test
+    void pagesWalkTheWholeOrderWithoutGapsOrRepeats() {
+        AlumniIndex index = index();
+
+        assertEquals(List.of(12L, 11L, 15L, 14L, 13L, 10L), allPages(index, sorted(AlumniIndex.Sort.NAME, false), 4));
+        assertEquals(List.of(10L, 12L, 15L, 13L, 11L, 14L), allPages(index, sorted(AlumniIndex.Sort.COMPANY, false), 1));
+        assertEquals(List.of(14L, 11L, 13L, 15L, 10L, 12L),
+                allPages(index, sorted(AlumniIndex.Sort.GRADUATION_YEAR, false), 2));
+    }
+
+    @Test
+    void descendingPagesAreTheReverseOrder() {
+        AlumniIndex index = index();
+
+        assertEquals(List.of(14L, 11L, 13L, 15L, 12L, 10L), allPages(index, sorted(AlumniIndex.Sort.COMPANY, true), 1));
+        assertEquals(List.of(12L, 10L, 15L, 13L, 11L, 14L),
+                allPages(index, sorted(AlumniIndex.Sort.GRADUATION_YEAR, true), 4));
+    }
+
+    @Test
+    void firstPageReportsTotalAndCursor() {
+        AlumniPage page = index().search(sorted(AlumniIndex.Sort.NAME, false), null, 2, 0);
+
+        assertEquals(6, page.total());
+        assertEquals(2, page.alumni().size());
+        assertTrue(page.hasMore());
+
+        AlumniPage everything = index().search(sorted(AlumniIndex.Sort.NAME, false), null, 6, 0);
+        assertFalse(everything.hasMore());
+        assertNull(everything.next());
+    }
+
+    @Test
+    void firstAtOrAfterComparesKeyThenId() {
+        AlumniIndex index = index();
+        AlumniIndex.Snapshot snapshot = index.snapshot();
+        AlumniIndex.SortOrder order = AlumniIndex.sortOrder(snapshot, AlumniIndex.Sort.COMPANY);
+        // Order: (amazon,10) (amazon,12) (capitec,15) (discovery,13) (google,11) (google,14)
+
+        assertEquals(0, AlumniIndex.firstAtOrAfter(snapshot, order, "amazon", 10, false));
+        assertEquals(1, AlumniIndex.firstAtOrAfter(snapshot, order, "amazon", 10, true));
+        assertEquals(1, AlumniIndex.firstAtOrAfter(snapshot, order, "amazon", 11, false));
+        assertEquals(4, AlumniIndex.firstAtOrAfter(snapshot, order, "e", 0, false));
+        // A cursor whose profile is gone still lands between its neighbours
+        assertEquals(5, AlumniIndex.firstAtOrAfter(snapshot, order, "google", 12, true));
+        assertEquals(6, AlumniIndex.firstAtOrAfter(snapshot, order, "google", 14, true));
+        assertEquals(0, AlumniIndex.firstAtOrAfter(snapshot, order, "", 0, false));
+    }
+
+    @Test
+    void cursorsSurviveProfilesAddedBetweenPages() {
+        AlumniIndex index = index();
+        AlumniSearch byName = sorted(AlumniIndex.Sort.NAME, false);
+        AlumniPage first = index.search(byName, null, 3, 0);
+        assertEquals(List.of(12L, 11L, 15L), first.alumni().stream().map(AlumniProfileDTO::id).toList());
+
+        // Sorts before the cursor, so the next page is unaffected
+        index.upsert(profile(16, "Ayanda Zulu", "Amazon", 2023));
+        AlumniPage second = index.search(byName, AlumniCursor.decode(first.next()), 3, 0);
+
+        assertEquals(List.of(14L, 13L, 10L), second.alumni().stream().map(AlumniProfileDTO::id).toList());
+        assertEquals(7, second.total());
+    }
+}
@@ -0,0 +1,123 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.dto.AlumniProfileDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AlumniIndexTest {
+
+    private static final AlumniProfileDTO[] PROFILES = {
+            profile(1, "Thandi Nkosi", "Amazon", "Software Engineer", true, 2015, "Java", "Spring Boot"),
+            profile(2, "Sipho Dlamini", "Google", "Data Scientist", true, 2018, "Python", "JavaScript"),
+            profile(3, "Lerato Mokoena", "Amazon Web Services", "Product Manager", true, 2020, "Agile"),
+            profile(4, "Johan Botha", "Takealot", "Engineering Manager", false, 2012, "Java", "Leadership"),
+    };
+
+    private static AlumniProfileDTO profile(long id, String name, String company, String position,
+                                            boolean available, int year, String... skills) {
+        return new AlumniProfileDTO(id, name, name.toLowerCase().replace(' ', '.') + "@example.com",
+                company, position, null, available, year, null, List.of(skills));
+    }
+
+    private static AlumniSearch search(List<String> skills, boolean matchAll, AlumniIndex.Match mode, String text,
+                                       String company, Integer minYear, Integer maxYear) {
+        return new AlumniSearch(skills, matchAll, mode, text, company, null, minYear, maxYear,
+                AlumniIndex.Sort.NAME, false);
+    }
+
+    private static BitSet bits(int... ordinals) {
+        BitSet bits = new BitSet();
+        for (int ordinal : ordinals) {
+            bits.set(ordinal);
+        }
+        return bits;
+    }
+
+    @Test
+    void skillsMatchBySubstringOrPrefix() {
+        AlumniIndex.Snapshot snapshot = AlumniIndex.index(PROFILES);
+
+        // "java" is contained in both "java" and "javascript"
+        assertEquals(bits(0, 1, 3), AlumniIndex.matchSkills(snapshot, List.of("Java"), false, AlumniIndex.Match.CONTAINS));
+        assertEquals(bits(0, 3), AlumniIndex.matchSkills(snapshot, List.of("boot", "leader"), false, AlumniIndex.Match.CONTAINS));
+        assertEquals(bits(), AlumniIndex.matchSkills(snapshot, List.of("boot"), false, AlumniIndex.Match.PREFIX));
+        assertEquals(bits(0), AlumniIndex.matchSkills(snapshot, List.of("spring"), false, AlumniIndex.Match.PREFIX));
+    }
+
+    @Test
+    void matchAllSkillsIntersects() {
+        AlumniIndex.Snapshot snapshot = AlumniIndex.index(PROFILES);
+
+        assertEquals(bits(0), AlumniIndex.matchSkills(snapshot, List.of("java", "spring"), true, AlumniIndex.Match.CONTAINS));
+        assertEquals(bits(0, 1, 3), AlumniIndex.matchSkills(snapshot, List.of("java", "spring"), false, AlumniIndex.Match.CONTAINS));
+    }
+
+    @Test
+    void blankSkillTermsMatchEveryone() {
+        AlumniIndex.Snapshot snapshot = AlumniIndex.index(PROFILES);
+
+        assertEquals(bits(0, 1, 2, 3), AlumniIndex.matchSkills(snapshot, List.of(" ", ""), true, AlumniIndex.Match.CONTAINS));
+    }
+
+    @Test
+    void prefixedTakesTheSortedRange() {
+        AlumniIndex.Snapshot snapshot = AlumniIndex.index(PROFILES);
+
+        assertEquals(bits(0, 1, 3), AlumniIndex.prefixed(snapshot.skills(), "java"));
+        assertEquals(bits(1), AlumniIndex.prefixed(snapshot.skills(), "javas"));
+        assertEquals(bits(0, 2), AlumniIndex.prefixed(snapshot.companies(), "amazon"));
+        assertEquals(bits(), AlumniIndex.prefixed(snapshot.companies(), "zzz"));
+    }
+
+    @Test
+    void matchesCombinesFiltersOverAvailableProfiles() {
+        AlumniIndex.Snapshot snapshot = AlumniIndex.index(PROFILES);
+
+        // Johan (ordinal 3) knows Java but is not available
+        assertEquals(bits(0, 1), AlumniIndex.matches(snapshot,
+                search(List.of("java"), false, AlumniIndex.Match.CONTAINS, null, null, null, null)));
+        assertEquals(bits(0, 2), AlumniIndex.matches(snapshot,
+                search(null, false, AlumniIndex.Match.CONTAINS, null, "  AMAZON ", null, null)));
+        assertEquals(bits(1, 2), AlumniIndex.matches(snapshot,
+                search(null, false, AlumniIndex.Match.CONTAINS, null, null, 2016, null)));
+        assertEquals(bits(), AlumniIndex.matches(snapshot,
+                search(null, false, AlumniIndex.Match.CONTAINS, null, null, 2020, 2016)));
+        // Free text looks at names, companies and skills
+        assertEquals(bits(1), AlumniIndex.matches(snapshot,
+                search(null, false, AlumniIndex.Match.CONTAINS, "sipho", null, null, null)));
+        assertEquals(bits(0), AlumniIndex.matches(snapshot,
+                search(List.of("java"), false, AlumniIndex.Match.CONTAINS, "amazon", null, 2010, 2016)));
+    }
+
+    @Test
+    void upsertMovesPostingsAndKeepsOlderSnapshotsIntact() {
+        AlumniIndex index = new AlumniIndex();
+        index.rebuild(List.of(PROFILES));
+        AlumniIndex.Snapshot before = index.snapshot();
+
+        index.upsert(profile(2, "Sipho Dlamini", "Microsoft", "Data Scientist", true, 2018, "Python", "Rust"));
+        index.upsert(profile(5, "Ayanda Zulu", "Amazon", "Intern", true, 2023, "Java"));
+        AlumniIndex.Snapshot after = index.snapshot();
+
+        AlumniSearch javaScript = search(List.of("javascript"), false, AlumniIndex.Match.CONTAINS, null, null, null, null);
+        AlumniSearch rust = search(List.of("rust"), false, AlumniIndex.Match.CONTAINS, null, null, null, null);
+        AlumniSearch amazon = search(null, false, AlumniIndex.Match.CONTAINS, null, "amazon", null, null);
+
+        assertEquals(bits(1), AlumniIndex.matches(before, javaScript));
+        assertEquals(bits(), AlumniIndex.matches(before, rust));
+        assertEquals(bits(0, 2), AlumniIndex.matches(before, amazon));
+
+        assertEquals(bits(), AlumniIndex.matches(after, javaScript));
+        assertEquals(bits(1), AlumniIndex.matches(after, rust));
+        assertEquals(bits(0, 2, 4), AlumniIndex.matches(after, amazon));
+        assertEquals(4, after.ordinals().get(5L));
+        assertEquals(bits(1), after.companies().get("microsoft"));
+        assertNull(after.companies().get("google"));
+        assertEquals(bits(1), before.companies().get("google"));
+    }
+}
@@ -0,0 +1,224 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.dto.ChatMessageDTO;
+import com.hlayiseko.AlumniMentoring.dto.ChatMessagePage;
+import com.hlayiseko.AlumniMentoring.entity.AlumniProfile;
+import com.hlayiseko.AlumniMentoring.entity.ChatRoom;
+import com.hlayiseko.AlumniMentoring.entity.ChatRoomMember;
+import com.hlayiseko.AlumniMentoring.entity.Message;
+import com.hlayiseko.AlumniMentoring.entity.Student;
+import com.hlayiseko.AlumniMentoring.entity.UnreadCounter;
+import com.hlayiseko.AlumniMentoring.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatServiceHistoryTest {
+
+    private static EntityManagerFactory factory;
+
+    private EntityManager em;
+    private ChatService chat;
+    private AlumniProfile mentor;
+    private Student student;
+
+    @BeforeAll
+    static void openDatabase() {
+        factory = Persistence.createEntityManagerFactory("AlumniTestPU");
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        factory.close();
+    }
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        em = factory.createEntityManager();
+        chat = new ChatService();
+        inject(chat, "em", em);
+        inject(chat, "recentMessages", new RecentMessageCache());
+
+        em.getTransaction().begin();
+        mentor = user(new AlumniProfile(), "mentor");
+        student = user(new Student(), "student");
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = ChatService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private <T extends User> T user(T user, String name) {
+        user.setEmail(name + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setFullName(name);
+        em.persist(user);
+        return user;
+    }
+
+    private List<Long> post(ChatRoom room, User sender, User recipient, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Message message = new Message();
+            message.setChatRoom(room);
+            message.setSender(sender);
+            message.setRecipient(recipient);
+            message.setContent("message " + i);
+            message.setRead(false);
+            em.persist(message);
+            em.flush();
+            ids.add(message.getId());
+        }
+        // Read back what the database stored, timestamps included, as a later request would
+        em.clear();
+        return ids;
+    }
+
+    private List<Long> pageBackwards(Long roomId, int limit) {
+        List<Long> ids = new ArrayList<>();
+        MessageCursor cursor = null;
+        do {
+            ChatMessagePage page = chat.getChatMessagePage(roomId, cursor, limit);
+            ids.addAll(0, page.messages().stream().map(ChatMessageDTO::id).toList());
+            cursor = page.next() != null ? MessageCursor.decode(page.next()) : null;
+        } while (cursor != null);
+        return ids;
+    }
+
+    @Test
+    void groupHistoryIncludesPostsWithoutRecipient() {
+        ChatRoom group = ChatRoom.group(mentor, "Study group");
+        em.persist(group);
+        List<Long> posts = new ArrayList<>(post(group, mentor, null, 4));
+        posts.addAll(post(group, student, null, 3));
+
+        assertEquals(posts, pageBackwards(group.getId(), 2));
+
+        // The newest page comes from the recent-message cache, filled by the same query
+        ChatMessagePage latest = chat.getChatMessagePage(group.getId(), null, 3);
+        assertEquals(posts.subList(4, 7), latest.messages().stream().map(ChatMessageDTO::id).toList());
+        assertNull(latest.messages().get(0).recipientId());
+    }
+
+    @Test
+    void replayAfterCursorIncludesGroupPosts() {
+        ChatRoom group = ChatRoom.group(mentor, "Study group");
+        em.persist(group);
+        List<Long> posts = post(group, mentor, null, 5);
+        Message seen = em.find(Message.class, posts.get(1));
+
+        ChatMessagePage missed = chat.getChatMessagePage(group.getId(),
+                new MessageCursor(MessageCursor.Direction.AFTER, seen.getCreatedAt(), seen.getId()), 10);
+
+        assertEquals(posts.subList(2, 5), missed.messages().stream().map(ChatMessageDTO::id).toList());
+        assertFalse(missed.hasMore());
+    }
+
+    @Test
+    void readSignalsAreClampedToTheLatestMessage() throws ReflectiveOperationException {
+        List<Long> marks = new ArrayList<>();
+        inject(chat, "readReceipts", new ReadReceiptTracker() {
+            @Override
+            public void markRead(Long roomId, Long readerId, long upToMessageId) {
+                marks.add(upToMessageId);
+            }
+        });
+        ChatRoom group = ChatRoom.group(mentor, "Study group");
+        em.persist(group);
+        List<Long> posts = post(group, mentor, null, 3);
+        group = em.find(ChatRoom.class, group.getId());
+        group.setLastMessage(em.find(Message.class, posts.get(2)));
+        em.flush();
+        em.clear();
+
+        chat.markMessagesAsRead(group.getId(), student.getId(), Long.MAX_VALUE);
+        chat.markMessagesAsRead(group.getId(), student.getId(), posts.get(1));
+        chat.markMessagesAsRead(group.getId(), student.getId(), 0);
+        chat.markMessagesAsRead(group.getId(), student.getId(), -5);
+
+        assertEquals(List.of(posts.get(2), posts.get(1)), marks);
+    }
+
+    @Test
+    void unreadSnapshotRecordsHowFarEachCountGoes() throws ReflectiveOperationException {
+        ReadReceiptTracker readReceipts = new ReadReceiptTracker();
+        inject(chat, "readReceipts", readReceipts);
+        ChatRoom direct = new ChatRoom(student, mentor);
+        ChatRoom group = ChatRoom.group(mentor, "Study group");
+        em.persist(direct);
+        em.persist(group);
+        em.flush();
+        ChatRoomMember membership = new ChatRoomMember(direct.getId(), student.getId());
+        em.persist(membership);
+        List<Long> sent = post(direct, mentor, student, 3);
+        List<Long> posts = post(group, mentor, null, 2);
+
+        direct = em.find(ChatRoom.class, direct.getId());
+        direct.setLastMessage(em.find(Message.class, sent.get(2)));
+        em.find(ChatRoomMember.class, new ChatRoomMember.Key(direct.getId(), student.getId()))
+                .setLastReadMessageId(sent.get(0));
+        em.persist(counter(direct, 2));
+        group = em.find(ChatRoom.class, group.getId());
+        group.setLastMessage(em.find(Message.class, posts.get(1)));
+        em.persist(counter(group, 2));
+        em.flush();
+
+        UnreadSnapshot snapshot = chat.getUnreadSnapshot(student.getId());
+
+        assertEquals(Map.of(direct.getId(), 2L, group.getId(), 2L), snapshot.counts());
+        assertEquals(4, snapshot.total());
+        assertTrue(snapshot.includesMessage(direct.getId(), sent.get(2)));
+        assertFalse(snapshot.includesMessage(direct.getId(), sent.get(2) + 100));
+        assertTrue(snapshot.includesRead(direct.getId(), sent.get(0)));
+        assertFalse(snapshot.includesRead(direct.getId(), sent.get(1)));
+        // Not a member yet, so no read mark can be in the count
+        assertFalse(snapshot.includesRead(group.getId(), posts.get(0)));
+
+        // A room just read counts as zero, and its coming receipt is already applied
+        readReceipts.markRead(group.getId(), student.getId(), posts.get(1));
+        snapshot = chat.getUnreadSnapshot(student.getId());
+        assertEquals(Map.of(direct.getId(), 2L), snapshot.counts());
+        assertTrue(snapshot.includesRead(group.getId(), posts.get(1)));
+    }
+
+    private UnreadCounter counter(ChatRoom room, long count) {
+        UnreadCounter counter = new UnreadCounter();
+        counter.setChatRoomId(room.getId());
+        counter.setUserId(student.getId());
+        counter.setUnreadCount(count);
+        return counter;
+    }
+
+    @Test
+    void directHistoryStillCarriesTheRecipient() {
+        ChatRoom room = new ChatRoom(student, mentor);
+        em.persist(room);
+        List<Long> sent = post(room, student, mentor, 3);
+
+        assertEquals(sent, pageBackwards(room.getId(), 1));
+        assertEquals(mentor.getId(), chat.getChatMessagePage(room.getId(), null, 1).messages().get(0).recipientId());
+    }
+}
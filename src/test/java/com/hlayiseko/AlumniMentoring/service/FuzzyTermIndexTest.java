@@ -0,0 +1,110 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.dto.AlumniProfileDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FuzzyTermIndexTest {
+
+    private static AlumniProfileDTO profile(long id, String name, String company, String position, String... skills) {
+        return new AlumniProfileDTO(id, name, null, company, position, null, true, 2018, null, List.of(skills));
+    }
+
+    private static FuzzyTermIndex index(AlumniProfileDTO... profiles) {
+        FuzzyTermIndex index = new FuzzyTermIndex();
+        for (int ordinal = 0; ordinal < profiles.length; ordinal++) {
+            index.add(ordinal, profiles[ordinal]);
+        }
+        return index;
+    }
+
+    private static List<Integer> ordinals(FuzzyTermIndex index, String query) {
+        BitSet all = new BitSet();
+        all.set(0, 10);
+        return index.search(query, all, 10).stream().map(FuzzyTermIndex.Hit::ordinal).toList();
+    }
+
+    @Test
+    void boundedDistanceStopsAtTheBound() {
+        assertEquals(0, FuzzyTermIndex.boundedDistance("java", "java", 1));
+        assertEquals(1, FuzzyTermIndex.boundedDistance("amazn", "amazon", 1));
+        assertEquals(1, FuzzyTermIndex.boundedDistance("javascrpt", "javascript", 2));
+        assertEquals(2, FuzzyTermIndex.boundedDistance("jvascrpt", "javascript", 2));
+        assertEquals(3, FuzzyTermIndex.boundedDistance("kitten", "sitting", 3));
+        // Past the bound the exact distance no longer matters
+        assertEquals(2, FuzzyTermIndex.boundedDistance("kitten", "sitting", 1));
+        assertEquals(1, FuzzyTermIndex.boundedDistance("go", "golang", 0));
+        assertEquals(3, FuzzyTermIndex.boundedDistance("abc", "xyz", 2));
+    }
+
+    @Test
+    void trigramThresholdKeepsWordsWithinTheEditBudget() {
+        assertEquals(0, FuzzyTermIndex.maxEdits(3));
+        assertEquals(1, FuzzyTermIndex.maxEdits(5));
+        assertEquals(2, FuzzyTermIndex.maxEdits(9));
+
+        // Three letters, no edits: all but the last trigram, as for a prefix
+        assertEquals(2, FuzzyTermIndex.minSharedTrigrams(3, 0));
+        assertEquals(2, FuzzyTermIndex.minSharedTrigrams(5, 1));
+        assertEquals(2, FuzzyTermIndex.minSharedTrigrams(8, 2));
+        assertEquals(3, FuzzyTermIndex.minSharedTrigrams(9, 2));
+        // Never zero, so unrelated words are not all compared
+        assertEquals(1, FuzzyTermIndex.minSharedTrigrams(4, 1));
+    }
+
+    @Test
+    void misspelledWordsFindTheirProfiles() {
+        FuzzyTermIndex index = index(
+                profile(1, "Thabo Nkosi", "Amazon", "Engineer", "JavaScript", "React"),
+                profile(2, "Lerato Dlamini", "Standard Bank", "Analyst", "Java", "SQL"),
+                profile(3, "Sipho Ndlovu", "Takealot", "Developer", "Python"));
+
+        assertEquals(List.of(0), ordinals(index, "Javascrpt"));
+        assertEquals(List.of(0), ordinals(index, "Amazn"));
+        assertEquals(List.of(2), ordinals(index, "Developr"));
+        // Exact Java ranks above JavaScript as a prefix match
+        assertEquals(List.of(1, 0), ordinals(index, "java"));
+        assertEquals(List.of(), ordinals(index, "Kotlin"));
+    }
+
+    @Test
+    void removedProfilesStopMatching() {
+        AlumniProfileDTO thabo = profile(1, "Thabo Nkosi", "Amazon", "Engineer", "JavaScript");
+        FuzzyTermIndex index = index(thabo);
+
+        index.remove(0, thabo);
+
+        assertEquals(List.of(), ordinals(index, "Amazn"));
+    }
+
+    @Test
+    void asksForCompactionOnceAQuarterOfTheTermsAreDead() {
+        FuzzyTermIndex index = new FuzzyTermIndex();
+        index.add(0, profile(1, "Keeper", "Company", "Engineer"));
+        int words = 3;
+        int ordinal = 1;
+        while (words < FuzzyTermIndex.MIN_DEAD_TERMS * 4) {
+            index.add(ordinal++, profile(ordinal, "Alumnus" + ordinal, null, null));
+            words++;
+        }
+        for (int removed = 1; removed < FuzzyTermIndex.MIN_DEAD_TERMS; removed++) {
+            index.remove(removed, profile(removed + 1, "Alumnus" + (removed + 1), null, null));
+        }
+        assertFalse(index.needsCompaction());
+
+        AlumniProfileDTO last = profile(FuzzyTermIndex.MIN_DEAD_TERMS + 1,
+                "Alumnus" + (FuzzyTermIndex.MIN_DEAD_TERMS + 1), null, null);
+        index.remove(FuzzyTermIndex.MIN_DEAD_TERMS, last);
+        assertTrue(index.needsCompaction());
+
+        // A word that comes back is live again
+        index.add(FuzzyTermIndex.MIN_DEAD_TERMS, last);
+        assertFalse(index.needsCompaction());
+    }
+}
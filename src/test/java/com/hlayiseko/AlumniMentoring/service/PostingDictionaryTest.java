@@ -0,0 +1,74 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PostingDictionaryTest {
+
+    private static Map<String, BitSet> contents(PostingDictionary<String> dictionary) {
+        Map<String, BitSet> result = new TreeMap<>();
+        dictionary.forEach(result::put);
+        return result;
+    }
+
+    @Test
+    void moveLeavesTheOriginalUntouched() {
+        TreeMap<String, BitSet> built = new TreeMap<>();
+        built.put("java", BitSet.valueOf(new long[] {0b011}));
+        built.put("python", BitSet.valueOf(new long[] {0b100}));
+        PostingDictionary<String> original = PostingDictionary.of(built);
+
+        PostingDictionary<String> moved = original.move(List.of("java"), List.of("rust"), 1);
+
+        assertEquals(BitSet.valueOf(new long[] {0b011}), original.get("java"));
+        assertNull(original.get("rust"));
+        assertEquals(BitSet.valueOf(new long[] {0b001}), moved.get("java"));
+        assertEquals(BitSet.valueOf(new long[] {0b010}), moved.get("rust"));
+        assertEquals(3, moved.size());
+        assertSame(moved, moved.move(List.of("rust"), List.of("rust"), 1));
+    }
+
+    @Test
+    void emptiedKeysDisappear() {
+        TreeMap<String, BitSet> built = new TreeMap<>();
+        built.put("go", BitSet.valueOf(new long[] {0b1}));
+        PostingDictionary<String> dictionary = PostingDictionary.of(built).move(List.of("go"), List.of(), 0);
+
+        assertNull(dictionary.get("go"));
+        assertEquals(0, dictionary.size());
+        assertEquals(Map.of(), contents(dictionary));
+    }
+
+    @Test
+    void rangesAndCompactionSeeTheSameContents() {
+        PostingDictionary<String> dictionary = PostingDictionary.of(new TreeMap<String, BitSet>());
+        TreeMap<String, BitSet> expected = new TreeMap<>();
+        // Enough distinct keys to fold the overlay into the base several times
+        for (int ordinal = 0; ordinal < 500; ordinal++) {
+            String key = "skill" + (ordinal % 150);
+            dictionary = dictionary.move(List.of(), List.of(key), ordinal);
+            expected.computeIfAbsent(key, k -> new BitSet()).set(ordinal);
+        }
+        for (int ordinal = 0; ordinal < 500; ordinal += 7) {
+            String key = "skill" + (ordinal % 150);
+            dictionary = dictionary.move(List.of(key), List.of(), ordinal);
+            expected.get(key).clear(ordinal);
+        }
+        expected.values().removeIf(BitSet::isEmpty);
+
+        assertEquals(expected, contents(dictionary));
+        assertEquals(expected.size(), dictionary.size());
+
+        Map<String, BitSet> range = new TreeMap<>();
+        dictionary.forEachInRange("skill1", true, "skill2", false, range::put);
+        assertEquals(expected.subMap("skill1", true, "skill2", false), range);
+    }
+}
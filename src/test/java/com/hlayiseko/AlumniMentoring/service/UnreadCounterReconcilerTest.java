@@ -0,0 +1,152 @@
+package com.hlayiseko.AlumniMentoring.service;
+
+import com.hlayiseko.AlumniMentoring.entity.AlumniProfile;
+import com.hlayiseko.AlumniMentoring.entity.ChatRoom;
+import com.hlayiseko.AlumniMentoring.entity.ChatRoomMember;
+import com.hlayiseko.AlumniMentoring.entity.Message;
+import com.hlayiseko.AlumniMentoring.entity.Student;
+import com.hlayiseko.AlumniMentoring.entity.UnreadCounter;
+import com.hlayiseko.AlumniMentoring.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UnreadCounterReconcilerTest {
+
+    private static EntityManagerFactory factory;
+
+    private EntityManager em;
+    private UnreadCounterReconciler reconciler;
+
+    @BeforeAll
+    static void openDatabase() {
+        factory = Persistence.createEntityManagerFactory("AlumniTestPU");
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        factory.close();
+    }
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        em = factory.createEntityManager();
+        reconciler = new UnreadCounterReconciler();
+        Field field = UnreadCounterReconciler.class.getDeclaredField("em");
+        field.setAccessible(true);
+        field.set(reconciler, em);
+        em.getTransaction().begin();
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    private <T extends User> T user(T user, String name) {
+        user.setEmail(name + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setFullName(name);
+        em.persist(user);
+        return user;
+    }
+
+    private Message post(ChatRoom room, User sender, User recipient, boolean read) {
+        Message message = new Message();
+        message.setChatRoom(room);
+        message.setSender(sender);
+        message.setRecipient(recipient);
+        message.setContent("hello");
+        message.setRead(read);
+        em.persist(message);
+        em.flush();
+        return message;
+    }
+
+    private Long unread(ChatRoom room, User user) {
+        UnreadCounter counter = em.find(UnreadCounter.class, new UnreadCounter.Key(room.getId(), user.getId()));
+        return counter != null ? counter.getUnreadCount() : null;
+    }
+
+    @Test
+    void countsDirectRoomsByReadStatusAndGroupRoomsByWatermark() {
+        AlumniProfile mentor = user(new AlumniProfile(), "mentor");
+        Student thandi = user(new Student(), "thandi");
+        Student sipho = user(new Student(), "sipho");
+
+        ChatRoom direct = new ChatRoom(thandi, mentor);
+        em.persist(direct);
+        em.flush();
+        post(direct, mentor, thandi, true);
+        post(direct, mentor, thandi, false);
+        post(direct, mentor, thandi, false);
+        post(direct, thandi, mentor, false);
+
+        ChatRoom group = ChatRoom.group(mentor, "Study group");
+        em.persist(group);
+        em.flush();
+        for (User member : List.of(mentor, thandi, sipho)) {
+            em.persist(new ChatRoomMember(group.getId(), member.getId()));
+        }
+        Message first = post(group, mentor, null, false);
+        post(group, thandi, null, false);
+        post(group, mentor, null, false);
+        post(group, sipho, null, false);
+        em.find(ChatRoomMember.class, new ChatRoomMember.Key(group.getId(), sipho.getId()))
+                .setLastReadMessageId(first.getId());
+
+        // Drifted counters get corrected
+        UnreadCounter stale = new UnreadCounter();
+        stale.setChatRoomId(group.getId());
+        stale.setUserId(thandi.getId());
+        stale.setUnreadCount(42);
+        em.persist(stale);
+        em.flush();
+
+        reconciler.reconcile();
+        em.clear();
+
+        assertEquals(2L, unread(direct, thandi));
+        assertEquals(1L, unread(direct, mentor));
+        assertEquals(2L, unread(group, mentor));
+        assertEquals(3L, unread(group, thandi));
+        // Read up to the first post, and their own post does not count
+        assertEquals(2L, unread(group, sipho));
+        assertEquals(0L, em.createQuery("SELECT COUNT(c) FROM UnreadCounter c WHERE c.userId IS NULL OR c.userId = 0",
+                Long.class).getSingleResult());
+    }
+
+    @Test
+    void zeroesCountersWithNothingUnread() {
+        AlumniProfile mentor = user(new AlumniProfile(), "mentor");
+        Student thandi = user(new Student(), "thandi");
+        ChatRoom direct = new ChatRoom(thandi, mentor);
+        em.persist(direct);
+        em.flush();
+        post(direct, mentor, thandi, true);
+        UnreadCounter stale = new UnreadCounter();
+        stale.setChatRoomId(direct.getId());
+        stale.setUserId(thandi.getId());
+        stale.setUnreadCount(5);
+        em.persist(stale);
+        em.flush();
+
+        reconciler.reconcile();
+        em.clear();
+
+        assertEquals(0L, unread(direct, thandi));
+        assertNull(unread(direct, mentor));
+    }
+}
@@ -0,0 +1,126 @@
+package com.hlayiseko.AlumniMentoring.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Two buses wired to each other over loopback.
+ */
+class SocketRoomEventBusTest {
+
+    private final List<SocketRoomEventBus> buses = new ArrayList<>();
+
+    @AfterEach
+    void stopBuses() {
+        buses.forEach(SocketRoomEventBus::stop);
+    }
+
+    @Test
+    void deliversEventsToPeer() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        BlockingQueue<RoomEvent> receivedByB = new LinkedBlockingQueue<>();
+        SocketRoomEventBus a = start(portA, portB, "secret", (event, local) -> {});
+        start(portB, portA, "secret", (event, local) -> {
+            if (!local) {
+                receivedByB.add(event);
+            }
+        });
+
+        awaitTrue(() -> connectedPeers(a) == 1);
+        a.publish(new RoomEvent(RoomEvent.Kind.INVALIDATE, 42L, 7L, null));
+
+        RoomEvent event = receivedByB.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event);
+        assertEquals(RoomEvent.Kind.INVALIDATE, event.kind());
+        assertEquals(42L, event.roomId());
+        assertEquals(7L, event.excludeUserId());
+    }
+
+    @Test
+    void rejectsPeerWithWrongSecret() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        BlockingQueue<RoomEvent> receivedByB = new LinkedBlockingQueue<>();
+        SocketRoomEventBus a = start(portA, portB, "wrong", (event, local) -> {});
+        SocketRoomEventBus b = start(portB, portA, "secret", (event, local) -> receivedByB.add(event));
+
+        awaitTrue(() -> (Long) b.getMetrics().get("rejectedPeers") > 0);
+        a.publish(RoomEvent.invalidate(42L));
+
+        assertNull(receivedByB.poll(500, TimeUnit.MILLISECONDS));
+        assertEquals(0L, connectedPeers(a));
+    }
+
+    @Test
+    void stopClosesInboundConnections() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        SocketRoomEventBus a = start(portA, portB, "secret", (event, local) -> {});
+        SocketRoomEventBus b = start(portB, portA, "secret", (event, local) -> {});
+        awaitTrue(() -> (Integer) b.getMetrics().get("inboundPeers") == 1);
+
+        b.stop();
+
+        assertEquals(0, b.getMetrics().get("inboundPeers"));
+        awaitTrue(() -> connectedPeers(a) == 0);
+    }
+
+    @Test
+    void requiresSecret() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SocketRoomEventBus("127.0.0.1", 0, List.of(), " ", Thread::new));
+    }
+
+    @Test
+    void parsesPeers() {
+        List<InetSocketAddress> peers = SocketRoomEventBus.parsePeers("node1:7601, node2:7602");
+        assertEquals(2, peers.size());
+        assertEquals("node2", peers.get(1).getHostString());
+        assertEquals(7602, peers.get(1).getPort());
+        assertThrows(IllegalArgumentException.class, () -> SocketRoomEventBus.parsePeers("node1"));
+    }
+
+    private SocketRoomEventBus start(int port, int peerPort, String secret, RoomEventBus.Listener listener) {
+        SocketRoomEventBus bus = new SocketRoomEventBus("127.0.0.1", port,
+                List.of(InetSocketAddress.createUnresolved("127.0.0.1", peerPort)), secret, Thread::new);
+        buses.add(bus);
+        bus.start(listener);
+        return bus;
+    }
+
+    private static long connectedPeers(SocketRoomEventBus bus) {
+        return (Long) bus.getMetrics().get("connectedPeers");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 10 s");
+            }
+            Thread.sleep(20);
+        }
+    }
+}